@@ -42,11 +42,12 @@ public class CorsConfig {
             "X-Requested-With", 
             "Accept", 
             "Origin", 
-            "Cache-Control"
+            "Cache-Control",
+            "If-None-Match"
         ));
         
         // Expose headers needed by the client
-        config.setExposedHeaders(Arrays.asList("Authorization", "Cache-Control"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "Cache-Control", "ETag", "X-Total-Count", "X-Next-Cursor"));
         
         // Allow credentials since we're using specific origins
         config.setAllowCredentials(true);
@@ -0,0 +1,124 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how long requests wait for a Hikari connection, for load shedding.
+ *
+ * Registered as the pool's metrics tracker factory before the pool starts; any factory
+ * that was already configured keeps receiving every event. The wait time is kept as an
+ * exponentially weighted moving average that also decays while no connections are being
+ * acquired, so a burst that has passed does not keep the service in a shedding state.
+ */
+@Component
+public class ConnectionPoolMonitor implements BeanPostProcessor, MetricsTrackerFactory {
+
+    private static final double SMOOTHING = 0.2;
+    private static final long DECAY_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong averageWaitBits = new AtomicLong(Double.doubleToLongBits(0.0));
+    private final AtomicLong lastSampleNanos = new AtomicLong(System.nanoTime());
+    private volatile PoolStats poolStats;
+    private MetricsTrackerFactory delegate;
+    private long connectionTimeoutNanos = TimeUnit.SECONDS.toNanos(30);
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+            delegate = dataSource.getMetricsTrackerFactory();
+            connectionTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(dataSource.getConnectionTimeout());
+            dataSource.setMetricsTrackerFactory(this);
+        }
+        return bean;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats stats) {
+        this.poolStats = stats;
+        IMetricsTracker downstream = delegate != null ? delegate.create(poolName, stats) : null;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                recordWait(elapsedAcquiredNanos);
+                if (downstream != null) {
+                    downstream.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+                }
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                if (downstream != null) {
+                    downstream.recordConnectionCreatedMillis(connectionCreatedMillis);
+                }
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                if (downstream != null) {
+                    downstream.recordConnectionUsageMillis(elapsedBorrowedMillis);
+                }
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                // A timeout means a request waited the whole connection-timeout
+                recordWait(connectionTimeoutNanos);
+                if (downstream != null) {
+                    downstream.recordConnectionTimeout();
+                }
+            }
+
+            @Override
+            public void close() {
+                if (downstream != null) {
+                    downstream.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the smoothed connection wait time
+     *
+     * @return The average wait in milliseconds, decayed for time since the last acquisition
+     */
+    public double getAverageWaitMillis() {
+        double average = Double.longBitsToDouble(averageWaitBits.get());
+        long idleNanos = System.nanoTime() - lastSampleNanos.get();
+        if (idleNanos > 0) {
+            average *= Math.pow(0.5, (double) idleNanos / DECAY_HALF_LIFE_NANOS);
+        }
+        return average / 1_000_000.0;
+    }
+
+    /**
+     * Get the number of threads currently waiting for a connection
+     *
+     * @return The pending thread count, or 0 before the pool has started
+     */
+    public int getPendingThreads() {
+        PoolStats stats = poolStats;
+        return stats != null ? stats.getPendingThreads() : 0;
+    }
+
+    private void recordWait(long waitNanos) {
+        long now = System.nanoTime();
+        long idleNanos = now - lastSampleNanos.getAndSet(now);
+        double decay = idleNanos > 0 ? Math.pow(0.5, (double) idleNanos / DECAY_HALF_LIFE_NANOS) : 1.0;
+        long current;
+        long updated;
+        do {
+            current = averageWaitBits.get();
+            double average = Double.longBitsToDouble(current) * decay;
+            updated = Double.doubleToLongBits(average + SMOOTHING * (waitNanos - average));
+        } while (!averageWaitBits.compareAndSet(current, updated));
+    }
+}
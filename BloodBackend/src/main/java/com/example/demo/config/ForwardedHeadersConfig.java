@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Resolves the real client address and scheme behind the load balancer and nginx.
+ *
+ * The application is deployed as a WAR to a standalone Tomcat, where
+ * {@code server.forward-headers-strategy} has no effect, so Tomcat's RemoteIpFilter is
+ * registered ahead of every other filter instead. It walks X-Forwarded-For from the right
+ * and stops at the first address that is not a trusted proxy, so a client cannot pick its
+ * own address by sending the header itself. Rate limits, login throttling and the access
+ * log all see the resolved address through {@code getRemoteAddr()}.
+ */
+@Configuration
+public class ForwardedHeadersConfig {
+
+    // Regex of proxy addresses whose forwarded headers are trusted; blank keeps Tomcat's
+    // default of loopback and private network ranges
+    @Value("${server.forwarded.internalProxies:}")
+    private String internalProxies;
+
+    @Bean
+    public FilterRegistrationBean<RemoteIpFilter> remoteIpFilter() {
+        RemoteIpFilter filter = new RemoteIpFilter();
+        if (!internalProxies.isBlank()) {
+            filter.setInternalProxies(internalProxies);
+        }
+        filter.setRemoteIpHeader("X-Forwarded-For");
+        filter.setProtocolHeader("X-Forwarded-Proto");
+
+        FilterRegistrationBean<RemoteIpFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -2,9 +2,15 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.model.User;
+import com.example.demo.security.JwtClaims;
 import com.example.demo.security.JwtUtils;
+import com.example.demo.security.LoginThrottle;
+import com.example.demo.security.TokenRevocationStore;
+import com.example.demo.service.LoginService;
 import com.example.demo.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -12,6 +18,10 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -26,92 +36,91 @@ public class AuthController {
     
     @Autowired
     private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private LoginService loginService;
+    
+    @Autowired
+    private LoginThrottle loginThrottle;
+    
+    @Autowired
+    private TokenRevocationStore revocationStore;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
-        try {
-            // Find user by email
-            User user = userService.findByUsername(loginRequest.getUsername());
-            
-            // For existing users without encoded passwords during transition
-            boolean passwordMatch = false;
-            if (user != null) {
-                if (user.getPassword().startsWith("$2a$")) {
-                    // Password is already encoded
-                    passwordMatch = passwordEncoder.matches(loginRequest.getPassword(), user.getPassword());
-                } else {
-                    // Legacy password comparison - for transition period
-                    passwordMatch = user.getPassword().equals(loginRequest.getPassword());
-                    
-                    // Update to encoded password for future logins
-                    user.setPassword(passwordEncoder.encode(loginRequest.getPassword()));
-                    userService.saveUser(user);
-                }
-            }
-            
-            if (user != null && passwordMatch) {
-                // Generate JWT token
-                String token = jwtUtils.generateJwtToken(user.getEmail(), user.getId(), user.getRole());
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("token", token);
-                response.put("userId", user.getId());
-                response.put("name", user.getName());
-                response.put("email", user.getEmail());
-                response.put("role", user.getRole());
-                
-                return ResponseEntity.ok(response);
-            } else {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error during login: " + e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        return authenticate(loginRequest, request, null, "Invalid username or password", "Error during login: ");
     }
     
     @PostMapping("/admin/login")
-    public ResponseEntity<?> adminLogin(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> adminLogin(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        return authenticate(loginRequest, request, "ADMIN", "Invalid admin credentials", "Error during admin login: ");
+    }
+    
+    /**
+     * Throttle the attempt, then verify the password on the hashing pool so the request
+     * thread is released while BCrypt runs. The remote address is the real client's, as
+     * resolved by RemoteIpFilter; only failed attempts count against the account.
+     */
+    private CompletableFuture<ResponseEntity<?>> authenticate(LoginRequest loginRequest, HttpServletRequest request,
+                                                              String requiredRole, String invalidMessage, String errorPrefix) {
+        if (!loginThrottle.tryAcquire(request.getRemoteAddr(), loginRequest.getUsername())) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(Map.of("message", "Too many login attempts, please try again later")));
+        }
+        
         try {
-            // Find user by email
-            User user = userService.findByUsername(loginRequest.getUsername());
-            
-            // Check if user exists and has admin role
-            if (user == null || !"ADMIN".equals(user.getRole())) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid admin credentials");
-            }
-            
-            // Verify password
-            boolean passwordMatch = false;
-            if (user.getPassword().startsWith("$2a$")) {
-                // Password is already encoded
-                passwordMatch = passwordEncoder.matches(loginRequest.getPassword(), user.getPassword());
-            } else {
-                // Legacy password comparison - for transition period
-                passwordMatch = user.getPassword().equals(loginRequest.getPassword());
-                
-                // Update to encoded password for future logins
-                user.setPassword(passwordEncoder.encode(loginRequest.getPassword()));
-                userService.saveUser(user);
-            }
-            
-            if (passwordMatch) {
-                // Generate JWT token
-                String token = jwtUtils.generateJwtToken(user.getEmail(), user.getId(), user.getRole());
-                
-                Map<String, Object> response = new HashMap<>();
-                response.put("token", token);
-                response.put("userId", user.getId());
-                response.put("name", user.getName());
-                response.put("email", user.getEmail());
-                response.put("role", user.getRole());
-                
-                return ResponseEntity.ok(response);
-            } else {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid admin credentials");
-            }
+            return loginService.authenticate(loginRequest.getUsername(), loginRequest.getPassword(), requiredRole)
+                    .<ResponseEntity<?>>thenApply(userOpt -> userOpt
+                            .<ResponseEntity<?>>map(user -> ResponseEntity.ok(tokenResponse(user)))
+                            .orElseGet(() -> {
+                                loginThrottle.recordFailure(loginRequest.getUsername());
+                                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(invalidMessage);
+                            }))
+                    .exceptionally(e -> loginFailure(e, errorPrefix));
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error during admin login: " + e.getMessage());
+            return CompletableFuture.completedFuture(loginFailure(e, errorPrefix));
+        }
+    }
+    
+    private ResponseEntity<?> loginFailure(Throwable e, String errorPrefix) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("message", "Login service is busy, please retry"));
+        }
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorPrefix + cause.getMessage());
+    }
+    
+    private Map<String, Object> tokenResponse(User user) {
+        // Generate JWT token
+        String token = jwtUtils.generateJwtToken(user.getEmail(), user.getId(), user.getRole());
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", token);
+        response.put("userId", user.getId());
+        response.put("name", user.getName());
+        response.put("email", user.getEmail());
+        response.put("role", user.getRole());
+        return response;
+    }
+
+    /**
+     * Revoke the caller's token so it cannot be used again before it expires
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(name = "Authorization", required = false) String authHeader) {
+        String token = authHeader != null && authHeader.regionMatches(true, 0, "Bearer ", 0, 7)
+                ? authHeader.substring(7)
+                : authHeader;
+        Optional<JwtClaims> claims = jwtUtils.parseVerifiedClaims(token);
+        if (claims.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "No valid token to revoke"));
         }
+        
+        revocationStore.revoke(claims.get());
+        return ResponseEntity.ok(Map.of("message", "Logged out successfully"));
     }
 
     @PostMapping("/register")
@@ -1,10 +1,13 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.DonationSummary;
 import com.example.demo.model.BloodDonation;
 import com.example.demo.model.Donor;
 import com.example.demo.service.BloodDonationService;
 import com.example.demo.service.DonorService;
 
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
@@ -70,9 +73,20 @@ public class BloodDonationController {
     }
 
     @GetMapping
-    public ResponseEntity<List<BloodDonation>> getAllBloodDonations() {
-        List<BloodDonation> donations = bloodDonationService.getAllBloodDonations();
-        return ResponseEntity.ok(donations);
+    public ResponseEntity<?> getAllBloodDonations(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String bloodGroup,
+            @RequestParam(required = false) Long donorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<DonationSummary>> page = bloodDonationService.listBloodDonations(status, bloodGroup, donorId,
+                from, to, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/{id}")
@@ -87,8 +101,8 @@ public class BloodDonationController {
     }
 
     @GetMapping("/donor/{donorId}")
-    public ResponseEntity<List<BloodDonation>> getBloodDonationsByDonorId(@PathVariable Long donorId) {
-        List<BloodDonation> donations = bloodDonationService.getBloodDonationsByDonorId(donorId);
+    public ResponseEntity<List<DonationSummary>> getBloodDonationsByDonorId(@PathVariable Long donorId) {
+        List<DonationSummary> donations = bloodDonationService.getBloodDonationsByDonorId(donorId);
         return ResponseEntity.ok(donations);
     }
 
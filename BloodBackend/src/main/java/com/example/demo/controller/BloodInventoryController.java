@@ -3,11 +3,15 @@ package com.example.demo.controller;
 import com.example.demo.model.BloodInventory;
 import com.example.demo.service.BloodInventoryService;
 
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,9 +34,19 @@ public class BloodInventoryController {
     }
 
     @GetMapping
-    public ResponseEntity<List<BloodInventory>> getAllBloodInventory() {
-        List<BloodInventory> inventory = bloodInventoryService.getAllBloodInventory();
-        return ResponseEntity.ok(inventory);
+    public ResponseEntity<?> getAllBloodInventory(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String bloodGroup,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime expiringBefore,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<BloodInventory>> page = bloodInventoryService.listBloodInventory(status, bloodGroup, hospitalId,
+                expiringBefore, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/{id}")
@@ -1,16 +1,22 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.UnitsContribution;
 import com.example.demo.model.BloodRequest;
 import com.example.demo.model.Hospital;
 import com.example.demo.service.BloodRequestService;
 import com.example.demo.service.HospitalService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -66,9 +72,21 @@ public class BloodRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<List<BloodRequest>> getAllBloodRequests() {
-        List<BloodRequest> requests = bloodRequestService.getAllBloodRequests();
-        return ResponseEntity.ok(requests);
+    public ResponseEntity<?> getAllBloodRequests(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String bloodGroup,
+            @RequestParam(required = false) String priority,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<BloodRequest>> page = bloodRequestService.listBloodRequests(status, bloodGroup, priority,
+                hospitalId, from, to, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/{id}")
@@ -89,9 +107,11 @@ public class BloodRequestController {
     }
 
     @GetMapping("/location/{location}")
-    public ResponseEntity<List<BloodRequest>> getBloodRequestsByLocation(@PathVariable String location) {
-        List<BloodRequest> requests = bloodRequestService.getBloodRequestsByLocation(location);
-        return ResponseEntity.ok(requests);
+    public ResponseEntity<List<BloodRequest>> getBloodRequestsByLocation(
+            @PathVariable String location,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return PagedResponse.of(bloodRequestService.searchBloodRequestsByLocation(location, Math.max(0, page), PagedResponse.pageSize(size)));
     }
 
     @GetMapping("/status/{status}")
@@ -167,6 +187,21 @@ public class BloodRequestController {
         }
     }
     
+    @PostMapping("/{id}/units-provided")
+    public ResponseEntity<?> addUnitsProvided(@PathVariable Long id, @RequestParam int units) {
+        if (units < 1) {
+            return ResponseEntity.badRequest().body(Map.of("message", "units must be at least 1"));
+        }
+        Optional<UnitsContribution> contribution = bloodRequestService.addUnitsProvided(id, units);
+        if (contribution.isPresent()) {
+            return ResponseEntity.ok(contribution.get());
+        }
+        if (bloodRequestService.getBloodRequestById(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "Blood request is no longer open"));
+    }
+    
     @PostMapping("/hospital/{hospitalId}")
     public ResponseEntity<?> createHospitalRequest(@PathVariable Long hospitalId, @RequestBody BloodRequest bloodRequest) {
         Optional<Hospital> hospital = hospitalService.getHospitalById(hospitalId);
@@ -1,17 +1,22 @@
 package com.example.demo.controller;
 
 import com.example.demo.util.DataImportExportUtil;
+import com.example.demo.util.DatabaseSnapshotUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,13 +25,16 @@ import java.util.Map;
  */
 @RestController
 @RequestMapping("/api/data")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
 public class DataManagementController {
 
     private final DataImportExportUtil dataImportExportUtil;
+    private final DatabaseSnapshotUtil databaseSnapshotUtil;
     
     @Autowired
-    public DataManagementController(DataImportExportUtil dataImportExportUtil) {
+    public DataManagementController(DataImportExportUtil dataImportExportUtil, DatabaseSnapshotUtil databaseSnapshotUtil) {
         this.dataImportExportUtil = dataImportExportUtil;
+        this.databaseSnapshotUtil = databaseSnapshotUtil;
     }
     
     /**
@@ -246,4 +254,47 @@ public class DataManagementController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Export a snapshot of every entity table as a single compressed binary archive
+     * 
+     * @return The snapshot archive, streamed as it is produced
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot() {
+        String fileName = "bloodbank-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".bbsnap";
+        StreamingResponseBody body = outputStream -> databaseSnapshotUtil.exportSnapshot(outputStream);
+        
+        return ResponseEntity
+                .ok()
+                .header("Content-Disposition", "attachment; filename=" + fileName)
+                .header("Content-Type", "application/octet-stream")
+                .body(body);
+    }
+    
+    /**
+     * Restore all entity tables from a snapshot archive, replacing their current contents
+     * 
+     * @param file Snapshot archive produced by the export endpoint
+     * @return Response with count of restored records per table
+     */
+    @PostMapping("/snapshot/restore")
+    public ResponseEntity<?> restoreSnapshot(@RequestParam("file") MultipartFile file) {
+        try {
+            Map<String, Long> counts = databaseSnapshotUtil.restoreSnapshot(file);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "success");
+            response.put("message", "Snapshot restored successfully");
+            response.put("counts", counts);
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Error restoring snapshot: " + e.getMessage());
+            
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
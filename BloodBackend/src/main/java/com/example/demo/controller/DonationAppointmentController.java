@@ -1,9 +1,15 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.AppointmentSummary;
+import com.example.demo.dto.AvailableSlot;
+import com.example.demo.dto.CalendarDay;
 import com.example.demo.model.DonationAppointment;
 import com.example.demo.model.Donor;
+import com.example.demo.service.AppointmentSlotService;
 import com.example.demo.service.DonationAppointmentService;
 import com.example.demo.service.DonorService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -11,21 +17,28 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/donation-appointments")
 public class DonationAppointmentController {
 
+    private static final int MAX_CALENDAR_DAYS = 366;
+
     private final DonationAppointmentService appointmentService;
     private final DonorService donorService;
+    private final AppointmentSlotService slotService;
 
     @Autowired
-    public DonationAppointmentController(DonationAppointmentService appointmentService, DonorService donorService) {
+    public DonationAppointmentController(DonationAppointmentService appointmentService, DonorService donorService,
+                                         AppointmentSlotService slotService) {
         this.appointmentService = appointmentService;
         this.donorService = donorService;
+        this.slotService = slotService;
     }
 
     @PostMapping
@@ -43,9 +56,12 @@ public class DonationAppointmentController {
         // Set the donor
         appointment.setDonor(donorOpt.get());
         
-        // Save the appointment
-        DonationAppointment savedAppointment = appointmentService.saveAppointment(appointment);
-        return ResponseEntity.status(HttpStatus.CREATED).body(savedAppointment);
+        // Save the appointment if its slot has room
+        Optional<DonationAppointment> savedAppointment = appointmentService.bookAppointment(appointment);
+        if (!savedAppointment.isPresent()) {
+            return slotFull();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedAppointment.get());
     }
 
     @PostMapping("/schedule")
@@ -60,16 +76,47 @@ public class DonationAppointmentController {
             return ResponseEntity.badRequest().body("Donor not found");
         }
         
-        DonationAppointment appointment = appointmentService.scheduleAppointment(
+        Optional<DonationAppointment> appointment = appointmentService.scheduleAppointment(
                 donorOpt.get(), appointmentDate, location, notes);
+        if (!appointment.isPresent()) {
+            return slotFull();
+        }
         
-        return ResponseEntity.status(HttpStatus.CREATED).body(appointment);
+        return ResponseEntity.status(HttpStatus.CREATED).body(appointment.get());
+    }
+
+    @GetMapping("/slots")
+    public ResponseEntity<List<AvailableSlot>> getAvailableSlots(
+            @RequestParam String location,
+            @RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(slotService.getAvailableSlots(location, days));
+    }
+
+    @PutMapping("/slots/capacity")
+    public ResponseEntity<?> setSlotCapacity(
+            @RequestParam String location,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime slotStart,
+            @RequestParam int capacity) {
+        if (location.isBlank() || capacity < 0) {
+            return ResponseEntity.badRequest().body(Map.of("message", "A location and a capacity of zero or more are required"));
+        }
+        return ResponseEntity.ok(slotService.setCapacity(location, slotStart, capacity));
     }
 
     @GetMapping
-    public ResponseEntity<List<DonationAppointment>> getAllAppointments() {
-        List<DonationAppointment> appointments = appointmentService.getAllAppointments();
-        return ResponseEntity.ok(appointments);
+    public ResponseEntity<?> getAllAppointments(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long donorId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<AppointmentSummary>> page = appointmentService.listAppointments(status, donorId,
+                from, to, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/{id}")
@@ -84,8 +131,8 @@ public class DonationAppointmentController {
     }
 
     @GetMapping("/donor/{donorId}")
-    public ResponseEntity<List<DonationAppointment>> getAppointmentsByDonorId(@PathVariable Long donorId) {
-        List<DonationAppointment> appointments = appointmentService.getAppointmentsByDonorId(donorId);
+    public ResponseEntity<List<AppointmentSummary>> getAppointmentsByDonorId(@PathVariable Long donorId) {
+        List<AppointmentSummary> appointments = appointmentService.getAppointmentsByDonorId(donorId);
         return ResponseEntity.ok(appointments);
     }
 
@@ -96,9 +143,11 @@ public class DonationAppointmentController {
     }
 
     @GetMapping("/location/{location}")
-    public ResponseEntity<List<DonationAppointment>> getAppointmentsByLocation(@PathVariable String location) {
-        List<DonationAppointment> appointments = appointmentService.getAppointmentsByLocation(location);
-        return ResponseEntity.ok(appointments);
+    public ResponseEntity<List<DonationAppointment>> getAppointmentsByLocation(
+            @PathVariable String location,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return PagedResponse.of(appointmentService.searchAppointmentsByLocation(location, Math.max(0, page), PagedResponse.pageSize(size)));
     }
 
     @GetMapping("/date-range")
@@ -118,6 +167,29 @@ public class DonationAppointmentController {
         return ResponseEntity.ok(appointments);
     }
 
+    @GetMapping("/week")
+    public ResponseEntity<List<DonationAppointment>> getAppointmentsForWeek(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsForWeek(date));
+    }
+
+    @GetMapping("/month")
+    public ResponseEntity<List<DonationAppointment>> getAppointmentsForMonth(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime date) {
+        return ResponseEntity.ok(appointmentService.getAppointmentsForMonth(date));
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<?> getCalendar(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (to.isBefore(from) || from.plusDays(MAX_CALENDAR_DAYS).isBefore(to)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "The range must run forwards and cover at most " + MAX_CALENDAR_DAYS + " days"));
+        }
+        List<CalendarDay> calendar = appointmentService.getCalendar(from, to);
+        return ResponseEntity.ok(calendar);
+    }
+
     @GetMapping("/donor/{donorId}/upcoming")
     public ResponseEntity<List<DonationAppointment>> getUpcomingAppointmentsForDonor(@PathVariable Long donorId) {
         List<DonationAppointment> appointments = appointmentService.getUpcomingAppointmentsForDonor(donorId);
@@ -157,6 +229,12 @@ public class DonationAppointmentController {
         }
     }
 
+    @PostMapping("/reminders/dispatch")
+    public ResponseEntity<Map<String, Integer>> dispatchReminders(@RequestParam(defaultValue = "24") int hours) {
+        int queued = appointmentService.sendDueReminders(Math.max(1, hours));
+        return ResponseEntity.ok(Map.of("remindersQueued", queued));
+    }
+
     @GetMapping("/reminders/{hours}")
     public ResponseEntity<List<DonationAppointment>> getAppointmentsNeedingReminders(@PathVariable int hours) {
         List<DonationAppointment> appointments = appointmentService.getAppointmentsNeedingReminders(hours);
@@ -169,8 +247,11 @@ public class DonationAppointmentController {
         
         if (existingAppointment.isPresent()) {
             appointment.setId(id);
-            DonationAppointment updatedAppointment = appointmentService.saveAppointment(appointment);
-            return ResponseEntity.ok(updatedAppointment);
+            Optional<DonationAppointment> updatedAppointment = appointmentService.bookAppointment(appointment);
+            if (!updatedAppointment.isPresent()) {
+                return slotFull();
+            }
+            return ResponseEntity.ok(updatedAppointment.get());
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -187,4 +268,9 @@ public class DonationAppointmentController {
             return ResponseEntity.notFound().build();
         }
     }
+
+    private ResponseEntity<Map<String, String>> slotFull() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", "The selected time slot is fully booked at this location"));
+    }
 }
\ No newline at end of file
@@ -1,24 +1,38 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.DonorProfile;
 import com.example.demo.dto.DonorRegistrationRequest;
+import com.example.demo.dto.DonorSummary;
 import com.example.demo.dto.LoginRequest;
+import com.example.demo.dto.NearbyDonor;
 import com.example.demo.model.Donor;
 import com.example.demo.model.Hospital;
 import com.example.demo.service.DonorService;
 import com.example.demo.service.HospitalService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.GeoPoint;
+import com.example.demo.util.PagedResponse;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/donors")
 public class DonorController {
 
+    private static final double MAX_SEARCH_RADIUS_KM = 500;
+    private static final int MAX_NEAREST_RESULTS = 200;
+
     private final DonorService donorService;
     private final HospitalService hospitalService;
 
@@ -60,9 +74,6 @@ public class DonorController {
         // Save the donor
         Donor savedDonor = donorService.saveDonor(donor);
         
-        // Remove password from the response
-        savedDonor.setPassword(null);
-        
         return ResponseEntity.status(HttpStatus.CREATED).body(savedDonor);
     }
 
@@ -71,24 +82,39 @@ public class DonorController {
         Optional<Donor> donor = donorService.authenticateDonor(loginRequest.getUsername(), loginRequest.getPassword());
         
         if (donor.isPresent()) {
-            // Remove password from the response
-            Donor authenticatedDonor = donor.get();
-            authenticatedDonor.setPassword(null);
-            
-            return ResponseEntity.ok(authenticatedDonor);
+            return ResponseEntity.ok(donor.get());
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid username or password");
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<Donor>> getAllDonors() {
-        List<Donor> donors = donorService.getAllDonors();
-        
-        // Remove passwords from response
-        donors.forEach(donor -> donor.setPassword(null));
-        
-        return ResponseEntity.ok(donors);
+    public ResponseEntity<?> getAllDonors(
+            @RequestParam(required = false) String bloodGroup,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<DonorSummary>> page = donorService.listDonors(bloodGroup, available, hospitalId,
+                cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
+    }
+
+    @GetMapping("/eligible")
+    public ResponseEntity<?> getEligibleDonors(
+            @RequestParam(required = false) String bloodGroup,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<DonorSummary>> page = donorService.getEligibleDonors(bloodGroup, hospitalId, cursor,
+                PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/{id}")
@@ -96,34 +122,49 @@ public class DonorController {
         Optional<Donor> donor = donorService.getDonorById(id);
         
         if (donor.isPresent()) {
-            // Remove password from response
-            Donor foundDonor = donor.get();
-            foundDonor.setPassword(null);
-            
-            return ResponseEntity.ok(foundDonor);
+            return ResponseEntity.ok(donor.get());
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
+    /**
+     * Get everything the donor dashboard needs on start in one round trip: the donor, their
+     * donation totals and latest donation, and their next appointment. Clients send the last
+     * ETag back and get an empty 304 while nothing has changed.
+     */
+    @GetMapping("/{id}/profile")
+    public ResponseEntity<?> getDonorProfile(@PathVariable Long id,
+                                             @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<DonorProfile> profile = donorService.getDonorProfile(id, ifNoneMatch);
+        if (profile.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (profile.get().isNotModified()) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(profile.get().getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(profile.get().getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(profile.get());
+    }
+
     @GetMapping("/bloodGroup/{bloodGroup}")
-    public ResponseEntity<List<Donor>> getDonorsByBloodGroup(@PathVariable String bloodGroup) {
-        List<Donor> donors = donorService.getDonorsByBloodGroup(bloodGroup);
-        
-        // Remove passwords from response
-        donors.forEach(donor -> donor.setPassword(null));
-        
+    public ResponseEntity<List<DonorSummary>> getDonorsByBloodGroup(@PathVariable String bloodGroup) {
+        List<DonorSummary> donors = donorService.getDonorsByBloodGroup(bloodGroup);
         return ResponseEntity.ok(donors);
     }
 
     @GetMapping("/location/{location}")
-    public ResponseEntity<List<Donor>> getDonorsByLocation(@PathVariable String location) {
-        List<Donor> donors = donorService.getDonorsByLocation(location);
-        
-        // Remove passwords from response
-        donors.forEach(donor -> donor.setPassword(null));
-        
-        return ResponseEntity.ok(donors);
+    public ResponseEntity<List<DonorSummary>> getDonorsByLocation(
+            @PathVariable String location,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        Page<Donor> donors = donorService.searchDonorsByLocation(location, Math.max(0, page), PagedResponse.pageSize(size));
+        return PagedResponse.of(donors.map(DonorSummary::from));
     }
 
     @PutMapping("/{id}")
@@ -136,9 +177,6 @@ public class DonorController {
             
             Donor updatedDonor = donorService.saveDonor(donor);
             
-            // Remove password from response
-            updatedDonor.setPassword(null);
-            
             return ResponseEntity.ok(updatedDonor);
         } else {
             return ResponseEntity.notFound().build();
@@ -150,9 +188,6 @@ public class DonorController {
         Optional<Donor> updatedDonor = donorService.updateDonorAvailability(id, available);
         
         if (updatedDonor.isPresent()) {
-            // Remove password from response
-            updatedDonor.get().setPassword(null);
-            
             return ResponseEntity.ok(updatedDonor.get());
         } else {
             return ResponseEntity.notFound().build();
@@ -176,45 +211,68 @@ public class DonorController {
         Optional<Donor> donor = donorService.getDonorByEmail(email);
         
         if (donor.isPresent()) {
-            // Remove password from response
-            Donor foundDonor = donor.get();
-            foundDonor.setPassword(null);
-            
-            return ResponseEntity.ok(foundDonor);
+            return ResponseEntity.ok(donor.get());
         } else {
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/hospital/{hospitalId}")
-    public ResponseEntity<List<Donor>> getDonorsByHospital(@PathVariable Long hospitalId) {
-        List<Donor> donors = donorService.getDonorsByHospital(hospitalId);
-        
-        // Remove passwords from response
-        donors.forEach(donor -> donor.setPassword(null));
-        
+    public ResponseEntity<List<DonorSummary>> getDonorsByHospital(@PathVariable Long hospitalId) {
+        List<DonorSummary> donors = donorService.getDonorsByHospital(hospitalId);
         return ResponseEntity.ok(donors);
     }
     
     @GetMapping("/hospital/{hospitalId}/bloodGroup/{bloodGroup}")
-    public ResponseEntity<List<Donor>> getDonorsByHospitalAndBloodGroup(
+    public ResponseEntity<List<DonorSummary>> getDonorsByHospitalAndBloodGroup(
             @PathVariable Long hospitalId, 
             @PathVariable String bloodGroup) {
-        List<Donor> donors = donorService.getDonorsByBloodGroupAndHospital(bloodGroup, hospitalId);
-        
-        // Remove passwords from response
-        donors.forEach(donor -> donor.setPassword(null));
-        
+        List<DonorSummary> donors = donorService.getDonorsByBloodGroupAndHospital(bloodGroup, hospitalId);
         return ResponseEntity.ok(donors);
     }
     
     @GetMapping("/hospital/{hospitalId}/available")
-    public ResponseEntity<List<Donor>> getAvailableDonorsByHospital(@PathVariable Long hospitalId) {
-        List<Donor> donors = donorService.getAvailableDonorsByHospital(hospitalId);
-        
-        // Remove passwords from response
-        donors.forEach(donor -> donor.setPassword(null));
+    public ResponseEntity<List<DonorSummary>> getAvailableDonorsByHospital(@PathVariable Long hospitalId) {
+        List<DonorSummary> donors = donorService.getAvailableDonorsByHospital(hospitalId);
+        return ResponseEntity.ok(donors);
+    }
+    
+    /**
+     * Find the closest donors who can give blood to a recipient now, around either a
+     * hospital or a pair of coordinates
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<?> getNearestDonors(
+            @RequestParam String bloodGroup,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lon,
+            @RequestParam(defaultValue = "25") double radiusKm,
+            @RequestParam(defaultValue = "20") int limit) {
+        Map<String, String> response = new HashMap<>();
+        if (hospitalId != null) {
+            Optional<Hospital> hospital = hospitalService.getHospitalById(hospitalId);
+            if (!hospital.isPresent()) {
+                response.put("message", "Hospital not found with id: " + hospitalId);
+                return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+            }
+            lat = hospital.get().getLatitude();
+            lon = hospital.get().getLongitude();
+            if (lat == null || lon == null) {
+                response.put("message", "Hospital location could not be resolved to coordinates");
+                return new ResponseEntity<>(response, HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+        if (lat == null || lon == null || !GeoPoint.isValid(lat, lon)) {
+            response.put("message", "Provide a hospitalId or valid lat and lon");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_SEARCH_RADIUS_KM || limit <= 0 || limit > MAX_NEAREST_RESULTS) {
+            response.put("message", "radiusKm must be in (0, " + (int) MAX_SEARCH_RADIUS_KM + "] and limit in [1, " + MAX_NEAREST_RESULTS + "]");
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
         
+        List<NearbyDonor> donors = donorService.findNearestDonors(lat, lon, bloodGroup, radiusKm, limit);
         return ResponseEntity.ok(donors);
     }
-}
\ No newline at end of file
+}
@@ -2,13 +2,20 @@ package com.example.demo.controller;
 
 import com.example.demo.model.EmergencyNotification;
 import com.example.demo.model.Hospital;
+import com.example.demo.service.ActiveEmergencyIndex;
 import com.example.demo.service.EmergencyNotificationService;
 import com.example.demo.service.HospitalService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,21 +36,30 @@ public class EmergencyNotificationController {
     }
 
     @GetMapping
-    public ResponseEntity<List<EmergencyNotification>> getAllNotifications() {
-        List<EmergencyNotification> notifications = notificationService.getAllNotifications();
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<?> getAllNotifications(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String bloodType,
+            @RequestParam(required = false) Long hospitalId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<EmergencyNotification>> page = notificationService.listNotifications(status, bloodType,
+                hospitalId, from, to, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<EmergencyNotification>> getActiveNotifications() {
-        List<EmergencyNotification> notifications = notificationService.getActiveNotifications();
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<List<EmergencyNotification>> getActiveNotifications(WebRequest request) {
+        return activeListingResponse(notificationService.getActiveNotificationListing(null), request);
     }
 
     @GetMapping("/active/blood-type/{bloodType}")
-    public ResponseEntity<List<EmergencyNotification>> getActiveNotificationsByBloodType(@PathVariable String bloodType) {
-        List<EmergencyNotification> notifications = notificationService.getActiveNotificationsByBloodType(bloodType);
-        return ResponseEntity.ok(notifications);
+    public ResponseEntity<List<EmergencyNotification>> getActiveNotificationsByBloodType(@PathVariable String bloodType, WebRequest request) {
+        return activeListingResponse(notificationService.getActiveNotificationListing(bloodType), request);
     }
 
     @GetMapping("/{id}")
@@ -170,4 +186,18 @@ public class EmergencyNotificationController {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    // Polling clients send the last ETag back and get an empty 304 while nothing has changed
+    private static ResponseEntity<List<EmergencyNotification>> activeListingResponse(ActiveEmergencyIndex.Listing listing, WebRequest request) {
+        if (request.checkNotModified(listing.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(listing.getETag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(listing.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(listing.getNotifications());
+    }
+}
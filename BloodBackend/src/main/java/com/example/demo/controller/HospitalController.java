@@ -2,6 +2,8 @@ package com.example.demo.controller;
 
 import com.example.demo.model.Hospital;
 import com.example.demo.service.HospitalService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,9 +27,15 @@ public class HospitalController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Hospital>> getAllHospitals() {
-        List<Hospital> hospitals = hospitalService.getAllHospitals();
-        return new ResponseEntity<>(hospitals, HttpStatus.OK);
+    public ResponseEntity<?> getAllHospitals(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<Hospital>> page = hospitalService.listHospitals(status, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/active")
@@ -154,8 +162,10 @@ public class HospitalController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Hospital>> searchHospitals(@RequestParam String query) {
-        List<Hospital> hospitals = hospitalService.searchHospitals(query);
-        return new ResponseEntity<>(hospitals, HttpStatus.OK);
+    public ResponseEntity<List<Hospital>> searchHospitals(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return PagedResponse.of(hospitalService.searchHospitals(query, Math.max(0, page), PagedResponse.pageSize(size)));
     }
 }
\ No newline at end of file
@@ -4,6 +4,8 @@ import com.example.demo.dto.LoginRequest;
 import com.example.demo.model.User;
 import com.example.demo.service.UserService;
 
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -34,9 +36,6 @@ public class UserController {
         // Save the user
         User savedUser = userService.saveUser(user);
         
-        // Remove password from the response
-        savedUser.setPassword(null);
-        
         return ResponseEntity.status(HttpStatus.CREATED).body(savedUser);
     }
 
@@ -45,24 +44,22 @@ public class UserController {
         Optional<User> user = userService.authenticateUser(loginRequest.getEmail(), loginRequest.getPassword());
         
         if (user.isPresent()) {
-            // Remove password from the response
-            User authenticatedUser = user.get();
-            authenticatedUser.setPassword(null);
-            
-            return ResponseEntity.ok(authenticatedUser);
+            return ResponseEntity.ok(user.get());
         } else {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid email or password");
         }
     }
 
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        
-        // Remove passwords from response
-        users.forEach(user -> user.setPassword(null));
-        
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<User>> page = userService.listUsers(role, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
 
     @GetMapping("/{id}")
@@ -70,11 +67,7 @@ public class UserController {
         Optional<User> user = userService.getUserById(id);
         
         if (user.isPresent()) {
-            // Remove password from response
-            User foundUser = user.get();
-            foundUser.setPassword(null);
-            
-            return ResponseEntity.ok(foundUser);
+            return ResponseEntity.ok(user.get());
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -90,9 +83,6 @@ public class UserController {
             
             User updatedUser = userService.saveUser(user);
             
-            // Remove password from response
-            updatedUser.setPassword(null);
-            
             return ResponseEntity.ok(updatedUser);
         } else {
             return ResponseEntity.notFound().build();
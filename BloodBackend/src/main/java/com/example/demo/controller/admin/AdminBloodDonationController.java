@@ -1,14 +1,15 @@
 package com.example.demo.controller.admin;
 
-import com.example.demo.model.BloodDonation;
+import com.example.demo.dto.DonationSummary;
 import com.example.demo.service.BloodDonationService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 /**
  * Controller for admin-only blood donation operations
@@ -31,14 +32,15 @@ public class AdminBloodDonationController {
      */
     @GetMapping("/pending")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<BloodDonation>> getPendingDonations() {
-        // Get all donations and filter for pending status
-        List<BloodDonation> allDonations = bloodDonationService.getAllBloodDonations();
-        List<BloodDonation> pendingDonations = allDonations.stream()
-            .filter(donation -> "PENDING".equals(donation.getDonationStatus()))
-            .collect(Collectors.toList());
-            
-        return ResponseEntity.ok(pendingDonations);
+    public ResponseEntity<?> getPendingDonations(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<DonationSummary>> page = bloodDonationService.listBloodDonations("PENDING", null, null,
+                null, null, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
     
     /**
@@ -1,14 +1,18 @@
 package com.example.demo.controller.admin;
 
 import com.example.demo.model.BloodRequest;
+import com.example.demo.service.BloodRequestDeadlineMonitor;
+import com.example.demo.service.BloodRequestMatchingEngine;
 import com.example.demo.service.BloodRequestService;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.PagedResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Controller for admin-only blood request operations
@@ -19,10 +23,15 @@ import java.util.stream.Collectors;
 public class AdminBloodRequestController {
 
     private final BloodRequestService bloodRequestService;
+    private final BloodRequestMatchingEngine matchingEngine;
+    private final BloodRequestDeadlineMonitor deadlineMonitor;
     
     @Autowired
-    public AdminBloodRequestController(BloodRequestService bloodRequestService) {
+    public AdminBloodRequestController(BloodRequestService bloodRequestService, BloodRequestMatchingEngine matchingEngine,
+                                       BloodRequestDeadlineMonitor deadlineMonitor) {
         this.bloodRequestService = bloodRequestService;
+        this.matchingEngine = matchingEngine;
+        this.deadlineMonitor = deadlineMonitor;
     }
     
     /**
@@ -31,14 +40,15 @@ public class AdminBloodRequestController {
      */
     @GetMapping("/pending")
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<BloodRequest>> getPendingRequests() {
-        // Get all requests and filter for pending status
-        List<BloodRequest> allRequests = bloodRequestService.getAllBloodRequests();
-        List<BloodRequest> pendingRequests = allRequests.stream()
-            .filter(request -> "PENDING".equals(request.getRequestStatus()))
-            .collect(Collectors.toList());
-            
-        return ResponseEntity.ok(pendingRequests);
+    public ResponseEntity<?> getPendingRequests(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "200") int limit) {
+        Optional<CursorPage<BloodRequest>> page = bloodRequestService.listBloodRequests("PENDING", null, null,
+                null, null, null, cursor, PagedResponse.pageSize(limit));
+        if (page.isEmpty()) {
+            return PagedResponse.invalidCursor();
+        }
+        return PagedResponse.of(page.get());
     }
     
     /**
@@ -62,4 +72,32 @@ public class AdminBloodRequestController {
             .map(updatedRequest -> ResponseEntity.ok(updatedRequest))
             .orElse(ResponseEntity.notFound().build());
     }
-}
\ No newline at end of file
+    
+    /**
+     * Get matching queue depth and time-to-fulfilment figures (admin only)
+     */
+    @GetMapping("/matching/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getMatchingStats() {
+        return ResponseEntity.ok(matchingEngine.getStats());
+    }
+    
+    /**
+     * Match pending requests against current stock now (admin only)
+     */
+    @PostMapping("/matching/run")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, String>> runMatching() {
+        matchingEngine.requestPass();
+        return ResponseEntity.accepted().body(Map.of("message", "Matching pass started"));
+    }
+    
+    /**
+     * Get the number of watched deadlines and escalation counters (admin only)
+     */
+    @GetMapping("/deadlines/stats")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDeadlineStats() {
+        return ResponseEntity.ok(deadlineMonitor.getStats());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.demo.controller.admin;
+
+import com.example.demo.filter.RequestAdmissionFilter;
+import com.example.demo.service.AppointmentSlotService;
+import com.example.demo.service.EmergencyFanoutEngine;
+import com.example.demo.service.ReferenceDataCache;
+import com.example.demo.service.SearchIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller for admin-only runtime diagnostics
+ */
+@RestController
+@RequestMapping("/api/admin/system")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminSystemController {
+
+    private final RequestAdmissionFilter admissionFilter;
+    private final EmergencyFanoutEngine fanoutEngine;
+    private final SearchIndexService searchIndexService;
+    private final AppointmentSlotService slotService;
+    private final ReferenceDataCache referenceDataCache;
+    
+    @Autowired
+    public AdminSystemController(RequestAdmissionFilter admissionFilter, EmergencyFanoutEngine fanoutEngine,
+                                 SearchIndexService searchIndexService, AppointmentSlotService slotService,
+                                 ReferenceDataCache referenceDataCache) {
+        this.admissionFilter = admissionFilter;
+        this.fanoutEngine = fanoutEngine;
+        this.searchIndexService = searchIndexService;
+        this.slotService = slotService;
+        this.referenceDataCache = referenceDataCache;
+    }
+    
+    /**
+     * Get request admission counters and connection pool pressure
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(admissionFilter.getStats());
+    }
+    
+    /**
+     * Get emergency donor alert throughput and mail delivery counters
+     */
+    @GetMapping("/fanout")
+    public ResponseEntity<Map<String, Object>> getFanoutStats() {
+        return ResponseEntity.ok(fanoutEngine.getStats());
+    }
+    
+    /**
+     * Get the number of records in each search index
+     */
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> getSearchIndexStats() {
+        return ResponseEntity.ok(searchIndexService.getStats());
+    }
+    
+    /**
+     * Get appointment slot booking and rejection counters
+     */
+    @GetMapping("/slots")
+    public ResponseEntity<Map<String, Object>> getSlotStats() {
+        return ResponseEntity.ok(slotService.getStats());
+    }
+    
+    /**
+     * Get hit rates of the hospital and user reference data cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(referenceDataCache.getStats());
+    }
+}
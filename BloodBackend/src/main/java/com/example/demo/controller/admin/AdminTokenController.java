@@ -0,0 +1,58 @@
+package com.example.demo.controller.admin;
+
+import com.example.demo.security.TokenRevocationStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller for admin-only token revocation
+ */
+@RestController
+@RequestMapping("/api/admin/tokens")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class AdminTokenController {
+
+    private final TokenRevocationStore revocationStore;
+    
+    @Value("${jwt.expirationMs:86400000}")
+    private long jwtExpirationMs;
+    
+    @Autowired
+    public AdminTokenController(TokenRevocationStore revocationStore) {
+        this.revocationStore = revocationStore;
+    }
+    
+    /**
+     * Revoke a single token by its ID (the jti claim)
+     */
+    @PostMapping("/{tokenId}/revoke")
+    public ResponseEntity<?> revokeToken(@PathVariable String tokenId,
+                                         @RequestParam(required = false) String username) {
+        // The token itself is not available, so assume it may live for a full token lifetime
+        revocationStore.revokeTokenId(tokenId, username, System.currentTimeMillis() + jwtExpirationMs);
+        return ResponseEntity.ok(Map.of("message", "Token revoked", "tokenId", tokenId));
+    }
+    
+    /**
+     * Revoke every token issued to a user so far
+     */
+    @PostMapping("/users/{username}/revoke")
+    public ResponseEntity<?> revokeUserTokens(@PathVariable String username) {
+        revocationStore.revokeAllForUser(username);
+        return ResponseEntity.ok(Map.of("message", "All tokens revoked for user", "username", username));
+    }
+    
+    /**
+     * Get the size of the revocation list
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(revocationStore.getStats());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only projection of an appointment and its donor's contact details, with just the
+ * fields a reminder mail needs
+ */
+public class AppointmentReminder {
+
+    private final Long id;
+    private final LocalDateTime appointmentDate;
+    private final String location;
+    private final String confirmationCode;
+    private final String donorName;
+    private final String donorEmail;
+
+    public AppointmentReminder(Long id, LocalDateTime appointmentDate, String location, String confirmationCode,
+                               String donorName, String donorEmail) {
+        this.id = id;
+        this.appointmentDate = appointmentDate;
+        this.location = location;
+        this.confirmationCode = confirmationCode;
+        this.donorName = donorName;
+        this.donorEmail = donorEmail;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getAppointmentDate() {
+        return appointmentDate;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getConfirmationCode() {
+        return confirmationCode;
+    }
+
+    public String getDonorName() {
+        return donorName;
+    }
+
+    public String getDonorEmail() {
+        return donorEmail;
+    }
+}
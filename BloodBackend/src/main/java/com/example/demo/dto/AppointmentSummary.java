@@ -0,0 +1,75 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.DonationAppointment;
+import com.example.demo.model.Donor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a donation appointment and its donor for list endpoints
+ */
+public class AppointmentSummary {
+
+    private final Long id;
+    private final LocalDateTime appointmentDate;
+    private final String status;
+    private final String location;
+    private final String notes;
+    private final String confirmationCode;
+    private final DonorRef donor;
+
+    // Flat arguments so JPQL constructor expressions can select it directly
+    public AppointmentSummary(Long id, LocalDateTime appointmentDate, String status, String location, String notes,
+                              String confirmationCode, Long donorId, String donorName, String donorEmail,
+                              String donorPhone, String donorBloodGroup) {
+        this.id = id;
+        this.appointmentDate = appointmentDate;
+        this.status = status;
+        this.location = location;
+        this.notes = notes;
+        this.confirmationCode = confirmationCode;
+        this.donor = new DonorRef(donorId, donorName, donorEmail, donorPhone, donorBloodGroup);
+    }
+
+    /**
+     * Build the view of an appointment loaded with its donor
+     *
+     * @param appointment The appointment
+     * @return The view
+     */
+    public static AppointmentSummary from(DonationAppointment appointment) {
+        Donor donor = appointment.getDonor();
+        return new AppointmentSummary(appointment.getId(), appointment.getAppointmentDate(), appointment.getStatus(),
+                appointment.getLocation(), appointment.getNotes(), appointment.getConfirmationCode(), donor.getId(),
+                donor.getName(), donor.getEmail(), donor.getPhone(), donor.getBloodGroup());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getAppointmentDate() {
+        return appointmentDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public String getConfirmationCode() {
+        return confirmationCode;
+    }
+
+    public DonorRef getDonor() {
+        return donor;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * An appointment slot at a donation location with its capacity and current bookings
+ */
+public class AvailableSlot {
+
+    private final String location;
+    private final LocalDateTime slotStart;
+    private final LocalDateTime slotEnd;
+    private final int capacity;
+    private final int booked;
+
+    public AvailableSlot(String location, LocalDateTime slotStart, LocalDateTime slotEnd, int capacity, int booked) {
+        this.location = location;
+        this.slotStart = slotStart;
+        this.slotEnd = slotEnd;
+        this.capacity = capacity;
+        this.booked = booked;
+    }
+
+    // Getters
+    public String getLocation() {
+        return location;
+    }
+
+    public LocalDateTime getSlotStart() {
+        return slotStart;
+    }
+
+    public LocalDateTime getSlotEnd() {
+        return slotEnd;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public int getAvailable() {
+        return Math.max(0, capacity - booked);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * The number of appointments on one calendar day, in total and per location
+ */
+public class CalendarDay {
+
+    private final LocalDate date;
+    private final int total;
+    private final Map<String, Integer> byLocation;
+
+    public CalendarDay(LocalDate date, int total, Map<String, Integer> byLocation) {
+        this.date = date;
+        this.total = total;
+        this.byLocation = byLocation;
+    }
+
+    // Getters
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public Map<String, Integer> getByLocation() {
+        return byLocation;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.BloodDonation;
+import com.example.demo.model.Donor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a blood donation and its donor for list endpoints
+ */
+public class DonationSummary {
+
+    private final Long id;
+    private final String bloodGroup;
+    private final Integer quantityMl;
+    private final LocalDateTime donationDate;
+    private final String healthStatus;
+    private final String donationStatus;
+    private final String notes;
+    private final LocalDateTime createdAt;
+    private final DonorRef donor;
+
+    // Flat arguments so JPQL constructor expressions can select it directly
+    public DonationSummary(Long id, String bloodGroup, Integer quantityMl, LocalDateTime donationDate,
+                           String healthStatus, String donationStatus, String notes, LocalDateTime createdAt,
+                           Long donorId, String donorName, String donorEmail, String donorPhone, String donorBloodGroup) {
+        this.id = id;
+        this.bloodGroup = bloodGroup;
+        this.quantityMl = quantityMl;
+        this.donationDate = donationDate;
+        this.healthStatus = healthStatus;
+        this.donationStatus = donationStatus;
+        this.notes = notes;
+        this.createdAt = createdAt;
+        this.donor = new DonorRef(donorId, donorName, donorEmail, donorPhone, donorBloodGroup);
+    }
+
+    /**
+     * Build the view of a donation loaded with its donor
+     *
+     * @param donation The donation
+     * @return The view
+     */
+    public static DonationSummary from(BloodDonation donation) {
+        Donor donor = donation.getDonor();
+        return new DonationSummary(donation.getId(), donation.getBloodGroup(), donation.getQuantityMl(),
+                donation.getDonationDate(), donation.getHealthStatus(), donation.getDonationStatus(), donation.getNotes(),
+                donation.getCreatedAt(), donor.getId(), donor.getName(), donor.getEmail(), donor.getPhone(),
+                donor.getBloodGroup());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+
+    public Integer getQuantityMl() {
+        return quantityMl;
+    }
+
+    public LocalDateTime getDonationDate() {
+        return donationDate;
+    }
+
+    public String getHealthStatus() {
+        return healthStatus;
+    }
+
+    public String getDonationStatus() {
+        return donationStatus;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public DonorRef getDonor() {
+        return donor;
+    }
+}
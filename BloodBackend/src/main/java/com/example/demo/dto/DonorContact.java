@@ -0,0 +1,37 @@
+package com.example.demo.dto;
+
+/**
+ * Read-only projection of the donor fields needed to contact a donor, so bulk queries
+ * do not load whole entities (and their hospitals)
+ */
+public class DonorContact {
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final String bloodGroup;
+
+    public DonorContact(Long id, String name, String email, String bloodGroup) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.bloodGroup = bloodGroup;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+}
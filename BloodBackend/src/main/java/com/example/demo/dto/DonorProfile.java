@@ -0,0 +1,119 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * Everything the donor dashboard shows on start: the donor, their donation totals, their
+ * latest donation and their next appointment. When the client already has the current
+ * version, only the ETag is filled in; see {@link #notModified(String)}.
+ */
+public class DonorProfile {
+
+    private final DonorSummary donor;
+    private final long donationCount;
+    private final long totalQuantityMl;
+    private final Long latestDonationId;
+    private final LocalDateTime latestDonationDate;
+    private final Integer latestDonationQuantityMl;
+    private final String latestDonationStatus;
+    private final long upcomingAppointments;
+    private final LocalDateTime nextAppointmentAt;
+    private final String etag;
+    private final boolean notModified;
+
+    public DonorProfile(DonorSummary donor, long donationCount, long totalQuantityMl, Long latestDonationId,
+                        LocalDateTime latestDonationDate, Integer latestDonationQuantityMl, String latestDonationStatus,
+                        long upcomingAppointments, LocalDateTime nextAppointmentAt, String etag) {
+        this.donor = donor;
+        this.donationCount = donationCount;
+        this.totalQuantityMl = totalQuantityMl;
+        this.latestDonationId = latestDonationId;
+        this.latestDonationDate = latestDonationDate;
+        this.latestDonationQuantityMl = latestDonationQuantityMl;
+        this.latestDonationStatus = latestDonationStatus;
+        this.upcomingAppointments = upcomingAppointments;
+        this.nextAppointmentAt = nextAppointmentAt;
+        this.etag = etag;
+        this.notModified = false;
+    }
+
+    private DonorProfile(String etag) {
+        this.donor = null;
+        this.donationCount = 0;
+        this.totalQuantityMl = 0;
+        this.latestDonationId = null;
+        this.latestDonationDate = null;
+        this.latestDonationQuantityMl = null;
+        this.latestDonationStatus = null;
+        this.upcomingAppointments = 0;
+        this.nextAppointmentAt = null;
+        this.etag = etag;
+        this.notModified = true;
+    }
+
+    /**
+     * Create the result for a client whose copy is still current, so the rest of the
+     * profile is never loaded
+     *
+     * @param etag The ETag of the current version
+     * @return A profile holding only the ETag
+     */
+    public static DonorProfile notModified(String etag) {
+        return new DonorProfile(etag);
+    }
+
+    // Getters
+    public DonorSummary getDonor() {
+        return donor;
+    }
+
+    public long getDonationCount() {
+        return donationCount;
+    }
+
+    public long getTotalQuantityMl() {
+        return totalQuantityMl;
+    }
+
+    public Long getLatestDonationId() {
+        return latestDonationId;
+    }
+
+    public LocalDateTime getLatestDonationDate() {
+        return latestDonationDate;
+    }
+
+    public Integer getLatestDonationQuantityMl() {
+        return latestDonationQuantityMl;
+    }
+
+    public String getLatestDonationStatus() {
+        return latestDonationStatus;
+    }
+
+    public long getUpcomingAppointments() {
+        return upcomingAppointments;
+    }
+
+    public LocalDateTime getNextAppointmentAt() {
+        return nextAppointmentAt;
+    }
+
+    /**
+     * @return The ETag identifying this version of the profile, sent as a header
+     */
+    @JsonIgnore
+    public String getETag() {
+        return etag;
+    }
+
+    /**
+     * @return True if the client's copy is current and only the ETag is set
+     */
+    @JsonIgnore
+    public boolean isNotModified() {
+        return notModified;
+    }
+}
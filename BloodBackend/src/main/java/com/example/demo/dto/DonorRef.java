@@ -0,0 +1,42 @@
+package com.example.demo.dto;
+
+/**
+ * The donor fields shown alongside a donation or appointment
+ */
+public class DonorRef {
+
+    private final Long id;
+    private final String name;
+    private final String email;
+    private final String phone;
+    private final String bloodGroup;
+
+    public DonorRef(Long id, String name, String email, String phone, String bloodGroup) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.phone = phone;
+        this.bloodGroup = bloodGroup;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Donor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only view of a donor for list endpoints: no password and no hospital entity, only
+ * its ID. Selected directly by JPQL constructor queries where possible.
+ */
+public class DonorSummary {
+
+    private final Long id;
+    private final String name;
+    private final String username;
+    private final String email;
+    private final String phone;
+    private final String bloodGroup;
+    private final String location;
+    private final boolean available;
+    private final LocalDateTime lastDonation;
+    private final LocalDateTime nextEligibleAt;
+    private final Long hospitalId;
+
+    public DonorSummary(Long id, String name, String username, String email, String phone, String bloodGroup,
+                        String location, boolean available, LocalDateTime lastDonation, LocalDateTime nextEligibleAt,
+                        Long hospitalId) {
+        this.id = id;
+        this.name = name;
+        this.username = username;
+        this.email = email;
+        this.phone = phone;
+        this.bloodGroup = bloodGroup;
+        this.location = location;
+        this.available = available;
+        this.lastDonation = lastDonation;
+        this.nextEligibleAt = nextEligibleAt;
+        this.hospitalId = hospitalId;
+    }
+
+    /**
+     * Build the view of a loaded donor without initializing its hospital
+     *
+     * @param donor The donor
+     * @return The view
+     */
+    public static DonorSummary from(Donor donor) {
+        return new DonorSummary(donor.getId(), donor.getName(), donor.getUsername(), donor.getEmail(), donor.getPhone(),
+                donor.getBloodGroup(), donor.getLocation(), donor.isAvailable(), donor.getLastDonation(),
+                donor.getNextEligibleAt(), donor.getHospitalId());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public LocalDateTime getLastDonation() {
+        return lastDonation;
+    }
+
+    public LocalDateTime getNextEligibleAt() {
+        return nextEligibleAt;
+    }
+
+    public Long getHospitalId() {
+        return hospitalId;
+    }
+}
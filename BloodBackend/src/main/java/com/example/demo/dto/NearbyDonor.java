@@ -0,0 +1,55 @@
+package com.example.demo.dto;
+
+/**
+ * A donor returned by a nearest-donor search, with their distance from the search point
+ */
+public class NearbyDonor {
+
+    private final Long id;
+    private final String name;
+    private final String bloodGroup;
+    private final String phone;
+    private final String email;
+    private final String location;
+    private final double distanceKm;
+
+    public NearbyDonor(Long id, String name, String bloodGroup, String phone, String email,
+                       String location, double distanceKm) {
+        this.id = id;
+        this.name = name;
+        this.bloodGroup = bloodGroup;
+        this.phone = phone;
+        this.email = email;
+        this.location = location;
+        this.distanceKm = distanceKm;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public double getDistanceKm() {
+        return distanceKm;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.dto;
+
+/**
+ * The state of a blood request right after units were added to it
+ */
+public class UnitsContribution {
+
+    private final Long requestId;
+    private final int unitsAdded;
+    private final int unitsProvided;
+    private final int unitsNeeded;
+
+    public UnitsContribution(Long requestId, int unitsAdded, int unitsProvided, int unitsNeeded) {
+        this.requestId = requestId;
+        this.unitsAdded = unitsAdded;
+        this.unitsProvided = unitsProvided;
+        this.unitsNeeded = unitsNeeded;
+    }
+
+    // Getters
+    public Long getRequestId() {
+        return requestId;
+    }
+
+    public int getUnitsAdded() {
+        return unitsAdded;
+    }
+
+    public int getUnitsProvided() {
+        return unitsProvided;
+    }
+
+    public int getUnitsNeeded() {
+        return unitsNeeded;
+    }
+
+    public int getUnitsOutstanding() {
+        return Math.max(0, unitsNeeded - unitsProvided);
+    }
+
+    /**
+     * @return The status the request was moved to, FULFILLED or PARTIAL
+     */
+    public String getRequestStatus() {
+        return unitsProvided >= unitsNeeded ? "FULFILLED" : "PARTIAL";
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.dto;
+
+/**
+ * The stored user fields that tokens depend on, read straight from the database
+ */
+public class UserCredentials {
+
+    private final Long id;
+    private final String email;
+    private final String role;
+    private final String password;
+
+    public UserCredentials(Long id, String email, String role, String password) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.password = password;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.filter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes one compact access-log line per request without blocking the request thread.
+ *
+ * The request thread only builds a small record and offers it to a lock-free ring
+ * buffer; a single background thread drains the buffer and writes to the "access"
+ * logger. If the buffer is full the record is dropped and counted rather than waiting.
+ * Successful requests can be sampled with {@code accesslog.sampleRate}; requests that
+ * end with a 4xx or 5xx status are always recorded. Other filters add detail through
+ * the request attributes declared here.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    /** Request attribute holding the outcome of token authentication, e.g. "ok" or "no-token" */
+    public static final String AUTH_OUTCOME_ATTRIBUTE = AccessLogFilter.class.getName() + ".auth";
+
+    /** Request attribute holding the authenticated username */
+    public static final String USER_ATTRIBUTE = AccessLogFilter.class.getName() + ".user";
+
+    private static final Logger accessLogger = LoggerFactory.getLogger("access");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long DROP_REPORT_INTERVAL_MS = 60_000;
+
+    @Value("${accesslog.enabled:true}")
+    private boolean enabled;
+
+    @Value("${accesslog.sampleRate:1.0}")
+    private double sampleRate;
+
+    @Value("${accesslog.bufferSize:8192}")
+    private int bufferSize;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private AccessLogRingBuffer<AccessLogRecord> buffer;
+    private Thread writer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        buffer = new AccessLogRingBuffer<>(bufferSize);
+        running = true;
+        writer = new Thread(this::drainLoop, "access-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(2));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!running) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        int status = 500;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            if (request.isAsyncStarted()) {
+                // The response is completed later on another thread; record it then
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(request, response.getStatus(), startNanos);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                record(request, status, startNanos);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long startNanos) {
+        if (status < 400 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        AccessLogRecord record = new AccessLogRecord(
+                System.currentTimeMillis(),
+                request.getMethod(),
+                request.getRequestURI(),
+                status,
+                (System.nanoTime() - startNanos) / 1000,
+                request.getRemoteAddr(),
+                (String) request.getAttribute(USER_ATTRIBUTE),
+                (String) request.getAttribute(AUTH_OUTCOME_ATTRIBUTE));
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the number of records dropped because the buffer was full
+     *
+     * @return The dropped record count since startup
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void drainLoop() {
+        long lastDropReport = System.currentTimeMillis();
+        long reportedDrops = 0;
+        StringBuilder line = new StringBuilder(192);
+
+        while (running) {
+            boolean wroteAny = drain(line);
+
+            long now = System.currentTimeMillis();
+            if (now - lastDropReport >= DROP_REPORT_INTERVAL_MS) {
+                long totalDrops = dropped.get();
+                if (totalDrops > reportedDrops) {
+                    accessLogger.warn("access log buffer full, dropped {} records", totalDrops - reportedDrops);
+                    reportedDrops = totalDrops;
+                }
+                lastDropReport = now;
+            }
+
+            if (!wroteAny) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        drain(line);
+    }
+
+    private boolean drain(StringBuilder line) {
+        boolean wroteAny = false;
+        AccessLogRecord record;
+        while ((record = buffer.poll()) != null) {
+            wroteAny = true;
+            if (!accessLogger.isInfoEnabled()) {
+                continue;
+            }
+            line.setLength(0);
+            line.append("ts=").append(Instant.ofEpochMilli(record.timestamp()))
+                .append(" method=").append(record.method())
+                .append(" path=").append(record.path())
+                .append(" status=").append(record.status())
+                .append(" durationUs=").append(record.durationMicros())
+                .append(" ip=").append(record.remoteAddr());
+            if (record.user() != null) {
+                line.append(" user=").append(record.user());
+            }
+            if (record.auth() != null) {
+                line.append(" auth=").append(record.auth());
+            }
+            accessLogger.info(line.toString());
+        }
+        return wroteAny;
+    }
+
+    private record AccessLogRecord(long timestamp, String method, String path, int status,
+                                   long durationMicros, String remoteAddr, String user, String auth) {
+    }
+}
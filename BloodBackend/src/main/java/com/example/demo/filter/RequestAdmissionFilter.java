@@ -0,0 +1,225 @@
+package com.example.demo.filter;
+
+import com.example.demo.config.ConnectionPoolMonitor;
+import com.example.demo.security.RouteAccessTable;
+import com.example.demo.util.TokenBucket;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of every API request.
+ *
+ * Requests are put in one of three classes. CRITICAL covers writes to emergency
+ * notifications and blood requests and inventory allocation/transfer; BULK covers
+ * reporting and data export; everything else is NORMAL. Three checks run before the
+ * request reaches the security chain or a database connection:
+ * <ul>
+ *   <li>a per-client token bucket, answered with 429; CRITICAL requests draw on a separate,
+ *       larger bucket ({@code admission.criticalBurst}, {@code admission.criticalRatePerSecond}),
+ *       so ordinary traffic cannot starve them but no client can take every slot with them;</li>
+ *   <li>concurrency limits, where part of the total is reserved for CRITICAL requests and
+ *       BULK requests have their own smaller cap, answered with 503;</li>
+ *   <li>connection-pool pressure from {@link ConnectionPoolMonitor}: BULK requests are shed
+ *       as soon as requests queue for a connection or the average wait crosses
+ *       {@code admission.bulkShedWaitMs}, NORMAL requests once it crosses
+ *       {@code admission.normalShedWaitMs}; CRITICAL requests are never shed this way.</li>
+ * </ul>
+ * Rejections are immediate, so an overloaded service answers quickly instead of queueing.
+ * Paths are matched without the servlet context path, and clients are keyed by the
+ * address resolved by {@link com.example.demo.config.ForwardedHeadersConfig}, not the
+ * address of the proxy in front of the service.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestAdmissionFilter extends OncePerRequestFilter {
+
+    public enum Priority {
+        CRITICAL,
+        NORMAL,
+        BULK
+    }
+
+    private final ConnectionPoolMonitor poolMonitor;
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.clientBurst:40}")
+    private int clientBurst;
+
+    @Value("${admission.clientRatePerSecond:20}")
+    private double clientRatePerSecond;
+
+    @Value("${admission.criticalBurst:80}")
+    private int criticalBurst;
+
+    @Value("${admission.criticalRatePerSecond:40}")
+    private double criticalRatePerSecond;
+
+    @Value("${admission.maxConcurrent:64}")
+    private int maxConcurrent;
+
+    @Value("${admission.criticalReserved:16}")
+    private int criticalReserved;
+
+    @Value("${admission.bulkMaxConcurrent:4}")
+    private int bulkMaxConcurrent;
+
+    @Value("${admission.bulkShedWaitMs:100}")
+    private double bulkShedWaitMs;
+
+    @Value("${admission.normalShedWaitMs:1000}")
+    private double normalShedWaitMs;
+
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> criticalBuckets = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger bulkInFlight = new AtomicInteger();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    @Autowired
+    public RequestAdmissionFilter(ConnectionPoolMonitor poolMonitor) {
+        this.poolMonitor = poolMonitor;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || "OPTIONS".equals(request.getMethod()) || !RouteAccessTable.pathOf(request).startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = classify(request.getMethod(), RouteAccessTable.pathOf(request));
+
+        long now = System.nanoTime();
+        TokenBucket bucket = priority == Priority.CRITICAL
+                ? criticalBuckets.computeIfAbsent(request.getRemoteAddr(),
+                        k -> new TokenBucket(criticalBurst, criticalRatePerSecond, now))
+                : clientBuckets.computeIfAbsent(request.getRemoteAddr(),
+                        k -> new TokenBucket(clientBurst, clientRatePerSecond, now));
+        if (!bucket.tryConsume(now)) {
+            rateLimited.incrementAndGet();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests, please slow down");
+            return;
+        }
+        if (priority != Priority.CRITICAL && isPoolOverloaded(priority)) {
+            shed.incrementAndGet();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Service is busy, please retry shortly");
+            return;
+        }
+
+        if (!tryEnter(priority)) {
+            shed.incrementAndGet();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Service is busy, please retry shortly");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            exit(priority);
+        }
+    }
+
+    /**
+     * Classify a request by the kind of work it triggers
+     *
+     * @param method The HTTP method
+     * @param path The request path within the application, without the context path
+     * @return The request's priority class
+     */
+    public static Priority classify(String method, String path) {
+        boolean write = !"GET".equals(method) && !"HEAD".equals(method);
+        if (write && (path.startsWith("/api/emergency-notifications")
+                || path.startsWith("/api/blood-requests")
+                || path.startsWith("/api/blood-inventory/allocate")
+                || path.startsWith("/api/blood-inventory/transfer"))) {
+            return Priority.CRITICAL;
+        }
+        if (path.startsWith("/api/stats") || path.startsWith("/api/data")) {
+            return Priority.BULK;
+        }
+        return Priority.NORMAL;
+    }
+
+    /**
+     * Get admission counters for monitoring
+     *
+     * @return A map of counter name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("inFlight", inFlight.get());
+        stats.put("bulkInFlight", bulkInFlight.get());
+        stats.put("rateLimited", rateLimited.get());
+        stats.put("shed", shed.get());
+        stats.put("poolAverageWaitMs", poolMonitor.getAverageWaitMillis());
+        stats.put("poolPendingThreads", poolMonitor.getPendingThreads());
+        return stats;
+    }
+
+    /**
+     * Drop client buckets that have refilled completely, so idle clients do not accumulate
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleClients() {
+        long now = System.nanoTime();
+        clientBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        criticalBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private boolean isPoolOverloaded(Priority priority) {
+        double averageWaitMs = poolMonitor.getAverageWaitMillis();
+        if (priority == Priority.BULK) {
+            return averageWaitMs > bulkShedWaitMs || poolMonitor.getPendingThreads() > 0;
+        }
+        return averageWaitMs > normalShedWaitMs;
+    }
+
+    private boolean tryEnter(Priority priority) {
+        int limit = priority == Priority.CRITICAL ? maxConcurrent : maxConcurrent - criticalReserved;
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        if (priority == Priority.BULK && bulkInFlight.incrementAndGet() > bulkMaxConcurrent) {
+            bulkInFlight.decrementAndGet();
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    private void exit(Priority priority) {
+        if (priority == Priority.BULK) {
+            bulkInFlight.decrementAndGet();
+        }
+        inFlight.decrementAndGet();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType("application/json");
+        response.getWriter().write("{\"message\":\"" + message + "\"}");
+    }
+}
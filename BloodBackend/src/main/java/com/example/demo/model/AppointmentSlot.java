@@ -0,0 +1,108 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import java.time.LocalDateTime;
+
+/**
+ * Booking capacity of one donation location for one time slot. Rows are created the
+ * first time a slot is booked or given its own capacity; a slot without a row has the
+ * default capacity and no bookings.
+ */
+@Entity
+@Table(name = "appointment_slots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_appointment_slots_location_start", columnNames = {"location_key", "slot_start"})
+}, indexes = {
+        @Index(name = "idx_appointment_slots_start", columnList = "slot_start")
+})
+public class AppointmentSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Normalised location text, so "City Hospital" and "city hospital." share slots
+    @Column(name = "location_key", nullable = false, length = 191)
+    private String locationKey;
+
+    @Column(name = "location")
+    private String location;
+
+    @Column(name = "slot_start", nullable = false)
+    private LocalDateTime slotStart;
+
+    @Column(name = "capacity", nullable = false)
+    private int capacity;
+
+    @Column(name = "booked", nullable = false)
+    private int booked;
+
+    // Default constructor
+    public AppointmentSlot() {
+    }
+
+    // Constructor with parameters
+    public AppointmentSlot(String locationKey, String location, LocalDateTime slotStart, int capacity, int booked) {
+        this.locationKey = locationKey;
+        this.location = location;
+        this.slotStart = slotStart;
+        this.capacity = capacity;
+        this.booked = booked;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getLocationKey() {
+        return locationKey;
+    }
+
+    public void setLocationKey(String locationKey) {
+        this.locationKey = locationKey;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public LocalDateTime getSlotStart() {
+        return slotStart;
+    }
+
+    public void setSlotStart(LocalDateTime slotStart) {
+        this.slotStart = slotStart;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getBooked() {
+        return booked;
+    }
+
+    public void setBooked(int booked) {
+        this.booked = booked;
+    }
+}
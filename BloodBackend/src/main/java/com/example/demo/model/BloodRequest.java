@@ -1,11 +1,13 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -13,7 +15,9 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "blood_requests")
+@Table(name = "blood_requests", indexes = {
+        @Index(name = "idx_blood_requests_updated_at", columnList = "updated_at")
+})
 public class BloodRequest {
 
     @Id
@@ -53,8 +57,13 @@ public class BloodRequest {
     @Column(name = "required_by")
     private LocalDateTime requiredBy;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    // Deadline escalations applied so far; only written by BloodRequestDeadlineMonitor
+    @Column(name = "escalation_level", updatable = false)
+    private Integer escalationLevel = 0;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hospital_id")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private Hospital hospital;
 
     @Column(name = "created_at")
@@ -182,10 +191,26 @@ public class BloodRequest {
         this.requiredBy = requiredBy;
     }
 
+    public Integer getEscalationLevel() {
+        return escalationLevel;
+    }
+
+    public void setEscalationLevel(Integer escalationLevel) {
+        this.escalationLevel = escalationLevel;
+    }
+
     public Hospital getHospital() {
         return hospital;
     }
 
+    /**
+     * @return The hospital's ID, read from the lazy reference without loading the hospital
+     */
+    @JsonProperty("hospitalId")
+    public Long getHospitalId() {
+        return hospital != null ? hospital.getId() : null;
+    }
+
     public void setHospital(Hospital hospital) {
         this.hospital = hospital;
     }
@@ -2,9 +2,11 @@ package com.example.demo.model;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -12,14 +14,19 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "donation_appointments")
+@Table(name = "donation_appointments", indexes = {
+        @Index(name = "idx_appointments_date", columnList = "appointment_date"),
+        @Index(name = "idx_appointments_reminders", columnList = "status, reminder_sent, appointment_date"),
+        @Index(name = "idx_appointments_donor_status_date", columnList = "donor_id, status, appointment_date"),
+        @Index(name = "idx_appointments_updated_at", columnList = "updated_at")
+})
 public class DonationAppointment {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "donor_id", nullable = false)
     private Donor donor;
 
@@ -41,6 +48,10 @@ public class DonationAppointment {
     @Column(name = "reminder_sent")
     private boolean reminderSent = false;
 
+    // Identifies the reminder run that flagged reminder_sent, so it can tell which rows it won
+    @Column(name = "reminder_claim", length = 36)
+    private String reminderClaim;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -127,6 +138,14 @@ public class DonationAppointment {
         this.reminderSent = reminderSent;
     }
 
+    public String getReminderClaim() {
+        return reminderClaim;
+    }
+
+    public void setReminderClaim(String reminderClaim) {
+        this.reminderClaim = reminderClaim;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
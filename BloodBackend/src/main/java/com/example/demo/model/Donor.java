@@ -1,11 +1,14 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -13,7 +16,13 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "donors")
+@Table(name = "donors", indexes = {
+        @Index(name = "idx_donors_eligibility", columnList = "blood_group, is_available, next_eligible_at"),
+        @Index(name = "idx_donors_hospital_eligibility", columnList = "hospital_id, blood_group, is_available, next_eligible_at"),
+        @Index(name = "idx_donors_next_eligible", columnList = "next_eligible_at"),
+        @Index(name = "idx_donors_updated_at", columnList = "updated_at")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Donor {
 
     @Id
@@ -36,6 +45,7 @@ public class Donor {
     private String username;
 
     @Column(nullable = false)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     @Column(nullable = false, unique = true)
@@ -44,11 +54,22 @@ public class Donor {
     @Column(name = "last_donation")
     private LocalDateTime lastDonation;
 
+    // lastDonation plus the deferral interval; set by DonorService on every save
+    @Column(name = "next_eligible_at")
+    private LocalDateTime nextEligibleAt;
+
     @Column(name = "is_available")
     private boolean isAvailable = true;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @Column
+    private Double latitude;
+
+    @Column
+    private Double longitude;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hospital_id")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private Hospital hospital;
 
     @Column(name = "created_at")
@@ -136,6 +157,14 @@ public class Donor {
         this.lastDonation = lastDonation;
     }
 
+    public LocalDateTime getNextEligibleAt() {
+        return nextEligibleAt;
+    }
+
+    public void setNextEligibleAt(LocalDateTime nextEligibleAt) {
+        this.nextEligibleAt = nextEligibleAt;
+    }
+
     public boolean isAvailable() {
         return isAvailable;
     }
@@ -144,6 +173,22 @@ public class Donor {
         isAvailable = available;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -164,6 +209,14 @@ public class Donor {
         return hospital;
     }
 
+    /**
+     * @return The hospital's ID, read from the lazy reference without loading the hospital
+     */
+    @JsonProperty("hospitalId")
+    public Long getHospitalId() {
+        return hospital != null ? hospital.getId() : null;
+    }
+
     public void setHospital(Hospital hospital) {
         this.hospital = hospital;
     }
@@ -1,10 +1,13 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -12,7 +15,9 @@ import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "emergency_notifications")
+@Table(name = "emergency_notifications", indexes = {
+        @Index(name = "idx_emergency_notifications_updated_at", columnList = "updated_at")
+})
 public class EmergencyNotification {
 
     @Id
@@ -37,8 +42,9 @@ public class EmergencyNotification {
     @Column
     private String location;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hospital_id")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private Hospital hospital;
 
     @Column(name = "contact_phone")
@@ -140,6 +146,14 @@ public class EmergencyNotification {
         return hospital;
     }
 
+    /**
+     * @return The hospital's ID, read from the lazy reference without loading the hospital
+     */
+    @JsonProperty("hospitalId")
+    public Long getHospitalId() {
+        return hospital != null ? hospital.getId() : null;
+    }
+
     public void setHospital(Hospital hospital) {
         this.hospital = hospital;
     }
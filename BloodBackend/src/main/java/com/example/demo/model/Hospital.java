@@ -1,10 +1,13 @@
 package com.example.demo.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 
@@ -13,7 +16,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "hospitals")
+@Table(name = "hospitals", indexes = {
+        @Index(name = "idx_hospitals_name", columnList = "name, id"),
+        @Index(name = "idx_hospitals_updated_at", columnList = "updated_at")
+})
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Hospital {
 
     @Id
@@ -41,7 +48,14 @@ public class Hospital {
     @Column
     private String status; // ACTIVE, INACTIVE, PENDING
 
+    @Column
+    private Double latitude;
+
+    @Column
+    private Double longitude;
+
     @OneToMany(mappedBy = "hospital")
+    @JsonIgnore
     private List<BloodRequest> bloodRequests = new ArrayList<>();
 
     @Column(name = "created_at")
@@ -141,6 +155,22 @@ public class Hospital {
         this.bloodRequests = bloodRequests;
     }
 
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
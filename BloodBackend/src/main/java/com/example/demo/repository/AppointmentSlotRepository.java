@@ -0,0 +1,89 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.AppointmentSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AppointmentSlotRepository extends JpaRepository<AppointmentSlot, Long> {
+
+    /**
+     * Find the slot of a location starting at a given time
+     *
+     * @param locationKey The normalised location
+     * @param slotStart The start of the slot
+     * @return The slot, if it has a row
+     */
+    Optional<AppointmentSlot> findByLocationKeyAndSlotStart(String locationKey, LocalDateTime slotStart);
+
+    /**
+     * Find every slot starting at or after a given time
+     *
+     * @param from The earliest slot start
+     * @return The slots
+     */
+    List<AppointmentSlot> findBySlotStartGreaterThanEqual(LocalDateTime from);
+
+    /**
+     * Read the current booking count of a slot
+     *
+     * @param id The ID of the slot
+     * @return The number of bookings
+     */
+    @Query("SELECT s.booked FROM AppointmentSlot s WHERE s.id = :id")
+    Optional<Integer> findBookedById(@Param("id") Long id);
+
+    /**
+     * Take one place in a slot if it is not full; the check and the increment are a
+     * single statement, so concurrent bookings cannot overfill the slot
+     *
+     * @param id The ID of the slot
+     * @return 1 if a place was taken, 0 if the slot is full
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked + 1 WHERE s.id = :id AND s.booked < s.capacity")
+    int bookIfAvailable(@Param("id") Long id);
+
+    /**
+     * Take one place in a slot regardless of its capacity
+     *
+     * @param id The ID of the slot
+     * @return The number of slots updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked + 1 WHERE s.id = :id")
+    int book(@Param("id") Long id);
+
+    /**
+     * Give back one place in a slot
+     *
+     * @param id The ID of the slot
+     * @return The number of slots updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.booked = s.booked - 1 WHERE s.id = :id AND s.booked > 0")
+    int release(@Param("id") Long id);
+
+    /**
+     * Change the capacity of a slot
+     *
+     * @param id The ID of the slot
+     * @param capacity The new capacity
+     * @return The number of slots updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AppointmentSlot s SET s.capacity = :capacity WHERE s.id = :id")
+    int updateCapacity(@Param("id") Long id, @Param("capacity") int capacity);
+}
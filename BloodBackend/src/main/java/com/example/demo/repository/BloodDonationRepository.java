@@ -1,24 +1,40 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.DonationSummary;
 import com.example.demo.model.BloodDonation;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BloodDonationRepository extends JpaRepository<BloodDonation, Long> {
+public interface BloodDonationRepository extends JpaRepository<BloodDonation, Long>, JpaSpecificationExecutor<BloodDonation> {
+    
+    /**
+     * Find a blood donation by ID, with its donor
+     * 
+     * @param id The donation ID
+     * @return An Optional containing the donation if found
+     */
+    @Override
+    @EntityGraph(attributePaths = "donor")
+    Optional<BloodDonation> findById(Long id);
     
     /**
      * Find blood donations by donor ID
      * 
      * @param donorId The donor ID to search for
-     * @return A list of blood donations from the given donor
+     * @return Summaries of the blood donations from the given donor
      */
-    @Query("SELECT bd FROM BloodDonation bd WHERE bd.donor.id = ?1")
-    List<BloodDonation> findByDonorId(Long donorId);
+    @Query("SELECT new com.example.demo.dto.DonationSummary(bd.id, bd.bloodGroup, bd.quantityMl, bd.donationDate, " +
+           "bd.healthStatus, bd.donationStatus, bd.notes, bd.createdAt, d.id, d.name, d.email, d.phone, d.bloodGroup) " +
+           "FROM BloodDonation bd JOIN bd.donor d WHERE d.id = ?1")
+    List<DonationSummary> findSummariesByDonorId(Long donorId);
     
     /**
      * Find blood donations by blood group
@@ -26,6 +42,7 @@ public interface BloodDonationRepository extends JpaRepository<BloodDonation, Lo
      * @param bloodGroup The blood group to search for
      * @return A list of blood donations of the given blood group
      */
+    @EntityGraph(attributePaths = "donor")
     List<BloodDonation> findByBloodGroup(String bloodGroup);
     
     /**
@@ -35,6 +52,7 @@ public interface BloodDonationRepository extends JpaRepository<BloodDonation, Lo
      * @param endDate The end date of the range
      * @return A list of blood donations within the given date range
      */
+    @EntityGraph(attributePaths = "donor")
     List<BloodDonation> findByDonationDateBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     /**
@@ -43,6 +61,7 @@ public interface BloodDonationRepository extends JpaRepository<BloodDonation, Lo
      * @param healthStatus The health status to search for
      * @return A list of blood donations with the given health status
      */
+    @EntityGraph(attributePaths = "donor")
     List<BloodDonation> findByHealthStatus(String healthStatus);
     
     /**
@@ -55,11 +74,11 @@ public interface BloodDonationRepository extends JpaRepository<BloodDonation, Lo
     Long countByDonorId(Long donorId);
     
     /**
-     * Get the latest donation for a donor
+     * Get the latest donation for a donor, reading a single row (LIMIT 1)
      * 
      * @param donorId The donor ID to search for
-     * @return The most recent blood donation for the donor
+     * @return The most recent blood donation for the donor, if any
      */
-    @Query("SELECT bd FROM BloodDonation bd WHERE bd.donor.id = ?1 ORDER BY bd.donationDate DESC")
-    List<BloodDonation> findLatestDonationByDonorId(Long donorId);
+    @EntityGraph(attributePaths = "donor")
+    Optional<BloodDonation> findFirstByDonorIdOrderByDonationDateDescIdDesc(Long donorId);
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
 import com.example.demo.model.BloodInventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -9,7 +12,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface BloodInventoryRepository extends JpaRepository<BloodInventory, Long> {
+public interface BloodInventoryRepository extends JpaRepository<BloodInventory, Long>, JpaSpecificationExecutor<BloodInventory> {
     
     /**
      * Find blood inventory items by blood group
@@ -36,6 +39,18 @@ public interface BloodInventoryRepository extends JpaRepository<BloodInventory,
      */
     List<BloodInventory> findByBloodGroupAndStatus(String bloodGroup, String status);
     
+    /**
+     * Find and lock the blood inventory items of a blood group with a given status until
+     * the transaction ends, so concurrent allocations cannot take the same units
+     * 
+     * @param bloodGroup The blood group to search for
+     * @param status The status to search for
+     * @return The locked items, in ID order so concurrent callers lock them in the same order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BloodInventory b WHERE b.bloodGroup = ?1 AND b.status = ?2 ORDER BY b.id")
+    List<BloodInventory> lockByBloodGroupAndStatus(String bloodGroup, String status);
+    
     /**
      * Find blood inventory items that are expiring soon
      * 
@@ -54,6 +69,15 @@ public interface BloodInventoryRepository extends JpaRepository<BloodInventory,
     @Query("SELECT SUM(b.units) FROM BloodInventory b WHERE b.bloodGroup = ?1 AND b.status = ?2")
     Integer getTotalUnitsByBloodGroupAndStatus(String bloodGroup, String status);
     
+    /**
+     * Get the total units of every blood group with a given status in one query
+     * 
+     * @param status The status to filter by (typically "AVAILABLE")
+     * @return Rows of [bloodGroup, total units]
+     */
+    @Query("SELECT b.bloodGroup, SUM(b.units) FROM BloodInventory b WHERE b.status = ?1 GROUP BY b.bloodGroup")
+    List<Object[]> getTotalUnitsGroupedByBloodGroup(String status);
+    
     /**
      * Find the latest blood inventory item for a specific blood group
      * 
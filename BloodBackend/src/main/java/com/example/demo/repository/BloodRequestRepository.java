@@ -1,13 +1,25 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.UnitsContribution;
 import com.example.demo.model.BloodRequest;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BloodRequestRepository extends JpaRepository<BloodRequest, Long> {
+public interface BloodRequestRepository extends JpaRepository<BloodRequest, Long>, JpaSpecificationExecutor<BloodRequest> {
     
     /**
      * Find blood requests by blood group
@@ -56,4 +68,138 @@ public interface BloodRequestRepository extends JpaRepository<BloodRequest, Long
      * @return A list of blood requests with the specified priority
      */
     List<BloodRequest> findByPriority(String priority);
-}
\ No newline at end of file
+    
+    /**
+     * Find the location of every blood request, for building the search index
+     * 
+     * @return Rows of [id, location]
+     */
+    @Query("SELECT r.id, r.location FROM BloodRequest r")
+    List<Object[]> findAllLocations();
+    
+    /**
+     * Find the fields the matching engine needs for every pending or partly filled request
+     * 
+     * @return Rows of [id, bloodGroup, unitsNeeded, unitsProvided, priority, requiredBy, createdAt]
+     */
+    @Query("SELECT r.id, r.bloodGroup, r.unitsNeeded, r.unitsProvided, r.priority, r.requiredBy, r.createdAt " +
+           "FROM BloodRequest r WHERE r.requestStatus IN ('PENDING', 'PARTIAL')")
+    List<Object[]> findOpenRequests();
+    
+    /**
+     * Find the deadline of every open request that has one
+     * 
+     * @return Rows of [id, requiredBy, escalationLevel]
+     */
+    @Query("SELECT r.id, r.requiredBy, r.escalationLevel FROM BloodRequest r " +
+           "WHERE r.requestStatus IN ('PENDING', 'PARTIAL') AND r.requiredBy IS NOT NULL")
+    List<Object[]> findOpenDeadlines();
+    
+    /**
+     * Count the open requests that have a deadline
+     * 
+     * @return The number of open requests with a required-by time
+     */
+    @Query("SELECT COUNT(r) FROM BloodRequest r " +
+           "WHERE r.requestStatus IN ('PENDING', 'PARTIAL') AND r.requiredBy IS NOT NULL")
+    long countOpenDeadlines();
+    
+    /**
+     * Get the time of the most recent write to any request
+     * 
+     * @return The latest update time, or null if there are no requests
+     */
+    @Query("SELECT MAX(r.updatedAt) FROM BloodRequest r")
+    LocalDateTime findLatestUpdate();
+    
+    /**
+     * Find requests by ID together with their hospitals, for work done outside a web
+     * request where the lazy hospital could not be loaded afterwards
+     * 
+     * @param ids The IDs of the requests
+     * @return The requests that exist
+     */
+    @EntityGraph(attributePaths = "hospital")
+    List<BloodRequest> findWithHospitalByIdIn(Collection<Long> ids);
+    
+    /**
+     * Record a deadline escalation on an open request, raising its priority unless it is
+     * already at least the given one. The condition makes this a claim: of several
+     * instances escalating the same request to the same level, only one gets 1 back.
+     * 
+     * @param id The ID of the request
+     * @param level The escalation level reached; a request already at or past it is skipped
+     * @param priority The priority to raise to
+     * @param lowerPriorities The priorities below {@code priority}
+     * @param now The update time
+     * @return 1 if the request was escalated, 0 otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE BloodRequest r SET r.escalationLevel = :level, " +
+           "r.priority = CASE WHEN r.priority IS NULL OR r.priority IN :lowerPriorities THEN :priority ELSE r.priority END, " +
+           "r.updatedAt = :now " +
+           "WHERE r.id = :id AND COALESCE(r.escalationLevel, 0) < :level AND r.requestStatus IN ('PENDING', 'PARTIAL')")
+    int escalate(@Param("id") Long id, @Param("level") int level, @Param("priority") String priority,
+                 @Param("lowerPriorities") List<String> lowerPriorities, @Param("now") LocalDateTime now);
+    
+    /**
+     * Find and lock an open request until the transaction ends, so the units it still needs
+     * cannot change before units are added to it
+     * 
+     * @param id The ID of the request
+     * @return An Optional containing the request if it exists and is PENDING or PARTIAL
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM BloodRequest r WHERE r.id = :id AND r.requestStatus IN ('PENDING', 'PARTIAL')")
+    Optional<BloodRequest> lockOpenRequest(@Param("id") Long id);
+    
+    /**
+     * Add units to an open request and move it to PARTIAL or FULFILLED, in one statement.
+     * 
+     * MySQL applies single-table UPDATE assignments left to right, so the status is decided
+     * on the new total. The new total and the units needed are packed into
+     * LAST_INSERT_ID(), which is per connection, for {@link #addUnitsProvided} to read back
+     * without selecting the row; the first CASE branch never matches and only sets it.
+     * 
+     * @param id The ID of the request
+     * @param units The units to add
+     * @param now The update time
+     * @return 1 if the request was open and updated, otherwise 0
+     */
+    @Modifying
+    @Query(value = "UPDATE blood_requests SET " +
+                   "units_provided = COALESCE(units_provided, 0) + :units, " +
+                   "request_status = CASE " +
+                   "WHEN LAST_INSERT_ID(units_provided * 4294967296 + COALESCE(units_needed, 1)) < 0 THEN request_status " +
+                   "WHEN units_provided >= COALESCE(units_needed, 1) THEN 'FULFILLED' ELSE 'PARTIAL' END, " +
+                   "updated_at = :now " +
+                   "WHERE id = :id AND request_status IN ('PENDING', 'PARTIAL')", nativeQuery = true)
+    int incrementUnitsProvided(@Param("id") Long id, @Param("units") int units, @Param("now") LocalDateTime now);
+    
+    /**
+     * Read the value the last {@link #incrementUnitsProvided} on this connection packed
+     * 
+     * @return The packed value
+     */
+    @Query(value = "SELECT LAST_INSERT_ID()", nativeQuery = true)
+    long lastPackedTotals();
+    
+    /**
+     * Atomically add units to an open request
+     * 
+     * @param id The ID of the request
+     * @param units The units to add
+     * @param now The update time
+     * @return The request's new totals, or empty if it does not exist or is no longer open
+     */
+    @Transactional
+    default Optional<UnitsContribution> addUnitsProvided(Long id, int units, LocalDateTime now) {
+        // Both statements must run on the same connection, hence the transaction
+        if (incrementUnitsProvided(id, units, now) == 0) {
+            return Optional.empty();
+        }
+        long packed = lastPackedTotals();
+        return Optional.of(new UnitsContribution(id, units, (int) (packed >>> 32), (int) (packed & 0xFFFFFFFFL)));
+    }
+}
@@ -1,24 +1,55 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.AppointmentReminder;
+import com.example.demo.dto.AppointmentSummary;
 import com.example.demo.model.DonationAppointment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface DonationAppointmentRepository extends JpaRepository<DonationAppointment, Long> {
+public interface DonationAppointmentRepository extends JpaRepository<DonationAppointment, Long>, JpaSpecificationExecutor<DonationAppointment> {
+    
+    /**
+     * Find an appointment by ID, with its donor
+     * 
+     * @param id The appointment ID
+     * @return An Optional containing the appointment if found
+     */
+    @Override
+    @EntityGraph(attributePaths = "donor")
+    Optional<DonationAppointment> findById(Long id);
+    
+    /**
+     * Find appointments by ID, with their donors
+     * 
+     * @param ids The appointment IDs
+     * @return The appointments that exist
+     */
+    @Override
+    @EntityGraph(attributePaths = "donor")
+    List<DonationAppointment> findAllById(Iterable<Long> ids);
     
     /**
      * Find appointments by donor ID
      * 
      * @param donorId The donor ID to search for
-     * @return A list of appointments for the given donor
+     * @return Summaries of the appointments for the given donor
      */
-    @Query("SELECT a FROM DonationAppointment a WHERE a.donor.id = ?1")
-    List<DonationAppointment> findByDonorId(Long donorId);
+    @Query("SELECT new com.example.demo.dto.AppointmentSummary(a.id, a.appointmentDate, a.status, a.location, a.notes, " +
+           "a.confirmationCode, d.id, d.name, d.email, d.phone, d.bloodGroup) " +
+           "FROM DonationAppointment a JOIN a.donor d WHERE d.id = ?1")
+    List<AppointmentSummary> findSummariesByDonorId(Long donorId);
     
     /**
      * Find appointments by status
@@ -26,6 +57,7 @@ public interface DonationAppointmentRepository extends JpaRepository<DonationApp
      * @param status The status to search for
      * @return A list of appointments with the given status
      */
+    @EntityGraph(attributePaths = "donor")
     List<DonationAppointment> findByStatus(String status);
     
     /**
@@ -34,6 +66,7 @@ public interface DonationAppointmentRepository extends JpaRepository<DonationApp
      * @param location The location to search for
      * @return A list of appointments at the given location
      */
+    @EntityGraph(attributePaths = "donor")
     List<DonationAppointment> findByLocationContainingIgnoreCase(String location);
     
     /**
@@ -43,16 +76,32 @@ public interface DonationAppointmentRepository extends JpaRepository<DonationApp
      * @param endDate The end date of the range
      * @return A list of appointments within the given date range
      */
+    @EntityGraph(attributePaths = "donor")
     List<DonationAppointment> findByAppointmentDateBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     /**
-     * Find appointments for a given date
+     * Find appointments from a start time up to, but not including, an end time. The
+     * half-open range lets the appointment date index serve day, week and month views.
+     * 
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return The appointments in the range, earliest first
+     */
+    @EntityGraph(attributePaths = "donor")
+    @Query("SELECT a FROM DonationAppointment a WHERE a.appointmentDate >= :from AND a.appointmentDate < :to ORDER BY a.appointmentDate ASC")
+    List<DonationAppointment> findInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Find the date and location of every appointment that is on the calendar (not
+     * cancelled) in a half-open time range, for building occupancy counts
      * 
-     * @param date The date to search for
-     * @return A list of appointments on the given date
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return Rows of [appointmentDate, location]
      */
-    @Query("SELECT a FROM DonationAppointment a WHERE YEAR(a.appointmentDate) = YEAR(?1) AND MONTH(a.appointmentDate) = MONTH(?1) AND DAY(a.appointmentDate) = DAY(?1)")
-    List<DonationAppointment> findByAppointmentDateDay(LocalDateTime date);
+    @Query("SELECT a.appointmentDate, a.location FROM DonationAppointment a " +
+           "WHERE a.appointmentDate >= :from AND a.appointmentDate < :to AND a.status <> 'CANCELLED'")
+    List<Object[]> findCalendarEntries(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
     
     /**
      * Find upcoming appointments for a donor
@@ -61,6 +110,7 @@ public interface DonationAppointmentRepository extends JpaRepository<DonationApp
      * @param now The current date and time
      * @return A list of upcoming appointments for the donor
      */
+    @EntityGraph(attributePaths = "donor")
     @Query("SELECT a FROM DonationAppointment a WHERE a.donor.id = ?1 AND a.appointmentDate > ?2 AND a.status = 'SCHEDULED' ORDER BY a.appointmentDate ASC")
     List<DonationAppointment> findUpcomingAppointmentsByDonorId(Long donorId, LocalDateTime now);
     
@@ -71,6 +121,95 @@ public interface DonationAppointmentRepository extends JpaRepository<DonationApp
      * @param endTime The end time for reminder window
      * @return A list of appointments needing reminders
      */
+    @EntityGraph(attributePaths = "donor")
     @Query("SELECT a FROM DonationAppointment a WHERE a.appointmentDate BETWEEN ?1 AND ?2 AND a.reminderSent = false AND a.status = 'SCHEDULED'")
     List<DonationAppointment> findAppointmentsNeedingReminders(LocalDateTime startTime, LocalDateTime endTime);
-}
\ No newline at end of file
+    
+    /**
+     * Find the next batch of scheduled appointments in a time window whose reminder has
+     * not been sent, in ID order. Pass the last ID of the previous batch to continue
+     * (keyset pagination), and the batch size through the Pageable.
+     * 
+     * @param startTime The start of the reminder window
+     * @param endTime The end of the reminder window
+     * @param afterId Only appointments with a greater ID are returned
+     * @param pageable The batch size (use page 0)
+     * @return The reminder details of the matching appointments
+     */
+    @Query("SELECT new com.example.demo.dto.AppointmentReminder(a.id, a.appointmentDate, a.location, a.confirmationCode, d.name, d.email) " +
+           "FROM DonationAppointment a JOIN a.donor d " +
+           "WHERE a.status = 'SCHEDULED' AND a.reminderSent = false " +
+           "AND a.appointmentDate BETWEEN :startTime AND :endTime AND a.id > :afterId ORDER BY a.id")
+    List<AppointmentReminder> findDueReminders(@Param("startTime") LocalDateTime startTime,
+                                               @Param("endTime") LocalDateTime endTime,
+                                               @Param("afterId") Long afterId,
+                                               Pageable pageable);
+    
+    /**
+     * Claim the reminders of a batch of appointments in one statement, flagging them as
+     * sent and tagging them with the claiming run's token. Rows another run or instance
+     * flagged first are left alone; {@link #findClaimedReminderIds} tells which were won.
+     * 
+     * @param ids The IDs of the appointments
+     * @param claim The claiming run's token
+     * @param now The current time
+     * @return The number of reminders claimed
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DonationAppointment a SET a.reminderSent = true, a.reminderClaim = :claim, a.updatedAt = :now " +
+           "WHERE a.id IN :ids AND a.reminderSent = false")
+    int claimReminders(@Param("ids") List<Long> ids, @Param("claim") String claim, @Param("now") LocalDateTime now);
+    
+    /**
+     * Find which of a batch of appointments a run claimed
+     * 
+     * @param ids The IDs of the appointments
+     * @param claim The claiming run's token
+     * @return The IDs carrying the token
+     */
+    @Query("SELECT a.id FROM DonationAppointment a WHERE a.id IN :ids AND a.reminderClaim = :claim")
+    List<Long> findClaimedReminderIds(@Param("ids") List<Long> ids, @Param("claim") String claim);
+    
+    /**
+     * Give back claimed reminders that could not be queued, so a later run sends them
+     * 
+     * @param ids The IDs of the appointments
+     * @param claim The claiming run's token
+     * @return The number of reminders released
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE DonationAppointment a SET a.reminderSent = false, a.reminderClaim = NULL " +
+           "WHERE a.id IN :ids AND a.reminderClaim = :claim")
+    int releaseReminders(@Param("ids") List<Long> ids, @Param("claim") String claim);
+    
+    /**
+     * Find the location of every appointment, for building the search index
+     * 
+     * @return Rows of [id, location]
+     */
+    @Query("SELECT a.id, a.location FROM DonationAppointment a")
+    List<Object[]> findAllLocations();
+    
+    /**
+     * Get the time of the most recent write to any appointment
+     * 
+     * @return The latest update time, or null if there are no appointments
+     */
+    @Query("SELECT MAX(a.updatedAt) FROM DonationAppointment a")
+    LocalDateTime findLatestUpdate();
+    
+    /**
+     * Count the scheduled appointments at a location within a time range
+     * 
+     * @param location The location, compared case-insensitively
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return The number of scheduled appointments
+     */
+    @Query("SELECT COUNT(a) FROM DonationAppointment a WHERE LOWER(a.location) = LOWER(:location) " +
+           "AND a.status = 'SCHEDULED' AND a.appointmentDate >= :from AND a.appointmentDate < :to")
+    long countScheduledAtLocation(@Param("location") String location, @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+}
@@ -1,14 +1,31 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.DonorContact;
+import com.example.demo.dto.DonorSummary;
 import com.example.demo.model.Donor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DonorRepository extends JpaRepository<Donor, Long> {
+public interface DonorRepository extends JpaRepository<Donor, Long>, JpaSpecificationExecutor<Donor> {
+    
+    /**
+     * Select clause for the donor summary projections; reads the hospital's ID from the
+     * foreign key column without joining hospitals
+     */
+    String SUMMARY = "SELECT new com.example.demo.dto.DonorSummary(d.id, d.name, d.username, d.email, d.phone, " +
+                     "d.bloodGroup, d.location, d.isAvailable, d.lastDonation, d.nextEligibleAt, d.hospital.id) FROM Donor d ";
     
     /**
      * Find a donor by username
@@ -30,9 +47,10 @@ public interface DonorRepository extends JpaRepository<Donor, Long> {
      * Find donors by blood group
      * 
      * @param bloodGroup The blood group to search for
-     * @return A list of donors with the given blood group
+     * @return Summaries of the donors with the given blood group
      */
-    List<Donor> findByBloodGroup(String bloodGroup);
+    @Query(SUMMARY + "WHERE d.bloodGroup = :bloodGroup")
+    List<DonorSummary> findSummariesByBloodGroup(@Param("bloodGroup") String bloodGroup);
     
     /**
      * Find donors by location
@@ -70,25 +88,206 @@ public interface DonorRepository extends JpaRepository<Donor, Long> {
      * Find donors by hospital ID
      * 
      * @param hospitalId The ID of the hospital
-     * @return A list of donors associated with the given hospital
+     * @return Summaries of the donors associated with the given hospital
      */
-    List<Donor> findByHospitalId(Long hospitalId);
+    @Query(SUMMARY + "WHERE d.hospital.id = :hospitalId")
+    List<DonorSummary> findSummariesByHospitalId(@Param("hospitalId") Long hospitalId);
     
     /**
      * Find donors by blood group and hospital ID
      * 
      * @param bloodGroup The blood group to search for
      * @param hospitalId The ID of the hospital
-     * @return A list of donors with the given blood group at the specified hospital
+     * @return Summaries of the donors with the given blood group at the specified hospital
      */
-    List<Donor> findByBloodGroupAndHospitalId(String bloodGroup, Long hospitalId);
+    @Query(SUMMARY + "WHERE d.bloodGroup = :bloodGroup AND d.hospital.id = :hospitalId")
+    List<DonorSummary> findSummariesByBloodGroupAndHospitalId(@Param("bloodGroup") String bloodGroup,
+                                                              @Param("hospitalId") Long hospitalId);
     
     /**
      * Find available donors by hospital ID
      * 
      * @param isAvailable The availability status
      * @param hospitalId The ID of the hospital
-     * @return A list of available donors at the specified hospital
+     * @return Summaries of the donors with that availability at the specified hospital
+     */
+    @Query(SUMMARY + "WHERE d.isAvailable = :isAvailable AND d.hospital.id = :hospitalId")
+    List<DonorSummary> findSummariesByIsAvailableAndHospitalId(@Param("isAvailable") boolean isAvailable,
+                                                               @Param("hospitalId") Long hospitalId);
+    
+    /**
+     * Find the usernames of all donors, lower-cased
+     * 
+     * @return A list of every donor username
+     */
+    @Query("SELECT LOWER(d.username) FROM Donor d")
+    List<String> findAllUsernamesLowerCase();
+    
+    /**
+     * Find the emails of all donors, lower-cased
+     * 
+     * @return A list of every donor email
+     */
+    @Query("SELECT LOWER(d.email) FROM Donor d")
+    List<String> findAllEmailsLowerCase();
+    
+    /**
+     * Find the next batch of donors who can be asked to donate now, in ID order.
+     * Pass the last ID of the previous batch to continue (keyset pagination), and the
+     * page size through the Pageable.
+     * 
+     * @param bloodGroups The donor blood groups to include
+     * @param now Donors whose next eligible time is later are still deferred
+     * @param afterId Only donors with a greater ID are returned
+     * @param pageable The batch size (page number is ignored in practice, use page 0)
+     * @return Contact details of the matching donors
+     */
+    @Query("SELECT new com.example.demo.dto.DonorContact(d.id, d.name, d.email, d.bloodGroup) FROM Donor d " +
+           "WHERE d.bloodGroup IN :bloodGroups AND d.isAvailable = true " +
+           "AND d.nextEligibleAt <= :now " +
+           "AND d.id > :afterId ORDER BY d.id")
+    List<DonorContact> findEligibleDonorContacts(@Param("bloodGroups") Collection<String> bloodGroups,
+                                                 @Param("now") LocalDateTime now,
+                                                 @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+    
+    /**
+     * Find the next batch of eligible donors whose location has not been resolved to
+     * coordinates, in ID order, for alerts that otherwise only reach nearby donors.
+     * Paginates like {@link #findEligibleDonorContacts}.
+     * 
+     * @param bloodGroups The donor blood groups to include
+     * @param now Donors whose next eligible time is later are still deferred
+     * @param afterId Only donors with a greater ID are returned
+     * @param pageable The batch size (page number is ignored in practice, use page 0)
+     * @return Contact details of the matching donors
+     */
+    @Query("SELECT new com.example.demo.dto.DonorContact(d.id, d.name, d.email, d.bloodGroup) FROM Donor d " +
+           "WHERE d.bloodGroup IN :bloodGroups AND d.isAvailable = true " +
+           "AND d.nextEligibleAt <= :now AND (d.latitude IS NULL OR d.longitude IS NULL) " +
+           "AND d.id > :afterId ORDER BY d.id")
+    List<DonorContact> findEligibleUnlocatedDonorContacts(@Param("bloodGroups") Collection<String> bloodGroups,
+                                                          @Param("now") LocalDateTime now,
+                                                          @Param("afterId") Long afterId,
+                                                          Pageable pageable);
+    
+    /**
+     * Find contact details for the given donors
+     * 
+     * @param ids The IDs of the donors
+     * @return Contact details of the donors that exist
+     */
+    @Query("SELECT new com.example.demo.dto.DonorContact(d.id, d.name, d.email, d.bloodGroup) FROM Donor d WHERE d.id IN :ids")
+    List<DonorContact> findContactsByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Find what the spatial donor index needs for every donor with coordinates
+     * 
+     * @return Rows of [id, bloodGroup, isAvailable, nextEligibleAt, latitude, longitude]
+     */
+    @Query("SELECT d.id, d.bloodGroup, d.isAvailable, d.nextEligibleAt, d.latitude, d.longitude FROM Donor d " +
+           "WHERE d.latitude IS NOT NULL AND d.longitude IS NOT NULL")
+    List<Object[]> findGeoIndexRows();
+    
+    /**
+     * Find donors whose location has not been resolved to coordinates yet
+     * 
+     * @return Rows of [id, location]
+     */
+    @Query("SELECT d.id, d.location FROM Donor d WHERE d.latitude IS NULL OR d.longitude IS NULL")
+    List<Object[]> findUnlocatedDonors();
+    
+    /**
+     * Set the same coordinates on several donors in one statement
+     * 
+     * @param ids The IDs of the donors
+     * @param latitude The latitude
+     * @param longitude The longitude
+     * @return The number of donors updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Donor d SET d.latitude = :latitude, d.longitude = :longitude WHERE d.id IN :ids")
+    int updateCoordinates(@Param("ids") Collection<Long> ids, @Param("latitude") Double latitude, @Param("longitude") Double longitude);
+    
+    /**
+     * Find the location of every donor, for building the search index
+     * 
+     * @return Rows of [id, location]
+     */
+    @Query("SELECT d.id, d.location FROM Donor d")
+    List<Object[]> findAllLocations();
+    
+    /**
+     * Get the time of the most recent write to any donor
+     * 
+     * @return The latest update time, or null if there are no donors
+     */
+    @Query("SELECT MAX(d.updatedAt) FROM Donor d")
+    LocalDateTime findLatestUpdate();
+    
+    /**
+     * Find a donor's profile fields and the totals the dashboard shows, in one statement.
+     * The aggregates are correlated subqueries on donor_id, each an index range scan.
+     * 
+     * @param id The ID of the donor
+     * @param now Appointments after this time count as upcoming
+     * @return One row of [id, name, username, email, phone, bloodGroup, location, isAvailable,
+     *         lastDonation, nextEligibleAt, hospitalId, updatedAt, donationCount, totalQuantityMl,
+     *         lastDonationUpdate, upcomingAppointments, nextAppointmentAt], or none if the donor
+     *         does not exist
+     */
+    @Query("SELECT d.id, d.name, d.username, d.email, d.phone, d.bloodGroup, d.location, d.isAvailable, " +
+           "d.lastDonation, d.nextEligibleAt, d.hospital.id, d.updatedAt, " +
+           "(SELECT COUNT(b) FROM BloodDonation b WHERE b.donor.id = d.id), " +
+           "(SELECT COALESCE(SUM(b.quantityMl), 0) FROM BloodDonation b WHERE b.donor.id = d.id), " +
+           "(SELECT MAX(b.updatedAt) FROM BloodDonation b WHERE b.donor.id = d.id), " +
+           "(SELECT COUNT(a) FROM DonationAppointment a WHERE a.donor.id = d.id " +
+           "AND a.status = 'SCHEDULED' AND a.appointmentDate > :now), " +
+           "(SELECT MIN(a.appointmentDate) FROM DonationAppointment a WHERE a.donor.id = d.id " +
+           "AND a.status = 'SCHEDULED' AND a.appointmentDate > :now) " +
+           "FROM Donor d WHERE d.id = :id")
+    List<Object[]> findProfileRow(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * Count donors who can donate now, whether or not they are available
+     * 
+     * @param now The current time
+     * @return The number of donors past their deferral interval
+     */
+    long countByNextEligibleAtLessThanEqual(LocalDateTime now);
+    
+    /**
+     * Count donors by availability
+     * 
+     * @param isAvailable The availability to count
+     * @return The number of donors with that availability
+     */
+    long countByIsAvailable(boolean isAvailable);
+    
+    /**
+     * Count donors who donated after a given time
+     * 
+     * @param since The start time, exclusive
+     * @return The number of donors whose last donation is later
+     */
+    long countByLastDonationAfter(LocalDateTime since);
+    
+    /**
+     * Set next_eligible_at on every donor where it is missing or no longer matches the
+     * last donation plus the deferral interval (rows written before the column existed,
+     * or after the interval was changed). Donors who never donated are eligible from
+     * when they registered.
+     * 
+     * @param deferralDays The deferral interval in days
+     * @return The number of donors updated
      */
-    List<Donor> findByIsAvailableAndHospitalId(boolean isAvailable, Long hospitalId);
-}
\ No newline at end of file
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE donors SET next_eligible_at = " +
+                   "COALESCE(DATE_ADD(last_donation, INTERVAL :deferralDays DAY), created_at, CURRENT_TIMESTAMP) " +
+                   "WHERE next_eligible_at IS NULL " +
+                   "OR (last_donation IS NOT NULL AND next_eligible_at <> DATE_ADD(last_donation, INTERVAL :deferralDays DAY))",
+           nativeQuery = true)
+    int backfillNextEligibleAt(@Param("deferralDays") int deferralDays);
+}
@@ -2,14 +2,18 @@ package com.example.demo.repository;
 
 import com.example.demo.model.EmergencyNotification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface EmergencyNotificationRepository extends JpaRepository<EmergencyNotification, Long> {
+public interface EmergencyNotificationRepository extends JpaRepository<EmergencyNotification, Long>, JpaSpecificationExecutor<EmergencyNotification> {
 
     List<EmergencyNotification> findByStatus(String status);
     
@@ -20,9 +24,55 @@ public interface EmergencyNotificationRepository extends JpaRepository<Emergency
     @Query("SELECT e FROM EmergencyNotification e WHERE e.status = 'ACTIVE' AND e.expiryDate > ?1")
     List<EmergencyNotification> findActiveNotifications(LocalDateTime now);
     
+    @Query("SELECT COUNT(e) FROM EmergencyNotification e WHERE e.status = 'ACTIVE' AND e.expiryDate > ?1")
+    long countActiveNotifications(LocalDateTime now);
+    
+    /**
+     * Get the time of the most recent write to any notification
+     * 
+     * @return The latest update time, or null if there are no notifications
+     */
+    @Query("SELECT MAX(e.updatedAt) FROM EmergencyNotification e")
+    LocalDateTime findLatestUpdate();
+    
     @Query("SELECT e FROM EmergencyNotification e WHERE e.status = 'ACTIVE' AND e.expiryDate > ?1 AND e.bloodType = ?2")
     List<EmergencyNotification> findActiveNotificationsByBloodType(LocalDateTime now, String bloodType);
     
     @Query("SELECT e FROM EmergencyNotification e WHERE e.expiryDate < ?1 AND e.status = 'ACTIVE'")
     List<EmergencyNotification> findExpiredNotifications(LocalDateTime now);
+    
+    /**
+     * Find the ID and expiry of every active notification that has not yet expired
+     * 
+     * @param now The current time
+     * @return Rows of [id, expiryDate]
+     */
+    @Query("SELECT e.id, e.expiryDate FROM EmergencyNotification e WHERE e.status = 'ACTIVE' AND e.expiryDate > :now")
+    List<Object[]> findActiveExpiryDeadlines(@Param("now") LocalDateTime now);
+    
+    /**
+     * Expire the given notifications in one statement, skipping any that are no longer
+     * active or whose expiry has been moved later
+     * 
+     * @param ids The IDs of the notifications that are due
+     * @param now The current time
+     * @return The number of notifications expired
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmergencyNotification e SET e.status = 'EXPIRED', e.updatedAt = :now " +
+           "WHERE e.id IN :ids AND e.status = 'ACTIVE' AND e.expiryDate <= :now")
+    int expireDueNotifications(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * Expire every active notification whose expiry has passed, in one statement
+     * 
+     * @param now The current time
+     * @return The number of notifications expired
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmergencyNotification e SET e.status = 'EXPIRED', e.updatedAt = :now " +
+           "WHERE e.status = 'ACTIVE' AND e.expiryDate <= :now")
+    int expireAllDueNotifications(@Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -2,13 +2,16 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Hospital;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface HospitalRepository extends JpaRepository<Hospital, Long> {
+public interface HospitalRepository extends JpaRepository<Hospital, Long>, JpaSpecificationExecutor<Hospital> {
     
     List<Hospital> findByStatus(String status);
     
@@ -17,4 +20,17 @@ public interface HospitalRepository extends JpaRepository<Hospital, Long> {
     Optional<Hospital> findByRegistrationNumber(String registrationNumber);
     
     List<Hospital> findByNameContainingIgnoreCase(String name);
-}
\ No newline at end of file
+    
+    List<Hospital> findByLatitudeIsNull();
+    
+    @Query("SELECT h.id, h.name FROM Hospital h")
+    List<Object[]> findAllNames();
+    
+    /**
+     * Get the time of the most recent write to any hospital
+     * 
+     * @return The latest update time, or null if there are no hospitals
+     */
+    @Query("SELECT MAX(h.updatedAt) FROM Hospital h")
+    LocalDateTime findLatestUpdate();
+}
@@ -0,0 +1,49 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    
+    /**
+     * Find revocations that still cover unexpired tokens
+     * 
+     * @param now The current time
+     * @return A list of revocations expiring after the given time
+     */
+    List<RevokedToken> findByExpiresAtAfter(LocalDateTime now);
+    
+    /**
+     * Find unexpired revocations with an ID above the given one or recorded since the given
+     * time. The time window catches rows that committed after a row with a higher ID had
+     * already been read.
+     * 
+     * @param afterId The highest ID already read
+     * @param since The start of the time window
+     * @param now The current time
+     * @return A list of recent revocations
+     */
+    @Query("SELECT r FROM RevokedToken r WHERE (r.id > :afterId OR r.revokedAt >= :since) AND r.expiresAt > :now")
+    List<RevokedToken> findRecent(@Param("afterId") long afterId, @Param("since") LocalDateTime since,
+                                  @Param("now") LocalDateTime now);
+    
+    /**
+     * Delete revocations whose tokens have all expired
+     * 
+     * @param now The current time
+     * @return The number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,13 +1,17 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.UserCredentials;
 import com.example.demo.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     
     /**
      * Find a user by email
@@ -24,4 +28,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return True if a user with the email exists, false otherwise
      */
     boolean existsByEmail(String email);
-}
\ No newline at end of file
+    
+    /**
+     * Find the stored email, role and password of a user. This reads the row itself, not
+     * an entity the caller may already have modified.
+     * 
+     * @param id The ID of the user
+     * @return An Optional containing the stored credentials if the user exists
+     */
+    @Query("SELECT new com.example.demo.dto.UserCredentials(u.id, u.email, u.role, u.password) FROM User u WHERE u.id = :id")
+    Optional<UserCredentials> findCredentialsById(@Param("id") Long id);
+}
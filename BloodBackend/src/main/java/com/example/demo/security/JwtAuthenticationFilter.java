@@ -1,5 +1,6 @@
 package com.example.demo.security;
 
+import com.example.demo.filter.AccessLogFilter;
 import com.example.demo.service.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -8,8 +9,11 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,6 +21,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -29,22 +35,26 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private UserPrincipalCache principalCache;
+
+    @Autowired
+    private RouteAccessTable routeAccessTable;
+
+    @Autowired
+    private TokenRevocationStore revocationStore;
+
+    @Value("${jwt.statelessPrincipal:true}")
+    private boolean statelessPrincipal;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        // Per-request details go to the access log as a single record; see AccessLogFilter
         try {
-            // Log the request path to help with debugging
-            String requestPath = request.getRequestURI();
-            String method = request.getMethod();
-            logger.info("Processing request: {} {}", method, requestPath);
-            
-            // Check request details
-            logger.info("Request from: {}", request.getRemoteAddr());
-            logger.info("Content-Type: {}", request.getContentType());
-            
             // For OPTIONS requests (CORS preflight), skip token validation
-            if (method.equals("OPTIONS")) {
-                logger.info("Handling OPTIONS preflight request for path: {}", requestPath);
+            if (request.getMethod().equals("OPTIONS")) {
+                request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "preflight");
                 
                 // Add CORS headers for preflight response
                 response.setHeader("Access-Control-Allow-Origin", "*");
@@ -57,8 +67,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
             
             // Check if the request path is public
-            if (isPublicEndpoint(requestPath)) {
-                logger.info("Public endpoint accessed: {}", requestPath);
+            if (routeAccessTable.isPublic(request)) {
+                request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "public");
                 filterChain.doFilter(request, response);
                 return;
             }
@@ -66,29 +76,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extract and validate JWT token
             String jwt = parseJwt(request);
             if (jwt != null) {
-                logger.info("JWT token found in request, length: {}", jwt.length());
-                
-                if (jwtUtils.validateJwtToken(jwt)) {
-                    String username = jwtUtils.getUsernameFromJwtToken(jwt);
-                    String role = jwtUtils.getRoleFromJwtToken(jwt);
-                    Long userId = jwtUtils.getUserIdFromJwtToken(jwt);
-                    
-                    logger.info("JWT token validated for user: {}, role: {}, userId: {}", username, role, userId);
-
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                Optional<JwtClaims> verifiedClaims = jwtUtils.parseVerifiedClaims(jwt);
+                if (verifiedClaims.isPresent() && revocationStore.isRevoked(verifiedClaims.get())) {
+                    request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "revoked");
+                } else if (verifiedClaims.isPresent()) {
+                    JwtClaims claims = verifiedClaims.get();
+                    String username = claims.getUsername();
+                    request.setAttribute(AccessLogFilter.USER_ATTRIBUTE, username);
+
+                    UserDetails userDetails = resolvePrincipal(claims);
+                    if (userDetails == null) {
+                        request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "stale-user");
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
-                    logger.info("Authentication set in SecurityContext for user: {}", username);
+                    request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "ok");
                 } else {
-                    logger.warn("Invalid JWT token for request: {} {}", method, requestPath);
+                    request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "invalid-token");
                 }
             } else {
-                logger.warn("No JWT token found for protected request: {} {}", method, requestPath);
+                request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "no-token");
             }
         } catch (Exception e) {
+            request.setAttribute(AccessLogFilter.AUTH_OUTCOME_ATTRIBUTE, "error");
             logger.error("Authentication error for {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage(), e);
         }
 
@@ -96,15 +111,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     
     /**
-     * Check if the given endpoint is public (no authentication needed)
+     * Resolve the principal for a verified token without touching the database where possible.
+     * In stateless mode the principal is built from the role claim; this is safe because a
+     * change of role, email or password, or deleting the user, revokes the user's earlier
+     * tokens. When stateless mode is off the principal is loaded once and cached.
+     *
+     * @return The principal, or null if the token belongs to a deleted or renamed user
      */
-    private boolean isPublicEndpoint(String path) {
-        return path.startsWith("/api/auth/") || 
-               path.startsWith("/api/public/") ||
-               path.startsWith("/api/health/") ||
-               path.startsWith("/api/test/") ||
-               path.startsWith("/api/blood-inventory/stock") ||
-               path.equals("/api/blood-inventory");
+    private UserDetails resolvePrincipal(JwtClaims claims) {
+        Optional<UserDetails> cached = principalCache.get(claims.getUserId());
+        if (cached.isPresent()) {
+            UserDetails details = cached.get();
+            return details.isEnabled() && details.getUsername().equals(claims.getUsername()) ? details : null;
+        }
+
+        if (statelessPrincipal && claims.getUserId() != null && claims.getRole() != null) {
+            return new User(claims.getUsername(), "",
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + claims.getRole())));
+        }
+
+        UserDetails loaded = userDetailsService.loadUserByUsername(claims.getUsername());
+        principalCache.put(claims.getUserId(), loaded);
+        return loaded;
     }
 
     private String parseJwt(HttpServletRequest request) {
@@ -115,35 +143,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return null;
         }
         
-        // Log auth header safely
-        logger.info("Authorization header present: {}", 
-                headerAuth.length() > 15 ? headerAuth.substring(0, 15) + "..." : headerAuth);
-                
         // Check for different header formats
         if (headerAuth.startsWith("Bearer ")) {
             String token = headerAuth.substring(7);
             
             if (token.isEmpty()) {
-                logger.warn("Empty token after Bearer prefix");
+                logger.debug("Empty token after Bearer prefix");
                 return null;
             }
-            
-            // Validate token format
-            logger.info("Found Bearer token of length {}", token.length());
             return token;
         } else if (headerAuth.startsWith("bearer ")) {
             // Handle lowercase bearer
-            String token = headerAuth.substring(7);
-            logger.info("Found lowercase bearer token of length {}", token.length());
-            return token;
+            return headerAuth.substring(7);
         } else if (!headerAuth.contains(" ")) {
             // Could be just the raw token
-            logger.info("Found possible raw token: {}", 
-                    headerAuth.length() > 15 ? headerAuth.substring(0, 15) + "..." : headerAuth);
             return headerAuth;
         } else {
-            logger.warn("Authorization header in unexpected format: {}", 
-                    headerAuth.length() > 15 ? headerAuth.substring(0, 15) + "..." : headerAuth);
+            logger.debug("Authorization header in unexpected format");
             return null;
         }
     }
@@ -0,0 +1,71 @@
+package com.example.demo.security;
+
+import java.util.Date;
+
+/**
+ * Immutable view of the claims of a JWT whose signature has already been verified
+ */
+public final class JwtClaims {
+
+    private final String username;
+    private final Long userId;
+    private final String role;
+    private final String tokenId;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    public JwtClaims(String username, Long userId, String role, String tokenId, Date issuedAt, Date expiration) {
+        this.username = username;
+        this.userId = userId;
+        this.role = role;
+        this.tokenId = tokenId;
+        this.issuedAt = issuedAt != null ? new Date(issuedAt.getTime()) : null;
+        this.expiration = expiration != null ? new Date(expiration.getTime()) : null;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Get the token's unique ID (the jti claim); null for tokens issued before IDs were added
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public Date getIssuedAt() {
+        return issuedAt != null ? new Date(issuedAt.getTime()) : null;
+    }
+
+    /**
+     * Get the issue time without copying the date, for hot-path comparisons
+     *
+     * @return The issue time in epoch milliseconds, or 0 if the token has no iat claim
+     */
+    public long getIssuedAtMillis() {
+        return issuedAt != null ? issuedAt.getTime() : 0L;
+    }
+
+    public Date getExpiration() {
+        return expiration != null ? new Date(expiration.getTime()) : null;
+    }
+
+    /**
+     * Check whether the token has expired
+     *
+     * @param nowMillis The current time in epoch milliseconds
+     * @return True if the token carries an expiration at or before the given time
+     */
+    public boolean isExpired(long nowMillis) {
+        return expiration != null && expiration.getTime() <= nowMillis;
+    }
+}
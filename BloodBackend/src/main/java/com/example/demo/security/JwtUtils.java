@@ -1,6 +1,8 @@
 package com.example.demo.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -12,108 +14,169 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    // The standard iat claim has one-second precision, too coarse to compare with a
+    // revocation made in the same second, so the issue time is also sent in milliseconds
+    private static final String ISSUED_AT_MILLIS_CLAIM = "iatMs";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
     @Value("${jwt.secret:defaultSecretKey012345678901234567890123456789}")
     private String jwtSecret;
 
     @Value("${jwt.expirationMs:86400000}") // 24 hours
     private int jwtExpirationMs;
 
-    // Generate a secure key for HS256 algorithm
+    @Value("${jwt.verifiedCacheSize:10000}")
+    private int verifiedCacheSize;
+
+    // Verified claims keyed by the SHA-256 digest of the token, so repeat requests skip the HMAC check
+    private final Map<String, JwtClaims> verifiedTokens = new ConcurrentHashMap<>();
+
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
+    // Generate a secure key for HS256 algorithm once and reuse it
     private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser jwtParser = parser;
+        if (jwtParser == null) {
+            jwtParser = Jwts.parserBuilder().setSigningKey(getSigningKey()).build();
+            parser = jwtParser;
+        }
+        return jwtParser;
     }
 
     public String generateJwtToken(String username, Long userId, String role) {
+        long issuedAt = System.currentTimeMillis();
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("role", role);
-        
+        claims.put(ISSUED_AT_MILLIS_CLAIM, issuedAt);
+
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
+                .setId(UUID.randomUUID().toString())
+                .setIssuedAt(new Date(issuedAt))
+                .setExpiration(new Date(issuedAt + jwtExpirationMs))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsernameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
-
-    public Long getUserIdFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("userId", Long.class);
-    }
+    /**
+     * Verify a token and return its claims, parsing and checking the signature at most once
+     * per distinct token while it remains in the cache
+     *
+     * @param token The compact JWT string
+     * @return An Optional containing the verified claims, or empty if the token is invalid or expired
+     */
+    public Optional<JwtClaims> parseVerifiedClaims(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            logger.debug("JWT token is null or empty");
+            return Optional.empty();
+        }
 
-    public String getRoleFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
-    }
+        long now = System.currentTimeMillis();
+        String cacheKey = digest(token);
+        JwtClaims cached = verifiedTokens.get(cacheKey);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.remove(cacheKey, cached);
+            logger.debug("JWT token is expired. Expiration: {}, Current time: {}", cached.getExpiration(), new Date(now));
+            return Optional.empty();
+        }
 
-    public boolean validateJwtToken(String authToken) {
         try {
-            if (authToken == null || authToken.trim().isEmpty()) {
-                logger.error("JWT token is null or empty");
-                return false;
-            }
-            
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken);
-                
-            // Check token expiration
-            Date expiration = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(authToken)
-                .getBody()
-                .getExpiration();
-                
-            if (expiration != null && expiration.before(new Date())) {
-                logger.error("JWT token is expired. Expiration: {}, Current time: {}", 
-                    expiration, new Date());
-                return false;
+            Claims body = getParser().parseClaimsJws(token).getBody();
+            Long issuedAtMillis = body.get(ISSUED_AT_MILLIS_CLAIM, Long.class);
+            JwtClaims claims = new JwtClaims(
+                    body.getSubject(),
+                    body.get("userId", Long.class),
+                    body.get("role", String.class),
+                    body.getId(),
+                    issuedAtMillis != null ? new Date(issuedAtMillis) : body.getIssuedAt(),
+                    body.getExpiration());
+
+            if (claims.isExpired(now)) {
+                logger.debug("JWT token is expired. Expiration: {}, Current time: {}", claims.getExpiration(), new Date(now));
+                return Optional.empty();
             }
-            
-            return true;
+
+            cacheVerifiedClaims(cacheKey, claims, now);
+            return Optional.of(claims);
         } catch (MalformedJwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            logger.debug("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
-            logger.error("JWT token is expired: {}, token prefix: {}", e.getMessage(), 
-                authToken != null && authToken.length() > 10 ? authToken.substring(0, 10) + "..." : "null");
+            logger.debug("JWT token is expired: {}, token prefix: {}", e.getMessage(),
+                token.length() > 10 ? token.substring(0, 10) + "..." : token);
         } catch (UnsupportedJwtException e) {
-            logger.error("JWT token is unsupported: {}", e.getMessage());
+            logger.debug("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
-            logger.error("JWT claims string is empty: {}", e.getMessage());
+            logger.debug("JWT claims string is empty: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("JWT validation error: {}", e.getMessage(), e);
         }
 
-        return false;
+        return Optional.empty();
+    }
+
+    /**
+     * Store verified claims, making room first if the cache is at capacity. Expired entries
+     * are dropped before live ones; if the cache is still full, an arbitrary slice is evicted
+     * and those tokens are simply verified again on their next use.
+     */
+    private void cacheVerifiedClaims(String cacheKey, JwtClaims claims, long now) {
+        if (verifiedCacheSize <= 0) {
+            return;
+        }
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(entry -> entry.isExpired(now));
+            int toEvict = verifiedTokens.size() - (verifiedCacheSize - Math.max(1, verifiedCacheSize / 10));
+            Iterator<String> keys = verifiedTokens.keySet().iterator();
+            while (toEvict-- > 0 && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        verifiedTokens.put(cacheKey, claims);
+    }
+
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
     }
-}
\ No newline at end of file
+}
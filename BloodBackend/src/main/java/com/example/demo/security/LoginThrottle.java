@@ -0,0 +1,92 @@
+package com.example.demo.security;
+
+import com.example.demo.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token-bucket throttling of login attempts per client IP and failed logins per account.
+ *
+ * Each key gets a bucket that holds up to {@code capacity} tokens and refills
+ * continuously at the configured rate per minute. Every attempt takes a token from its
+ * IP bucket, which limits credential stuffing across many accounts from one address.
+ * The account bucket is only charged for failed attempts, so a user who logs in often
+ * is never locked out, while guessing against one account from many addresses is still
+ * limited. Attempts that fail concurrently are all charged, putting the bucket into debt.
+ *
+ * The client IP is the address {@code RemoteIpFilter} resolves from the proxies'
+ * X-Forwarded-For header (see ForwardedHeadersConfig), not the load balancer's address.
+ */
+@Component
+public class LoginThrottle {
+
+    @Value("${security.login.accountCapacity:5}")
+    private int accountCapacity;
+
+    @Value("${security.login.accountRefillPerMinute:5}")
+    private double accountRefillPerMinute;
+
+    @Value("${security.login.ipCapacity:20}")
+    private int ipCapacity;
+
+    @Value("${security.login.ipRefillPerMinute:30}")
+    private double ipRefillPerMinute;
+
+    private final Map<String, TokenBucket> accountBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> ipBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * Try to take one login attempt for a client, and check the account has not had too
+     * many failed attempts
+     *
+     * @param clientIp The client address of the caller
+     * @param account The username being logged into
+     * @return True if the attempt may proceed
+     */
+    public boolean tryAcquire(String clientIp, String account) {
+        long now = System.nanoTime();
+        TokenBucket ipBucket = ipBuckets.computeIfAbsent(String.valueOf(clientIp),
+                k -> new TokenBucket(ipCapacity, ipRefillPerMinute / 60.0, now));
+        if (!ipBucket.tryConsume(now)) {
+            return false;
+        }
+        if (account == null || account.isBlank()) {
+            return true;
+        }
+        TokenBucket accountBucket = accountBuckets.get(accountKey(account));
+        return accountBucket == null || accountBucket.hasToken(now);
+    }
+
+    /**
+     * Charge a failed login to the account's bucket
+     *
+     * @param account The username that failed to log in
+     */
+    public void recordFailure(String account) {
+        if (account == null || account.isBlank()) {
+            return;
+        }
+        long now = System.nanoTime();
+        accountBuckets.computeIfAbsent(accountKey(account),
+                k -> new TokenBucket(accountCapacity, accountRefillPerMinute / 60.0, now)).consume(now);
+    }
+
+    /**
+     * Drop buckets that have refilled completely, so idle keys do not accumulate
+     */
+    @Scheduled(fixedRate = 60000)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        accountBuckets.values().removeIf(bucket -> bucket.isFull(now));
+        ipBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private static String accountKey(String account) {
+        return account.trim().toLowerCase(Locale.ROOT);
+    }
+}
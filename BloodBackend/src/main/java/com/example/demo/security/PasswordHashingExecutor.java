@@ -0,0 +1,112 @@
+package com.example.demo.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded thread pools for password hashing.
+ *
+ * Login verification runs here instead of on Tomcat worker threads, so a burst of logins
+ * can occupy at most {@code security.login.hashThreads} cores and queue a bounded number
+ * of attempts; anything beyond that is rejected immediately and the caller answers 503.
+ * Re-encoding legacy plaintext passwords runs on a separate single low-priority thread
+ * and is simply skipped when its queue is full, since it is retried on the next login.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor verifyPool;
+    private final ThreadPoolExecutor upgradePool;
+
+    @Autowired
+    public PasswordHashingExecutor(
+            PasswordEncoder passwordEncoder,
+            @Value("${security.login.hashThreads:0}") int hashThreads,
+            @Value("${security.login.queueCapacity:64}") int queueCapacity,
+            @Value("${security.login.upgradeQueueCapacity:256}") int upgradeQueueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        // Default to half the cores so hashing can never take the whole machine
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.verifyPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads("password-hash", Thread.NORM_PRIORITY),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.upgradePool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(upgradeQueueCapacity), namedThreads("password-upgrade", Thread.MIN_PRIORITY),
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Measure the configured cost once at startup and log the expected login throughput
+     */
+    @PostConstruct
+    public void logCalibration() {
+        String hash = passwordEncoder.encode("calibration-password");
+        int rounds = 3;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            passwordEncoder.matches("calibration-password", hash);
+        }
+        double millisPerHash = (System.nanoTime() - start) / 1_000_000.0 / rounds;
+        logger.info("Password hashing: {} ms per verification, about {} logins/s per core, {} hashing threads",
+                String.format("%.1f", millisPerHash),
+                String.format("%.1f", 1000.0 / Math.max(millisPerHash, 0.001)),
+                verifyPool.getMaximumPoolSize());
+    }
+
+    /**
+     * Run a password verification task on the hashing pool
+     *
+     * @param task The task to run
+     * @return A future for the task's result; it fails with RejectedExecutionException if the pool is saturated
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, verifyPool);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Queue a background re-encoding task; dropped silently if the queue is full
+     *
+     * @param task The task to run
+     */
+    public void submitUpgrade(Runnable task) {
+        upgradePool.execute(task);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifyPool.shutdown();
+        upgradePool.shutdown();
+    }
+
+    private static ThreadFactory namedThreads(String prefix, int priority) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.demo.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Single source of truth for which API routes are public, which need a user or admin
+ * role, and which only need an authenticated caller.
+ *
+ * Rules are compiled at startup into a path-segment trie, so resolving a request path is
+ * one walk over its segments rather than a scan of every pattern. Patterns support a
+ * literal segment, {@code *} for exactly one segment, and a trailing {@code **} for the
+ * path itself plus anything below it. When several rules match, the one declared first
+ * wins, mirroring the ordering semantics of Spring Security's request matchers. The
+ * table is used both by {@link JwtAuthenticationFilter} to skip token handling on public
+ * routes and by {@link SecurityConfig} as the authorization manager for every request.
+ * The admin controllers keep their own {@code @PreAuthorize} checks as a second line of
+ * defence, so a mistake in these rules cannot expose them.
+ */
+@Component
+public class RouteAccessTable implements AuthorizationManager<RequestAuthorizationContext> {
+
+    public enum Access {
+        PUBLIC,
+        USER_OR_ADMIN,
+        ADMIN,
+        AUTHENTICATED
+    }
+
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+    private static final String ROLE_USER = "ROLE_USER";
+
+    private final List<Access> ruleAccess = new ArrayList<>();
+    private final Node root = new Node();
+
+    public RouteAccessTable() {
+        // Public endpoints - no authentication required
+        rule("/api/auth/**", Access.PUBLIC);
+        rule("/api/public/**", Access.PUBLIC);
+        rule("/api/health/**", Access.PUBLIC);
+        rule("/api/test/**", Access.PUBLIC);
+
+        // Admin-only endpoints
+        rule("/api/admin/**", Access.ADMIN);
+        rule("/api/data/**", Access.ADMIN);
+        rule("/api/blood-donations/pending", Access.ADMIN);
+        rule("/api/blood-requests/pending", Access.ADMIN);
+        rule("/api/blood-donations/*/approve", Access.ADMIN);
+        rule("/api/blood-donations/*/reject", Access.ADMIN);
+        rule("/api/blood-donations/*/status", Access.ADMIN);
+        rule("/api/blood-requests/*/approve", Access.ADMIN);
+        rule("/api/blood-requests/*/reject", Access.ADMIN);
+        rule("/api/blood-requests/*/status", Access.ADMIN);
+        rule("/api/blood-requests/matching/**", Access.ADMIN);
+        rule("/api/blood-requests/deadlines/**", Access.ADMIN);
+        rule("/api/blood-inventory/update", Access.ADMIN);
+        rule("/api/donation-appointments/slots/capacity", Access.ADMIN);
+        rule("/api/donation-appointments/reminders/dispatch", Access.ADMIN);
+
+        // Public blood inventory endpoints (must come before authenticated ones)
+        rule("/api/blood-inventory", Access.PUBLIC);
+        rule("/api/blood-inventory/stock", Access.PUBLIC);
+
+        // User or admin can access these
+        rule("/api/donation-appointments/**", Access.USER_OR_ADMIN);
+        rule("/api/donors/**", Access.USER_OR_ADMIN);
+        rule("/api/emergency-notifications/**", Access.USER_OR_ADMIN);
+        rule("/api/blood-donations/**", Access.USER_OR_ADMIN);
+        rule("/api/hospitals/**", Access.PUBLIC);  // Allow public access to hospital list
+        rule("/api/blood-requests/**", Access.USER_OR_ADMIN);
+    }
+
+    /**
+     * Resolve the access level of a path
+     *
+     * @param path The request path, without the context path
+     * @return The access level of the first matching rule, or AUTHENTICATED if none match
+     */
+    public Access resolve(String path) {
+        int rule = match(root, path, 0);
+        return rule == NO_MATCH ? Access.AUTHENTICATED : ruleAccess.get(rule);
+    }
+
+    /**
+     * Check whether a request can be served without authentication
+     *
+     * @param request The HTTP request
+     * @return True if the request path is public
+     */
+    public boolean isPublic(HttpServletRequest request) {
+        return resolve(pathOf(request)) == Access.PUBLIC;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        Access access = resolve(pathOf(context.getRequest()));
+        if (access == Access.PUBLIC) {
+            return new AuthorizationDecision(true);
+        }
+
+        Authentication auth = authentication.get();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return new AuthorizationDecision(false);
+        }
+
+        switch (access) {
+            case ADMIN:
+                return new AuthorizationDecision(hasAnyAuthority(auth, ROLE_ADMIN, null));
+            case USER_OR_ADMIN:
+                return new AuthorizationDecision(hasAnyAuthority(auth, ROLE_ADMIN, ROLE_USER));
+            default:
+                return new AuthorizationDecision(true);
+        }
+    }
+
+    private static boolean hasAnyAuthority(Authentication auth, String first, String second) {
+        for (GrantedAuthority authority : auth.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (first.equals(name) || (second != null && second.equals(name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the path of a request within the application, i.e. without the context path
+     * the WAR is deployed under
+     *
+     * @param request The request
+     * @return The path, starting with "/"
+     */
+    public static String pathOf(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        return contextPath != null && !contextPath.isEmpty() && uri.startsWith(contextPath)
+                ? uri.substring(contextPath.length())
+                : uri;
+    }
+
+    private void rule(String pattern, Access access) {
+        int index = ruleAccess.size();
+        ruleAccess.add(access);
+
+        Node node = root;
+        String[] segments = pattern.substring(1).split("/");
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if ("**".equals(segment)) {
+                if (i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' is only supported as the last segment: " + pattern);
+                }
+                node.prefixRule = Math.min(node.prefixRule, index);
+                return;
+            }
+            if ("*".equals(segment)) {
+                if (node.wildcard == null) {
+                    node.wildcard = new Node();
+                }
+                node = node.wildcard;
+            } else {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+        }
+        node.exactRule = Math.min(node.exactRule, index);
+    }
+
+    // Returns the lowest-numbered rule matching path[pos..], exploring literal and wildcard branches
+    private static int match(Node node, String path, int pos) {
+        int best = node.prefixRule;
+        int length = path.length();
+        while (pos < length && path.charAt(pos) == '/') {
+            pos++;
+        }
+        if (pos == length) {
+            return Math.min(best, node.exactRule);
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = length;
+        }
+        if (!node.children.isEmpty()) {
+            Node child = node.children.get(path.substring(pos, end));
+            if (child != null) {
+                best = Math.min(best, match(child, path, end));
+            }
+        }
+        if (node.wildcard != null) {
+            best = Math.min(best, match(node.wildcard, path, end));
+        }
+        return best;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Node wildcard;
+        private int exactRule = NO_MATCH;
+        private int prefixRule = NO_MATCH;
+    }
+}
@@ -27,6 +27,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RouteAccessTable routeAccessTable;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -36,38 +39,8 @@ public class SecurityConfig {
                 // OPTIONS requests should be permitted for CORS preflight - MUST BE FIRST
                 .requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**").permitAll()
                 
-                // Public endpoints - no authentication required
-                .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/api/public/**").permitAll()
-                .requestMatchers("/api/health/**").permitAll()
-                .requestMatchers("/api/test/**").permitAll()
-                
-                // Admin-only endpoints
-                .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-donations/pending").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-requests/pending").hasAuthority("ROLE_ADMIN") 
-                .requestMatchers("/api/blood-donations/*/approve").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-donations/*/reject").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-donations/*/status").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-requests/*/approve").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-requests/*/reject").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-requests/*/status").hasAuthority("ROLE_ADMIN")
-                .requestMatchers("/api/blood-inventory/update").hasAuthority("ROLE_ADMIN")
-                
-                // Public blood inventory endpoints (must come before authenticated ones)
-                .requestMatchers("/api/blood-inventory").permitAll()
-                .requestMatchers("/api/blood-inventory/stock").permitAll()
-                
-                // User or admin can access donation appointments
-                .requestMatchers("/api/donation-appointments/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
-                .requestMatchers("/api/donors/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
-                .requestMatchers("/api/emergency-notifications/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
-                .requestMatchers("/api/blood-donations/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
-                .requestMatchers("/api/hospitals/**").permitAll()  // Allow public access to hospital list
-                .requestMatchers("/api/blood-requests/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_USER")
-                
-                // All other endpoints require authentication
-                .anyRequest().authenticated()
+                // Everything else is decided by the precompiled route table
+                .anyRequest().access(routeAccessTable)
             )
             .exceptionHandling(ex -> ex
                 .authenticationEntryPoint(jwtAuthenticationEntryPoint)
@@ -110,7 +83,8 @@ public class SecurityConfig {
             "Origin", 
             "Access-Control-Request-Method", 
             "Access-Control-Request-Headers",
-            "Cache-Control"
+            "Cache-Control",
+            "If-None-Match"
         ));
         
         // Expose headers to the client
@@ -119,7 +93,10 @@ public class SecurityConfig {
             "Content-Type", 
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials",
-            "Cache-Control"
+            "Cache-Control",
+            "ETag",
+            "X-Total-Count",
+            "X-Next-Cursor"
         ));
         
         // Important: maxAge determines how long the preflight response can be cached
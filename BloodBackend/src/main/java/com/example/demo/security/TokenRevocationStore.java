@@ -0,0 +1,245 @@
+package com.example.demo.security;
+
+import com.example.demo.model.RevokedToken;
+import com.example.demo.repository.RevokedTokenRepository;
+import com.example.demo.util.BloomFilter;
+import com.example.demo.util.SnapshotRestoredEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory deny list for revoked JWTs, persisted in the revoked_tokens table.
+ *
+ * The per-request check is a Bloom filter probe over revoked token IDs; only a probable
+ * hit consults the exact map of token ID to expiry, so the common case touches a few
+ * words of memory and never the database. A user-wide revocation is kept as a cut-off
+ * time: every token issued to that user at or before it is rejected. Entries are dropped
+ * once the tokens they cover expire, and the filter is rebuilt at the same time because
+ * Bloom filters cannot forget. The store is reloaded from the database on startup and
+ * polls every {@code security.revocation.pollMs} for revocations recorded through other
+ * instances. Cut-offs are compared in milliseconds against the issue time that
+ * {@link JwtUtils} puts in each token.
+ *
+ * Writes (revocations and rebuilds) are serialised on this object so a rebuild can never
+ * lose a concurrent revocation; reads take no lock.
+ */
+@Component
+public class TokenRevocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final Duration POLL_OVERLAP = Duration.ofMinutes(1);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.expirationMs:86400000}")
+    private long jwtExpirationMs;
+
+    @Value("${security.revocation.expectedTokens:100000}")
+    private int expectedTokens;
+
+    private final Map<String, Long> revokedTokenExpiry = new ConcurrentHashMap<>();
+    private final Map<String, UserCutoff> userCutoffs = new ConcurrentHashMap<>();
+    private volatile BloomFilter revokedTokenFilter;
+    private volatile long lastSeenId;
+
+    @Autowired
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    /**
+     * Rebuild the in-memory state from the revocations that are still in force
+     */
+    @PostConstruct
+    @EventListener(SnapshotRestoredEvent.class)
+    public synchronized void load() {
+        long now = System.currentTimeMillis();
+        revokedTokenExpiry.clear();
+        userCutoffs.clear();
+        lastSeenId = 0;
+        for (RevokedToken revoked : revokedTokenRepository.findByExpiresAtAfter(LocalDateTime.now())) {
+            add(revoked);
+        }
+        rebuildFilter();
+        logger.info("Loaded {} revoked tokens and {} user revocations", revokedTokenExpiry.size(), userCutoffs.size());
+        purgeExpired(now);
+    }
+
+    /**
+     * Pick up revocations recorded through other instances. Rows this instance wrote are
+     * read back too, which changes nothing.
+     */
+    @Scheduled(fixedDelayString = "${security.revocation.pollMs:5000}")
+    public void pollRevocations() {
+        LocalDateTime now = LocalDateTime.now();
+        List<RevokedToken> recent = revokedTokenRepository.findRecent(lastSeenId, now.minus(POLL_OVERLAP), now);
+        if (recent.isEmpty()) {
+            return;
+        }
+        synchronized (this) {
+            recent.forEach(this::add);
+        }
+    }
+
+    /**
+     * Check whether a verified token has been revoked
+     *
+     * @param claims The token's verified claims
+     * @return True if the token or all of its user's earlier tokens were revoked
+     */
+    public boolean isRevoked(JwtClaims claims) {
+        if (!userCutoffs.isEmpty() && claims.getUsername() != null) {
+            UserCutoff cutoff = userCutoffs.get(key(claims.getUsername()));
+            if (cutoff != null && claims.getIssuedAtMillis() <= cutoff.revokedAt) {
+                return true;
+            }
+        }
+        String tokenId = claims.getTokenId();
+        return tokenId != null
+                && revokedTokenFilter.mightContain(tokenId)
+                && revokedTokenExpiry.containsKey(tokenId);
+    }
+
+    /**
+     * Revoke a single token
+     *
+     * @param claims The token's verified claims
+     */
+    public void revoke(JwtClaims claims) {
+        long expiresAt = claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : System.currentTimeMillis() + jwtExpirationMs;
+        revokeTokenId(claims.getTokenId(), claims.getUsername(), expiresAt);
+    }
+
+    /**
+     * Revoke a token by its ID when the token itself is not available
+     *
+     * @param tokenId The jti of the token
+     * @param username The user the token was issued to
+     * @param expiresAtMillis When the token expires, in epoch milliseconds
+     */
+    public synchronized void revokeTokenId(String tokenId, String username, long expiresAtMillis) {
+        if (tokenId == null || revokedTokenExpiry.containsKey(tokenId)) {
+            return;
+        }
+        try {
+            revokedTokenRepository.saveAndFlush(new RevokedToken(tokenId, username != null ? username : "",
+                    toLocalDateTime(expiresAtMillis)));
+        } catch (DataIntegrityViolationException e) {
+            // Already revoked through another instance since the last poll
+            logger.debug("Token {} was already revoked", tokenId);
+        }
+        revokedTokenExpiry.put(tokenId, expiresAtMillis);
+        revokedTokenFilter.put(tokenId);
+    }
+
+    /**
+     * Revoke every token issued to a user up to now, e.g. after a password change or compromise
+     *
+     * @param username The user's email
+     */
+    public synchronized void revokeAllForUser(String username) {
+        long now = System.currentTimeMillis();
+        RevokedToken revoked = new RevokedToken(null, username, toLocalDateTime(now + jwtExpirationMs));
+        revoked.setRevokedAt(toLocalDateTime(now));
+        revokedTokenRepository.save(revoked);
+        userCutoffs.merge(key(username), new UserCutoff(now, now + jwtExpirationMs), UserCutoff::later);
+    }
+
+    /**
+     * Drop revocations whose tokens have expired, in memory and in the database
+     */
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    public void purgeExpiredRevocations() {
+        purgeExpired(System.currentTimeMillis());
+        revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    /**
+     * Get counts describing the current deny list
+     *
+     * @return A map of statistic name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("revokedTokens", revokedTokenExpiry.size());
+        stats.put("revokedUsers", userCutoffs.size());
+        return stats;
+    }
+
+    // Callers hold the lock
+    private void add(RevokedToken revoked) {
+        long expiresAt = toMillis(revoked.getExpiresAt());
+        if (revoked.getJti() != null) {
+            if (revokedTokenExpiry.put(revoked.getJti(), expiresAt) == null && revokedTokenFilter != null) {
+                revokedTokenFilter.put(revoked.getJti());
+            }
+        } else {
+            userCutoffs.merge(key(revoked.getUsername()),
+                    new UserCutoff(toMillis(revoked.getRevokedAt()), expiresAt), UserCutoff::later);
+        }
+        if (revoked.getId() != null) {
+            lastSeenId = Math.max(lastSeenId, revoked.getId());
+        }
+    }
+
+    private synchronized void purgeExpired(long now) {
+        boolean removedAny = revokedTokenExpiry.values().removeIf(expiresAt -> expiresAt <= now);
+        userCutoffs.values().removeIf(cutoff -> cutoff.expiresAt <= now);
+        if (removedAny) {
+            rebuildFilter();
+        }
+    }
+
+    // Callers hold the lock, so no revocation can slip in between filling and publishing the filter
+    private void rebuildFilter() {
+        BloomFilter filter = BloomFilter.create(Math.max(expectedTokens, revokedTokenExpiry.size() * 2L), FALSE_POSITIVE_RATE);
+        revokedTokenExpiry.keySet().forEach(filter::put);
+        revokedTokenFilter = filter;
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static final class UserCutoff {
+        private final long revokedAt;
+        private final long expiresAt;
+
+        private UserCutoff(long revokedAt, long expiresAt) {
+            this.revokedAt = revokedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private static UserCutoff later(UserCutoff a, UserCutoff b) {
+            return a.revokedAt >= b.revokedAt ? a : b;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.security;
+
+import com.example.demo.util.SnapshotRestoredEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Small in-memory cache of authenticated principals keyed by user ID, used when
+ * principals are loaded from the database rather than built from token claims.
+ *
+ * Entries expire after a short TTL and are dropped when UserService saves or deletes the
+ * user. Cutting off a user's outstanding tokens is not done here but by the user-wide
+ * revocation UserService records in {@link TokenRevocationStore}, which is persisted and
+ * seen by every instance. No password hashes are held in memory.
+ */
+@Component
+public class UserPrincipalCache {
+
+    @Value("${security.principalCache.ttlMs:300000}") // 5 minutes
+    private long ttlMs;
+
+    @Value("${security.principalCache.maxSize:1000}")
+    private int maxSize;
+
+    private final Map<Long, CachedPrincipal> principals = new ConcurrentHashMap<>();
+
+    /**
+     * Get the cached principal for a user
+     *
+     * @param userId The ID of the user
+     * @return An Optional containing the principal if cached and not expired
+     */
+    public Optional<UserDetails> get(Long userId) {
+        if (userId == null) {
+            return Optional.empty();
+        }
+        CachedPrincipal entry = principals.get(userId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            principals.remove(userId, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.details);
+    }
+
+    /**
+     * Cache a principal loaded from the database
+     *
+     * @param userId The ID of the user
+     * @param details The loaded user details
+     */
+    public void put(Long userId, UserDetails details) {
+        if (userId == null) {
+            return;
+        }
+        if (principals.size() >= maxSize && !principals.containsKey(userId)) {
+            makeRoom();
+        }
+        principals.put(userId, new CachedPrincipal(withoutPassword(details, details.isEnabled()),
+                System.currentTimeMillis() + ttlMs));
+    }
+
+    /**
+     * Remove a user's entry, after the user was saved or deleted
+     *
+     * @param userId The ID of the user
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            principals.remove(userId);
+        }
+    }
+
+    /**
+     * Drop every entry, after the users table was replaced by a snapshot restore
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void clear() {
+        principals.clear();
+    }
+
+    // Drop expired entries first, then arbitrary ones until there is room
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        principals.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<CachedPrincipal> entries = principals.values().iterator();
+        while (principals.size() >= maxSize && entries.hasNext()) {
+            entries.next();
+            entries.remove();
+        }
+    }
+
+    private static UserDetails withoutPassword(UserDetails details, boolean enabled) {
+        return new org.springframework.security.core.userdetails.User(
+                details.getUsername(), "", enabled, true, true, true, details.getAuthorities());
+    }
+
+    private static final class CachedPrincipal {
+        private final UserDetails details;
+        private final long expiresAt;
+
+        private CachedPrincipal(UserDetails details, long expiresAt) {
+            this.details = details;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
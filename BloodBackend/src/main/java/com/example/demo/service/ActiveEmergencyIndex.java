@@ -0,0 +1,243 @@
+package com.example.demo.service;
+
+import com.example.demo.model.EmergencyNotification;
+import com.example.demo.repository.EmergencyNotificationRepository;
+import com.example.demo.util.SnapshotRestoredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory index of the active emergency notifications, which donor clients poll.
+ *
+ * The index is an immutable snapshot (all active notifications, and the same partitioned
+ * by blood type, each ordered by expiry) that is replaced on every change, so reads take
+ * no lock and never touch the database. It is loaded on startup and kept current by
+ * {@link EmergencyNotificationService} writes and by {@link EmergencyExpiryScheduler}.
+ * Writes made through other instances are picked up by a cheap periodic check of the
+ * latest update time and the active count, every {@code emergency.index.checkMs}; the
+ * index is reloaded only when either differs from what it last saw.
+ *
+ * The ETag handed to clients is a digest of the listed notifications (ID, status, expiry
+ * and last update), so every instance gives the same ETag for the same content and a
+ * restart does not invalidate clients' copies. Because a notification can pass its expiry
+ * a moment before the scheduler removes it, reads also skip expired entries, and the
+ * number skipped goes into the ETag too.
+ */
+@Component
+public class ActiveEmergencyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveEmergencyIndex.class);
+    private static final Comparator<EmergencyNotification> BY_EXPIRY =
+            Comparator.comparing(EmergencyNotification::getExpiryDate).thenComparing(EmergencyNotification::getId);
+
+    private final EmergencyNotificationRepository notificationRepository;
+    private final Map<Long, EmergencyNotification> activeById = new HashMap<>();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), digest(List.of()), Map.of(), Map.of());
+
+    // What the database looked like at the last load, for the periodic change check
+    private LocalDateTime loadedLatestUpdate;
+    private long loadedActiveCount = -1;
+
+    @Autowired
+    public ActiveEmergencyIndex(EmergencyNotificationRepository notificationRepository) {
+        this.notificationRepository = notificationRepository;
+    }
+
+    /**
+     * Load the notifications that are active now, on startup and after a snapshot restore
+     */
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public synchronized void load() {
+        // Read the latest update first, so a write landing during the load is seen next check
+        loadedLatestUpdate = notificationRepository.findLatestUpdate();
+        List<EmergencyNotification> active = notificationRepository.findActiveNotifications(LocalDateTime.now());
+        activeById.clear();
+        for (EmergencyNotification notification : active) {
+            activeById.put(notification.getId(), notification);
+        }
+        loadedActiveCount = active.size();
+        publish();
+        logger.info("Indexed {} active emergency notifications", activeById.size());
+    }
+
+    /**
+     * Reload if notifications were written through another instance, or have expired,
+     * since the last load
+     */
+    @Scheduled(fixedDelayString = "${emergency.index.checkMs:15000}")
+    public void checkForChanges() {
+        LocalDateTime latestUpdate = notificationRepository.findLatestUpdate();
+        long activeCount = notificationRepository.countActiveNotifications(LocalDateTime.now());
+        synchronized (this) {
+            if (Objects.equals(latestUpdate, loadedLatestUpdate) && activeCount == loadedActiveCount) {
+                return;
+            }
+        }
+        load();
+    }
+
+    /**
+     * Record a saved notification, adding or removing it depending on its status and expiry
+     *
+     * @param notification The notification as saved
+     */
+    public synchronized void update(EmergencyNotification notification) {
+        if (notification.getId() == null) {
+            return;
+        }
+        boolean changed;
+        if (isActive(notification, LocalDateTime.now())) {
+            activeById.put(notification.getId(), notification);
+            changed = true;
+        } else {
+            changed = activeById.remove(notification.getId()) != null;
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    /**
+     * Remove notifications that were deleted, fulfilled or expired
+     *
+     * @param ids The IDs of the notifications
+     */
+    public synchronized void remove(Collection<Long> ids) {
+        boolean changed = false;
+        for (Long id : ids) {
+            changed |= activeById.remove(id) != null;
+        }
+        if (changed) {
+            publish();
+        }
+    }
+
+    /**
+     * Remove every notification whose expiry has passed
+     *
+     * @param now The current time
+     */
+    public synchronized void removeExpired(LocalDateTime now) {
+        if (activeById.values().removeIf(notification -> !notification.getExpiryDate().isAfter(now))) {
+            publish();
+        }
+    }
+
+    /**
+     * Get the active notifications, optionally for one blood type
+     *
+     * @param bloodType The blood type, or null for all active notifications
+     * @return The notifications ordered by expiry together with an ETag for them
+     */
+    public Listing getActive(String bloodType) {
+        Snapshot current = snapshot;
+        List<EmergencyNotification> candidates = bloodType == null
+                ? current.all
+                : current.byBloodType.getOrDefault(key(bloodType), List.of());
+
+        LocalDateTime now = LocalDateTime.now();
+        int skipped = 0;
+        while (skipped < candidates.size() && !candidates.get(skipped).getExpiryDate().isAfter(now)) {
+            skipped++;
+        }
+        List<EmergencyNotification> notifications = skipped == 0 ? candidates : candidates.subList(skipped, candidates.size());
+        String digest = bloodType == null
+                ? current.allDigest
+                : current.digestByBloodType.getOrDefault(key(bloodType), Snapshot.EMPTY_DIGEST);
+        String etag = "\"" + digest + "-" + skipped + "\"";
+        return new Listing(etag, notifications);
+    }
+
+    private void publish() {
+        List<EmergencyNotification> all = new ArrayList<>(activeById.values());
+        all.sort(BY_EXPIRY);
+        Map<String, List<EmergencyNotification>> byBloodType = new HashMap<>();
+        for (EmergencyNotification notification : all) {
+            if (notification.getBloodType() != null) {
+                byBloodType.computeIfAbsent(key(notification.getBloodType()), k -> new ArrayList<>()).add(notification);
+            }
+        }
+        byBloodType.replaceAll((bloodType, notifications) -> Collections.unmodifiableList(notifications));
+        Map<String, String> digestByBloodType = new HashMap<>();
+        byBloodType.forEach((bloodType, notifications) -> digestByBloodType.put(bloodType, digest(notifications)));
+        snapshot = new Snapshot(Collections.unmodifiableList(all), digest(all), byBloodType, digestByBloodType);
+    }
+
+    private static String digest(List<EmergencyNotification> notifications) {
+        StringBuilder content = new StringBuilder();
+        for (EmergencyNotification notification : notifications) {
+            content.append(notification.getId()).append(',')
+                    .append(notification.getStatus()).append(',')
+                    .append(notification.getExpiryDate()).append(',')
+                    .append(notification.getUpdatedAt()).append(';');
+        }
+        return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Matches the database query: active and with an expiry still in the future
+    private static boolean isActive(EmergencyNotification notification, LocalDateTime now) {
+        return "ACTIVE".equals(notification.getStatus())
+                && notification.getExpiryDate() != null
+                && notification.getExpiryDate().isAfter(now);
+    }
+
+    private static String key(String bloodType) {
+        return bloodType.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Active notifications as of one snapshot, with the ETag identifying them
+     */
+    public static final class Listing {
+        private final String etag;
+        private final List<EmergencyNotification> notifications;
+
+        private Listing(String etag, List<EmergencyNotification> notifications) {
+            this.etag = etag;
+            this.notifications = notifications;
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        public List<EmergencyNotification> getNotifications() {
+            return notifications;
+        }
+    }
+
+    private static final class Snapshot {
+        private static final String EMPTY_DIGEST = digest(List.of());
+
+        private final List<EmergencyNotification> all;
+        private final String allDigest;
+        private final Map<String, List<EmergencyNotification>> byBloodType;
+        private final Map<String, String> digestByBloodType;
+
+        private Snapshot(List<EmergencyNotification> all, String allDigest,
+                         Map<String, List<EmergencyNotification>> byBloodType, Map<String, String> digestByBloodType) {
+            this.all = all;
+            this.allDigest = allDigest;
+            this.byBloodType = byBloodType;
+            this.digestByBloodType = digestByBloodType;
+        }
+    }
+}
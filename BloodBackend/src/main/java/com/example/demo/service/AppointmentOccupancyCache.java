@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CalendarDay;
+import com.example.demo.repository.DonationAppointmentRepository;
+import com.example.demo.util.SnapshotRestoredEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-day, per-location appointment counts for calendar views.
+ *
+ * Counts cover every appointment that is not cancelled, from
+ * {@code appointments.calendar.pastDays} ago onwards. They are built once on startup from
+ * a date/location projection and then adjusted by {@link DonationAppointmentService} on
+ * every booking, change, cancellation and delete, so a calendar month is served without
+ * a query. Writes made through other instances or directly in the database are corrected
+ * by a recount of the window every {@code appointments.calendar.syncMs}. Ranges that
+ * start before the cached window are counted from the database.
+ */
+@Component
+public class AppointmentOccupancyCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentOccupancyCache.class);
+    private static final String NO_LOCATION = "Unspecified";
+    private static final LocalDateTime END_OF_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final DonationAppointmentRepository appointmentRepository;
+    private final Map<LocalDate, Map<String, Integer>> days = new ConcurrentHashMap<>();
+    private volatile LocalDate windowStart;
+
+    @Value("${appointments.calendar.pastDays:90}")
+    private int pastDays;
+
+    @Autowired
+    public AppointmentOccupancyCache(DonationAppointmentRepository appointmentRepository) {
+        this.appointmentRepository = appointmentRepository;
+    }
+
+    /**
+     * Count the appointments in the cached window, before requests are accepted
+     */
+    @PostConstruct
+    @EventListener(SnapshotRestoredEvent.class)
+    public void load() {
+        windowStart = LocalDate.now().minusDays(pastDays);
+        List<Object[]> rows = appointmentRepository.findCalendarEntries(windowStart.atStartOfDay(), END_OF_TIME);
+        days.clear();
+        for (Object[] row : rows) {
+            add((LocalDateTime) row[0], (String) row[1]);
+        }
+        logger.info("Counted {} appointments over {} calendar days", rows.size(), days.size());
+    }
+
+    /**
+     * Recount the cached window from the database and replace the days whose counts
+     * drifted, e.g. through bookings made on another instance
+     */
+    @Scheduled(fixedDelayString = "${appointments.calendar.syncMs:300000}", initialDelayString = "${appointments.calendar.syncMs:300000}")
+    public void sync() {
+        LocalDate start = windowStart;
+        Map<LocalDate, Map<String, Integer>> counted = count(
+                appointmentRepository.findCalendarEntries(start.atStartOfDay(), END_OF_TIME));
+        int corrected = 0;
+        for (Map.Entry<LocalDate, Map<String, Integer>> day : counted.entrySet()) {
+            Map<String, Integer> cached = days.get(day.getKey());
+            if (cached == null || !cached.equals(day.getValue())) {
+                days.put(day.getKey(), new ConcurrentHashMap<>(day.getValue()));
+                corrected++;
+            }
+        }
+        for (Map.Entry<LocalDate, Map<String, Integer>> day : days.entrySet()) {
+            if (!day.getKey().isBefore(start) && !counted.containsKey(day.getKey()) && !day.getValue().isEmpty()) {
+                days.remove(day.getKey());
+                corrected++;
+            }
+        }
+        if (corrected > 0) {
+            logger.info("Corrected the appointment counts of {} calendar days", corrected);
+        }
+    }
+
+    /**
+     * Drop days that have fallen out of the window
+     */
+    @Scheduled(cron = "0 10 0 * * *") // Run daily just after midnight
+    public void advanceWindow() {
+        LocalDate start = LocalDate.now().minusDays(pastDays);
+        windowStart = start;
+        days.keySet().removeIf(date -> date.isBefore(start));
+    }
+
+    /**
+     * Count an appointment
+     *
+     * @param time The appointment time
+     * @param location The appointment location
+     */
+    public void add(LocalDateTime time, String location) {
+        LocalDate date = time.toLocalDate();
+        if (!date.isBefore(windowStart)) {
+            days.computeIfAbsent(date, d -> new ConcurrentHashMap<>()).merge(label(location), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Stop counting an appointment
+     *
+     * @param time The appointment time
+     * @param location The appointment location
+     */
+    public void remove(LocalDateTime time, String location) {
+        Map<String, Integer> counts = days.get(time.toLocalDate());
+        if (counts != null) {
+            counts.computeIfPresent(label(location), (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Get the appointment counts of every day in a range that has appointments
+     *
+     * @param from The first day
+     * @param to The last day, inclusive
+     * @return One entry per day with appointments, in date order
+     */
+    public List<CalendarDay> getCalendar(LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<String, Integer>> source;
+        if (from.isBefore(windowStart)) {
+            source = count(appointmentRepository.findCalendarEntries(from.atStartOfDay(), to.plusDays(1).atStartOfDay()));
+        } else {
+            source = days;
+        }
+        List<CalendarDay> calendar = new ArrayList<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            Map<String, Integer> counts = source.get(date);
+            if (counts == null || counts.isEmpty()) {
+                continue;
+            }
+            Map<String, Integer> byLocation = new TreeMap<>(counts);
+            int total = byLocation.values().stream().mapToInt(Integer::intValue).sum();
+            calendar.add(new CalendarDay(date, total, byLocation));
+        }
+        return calendar;
+    }
+
+    private static Map<LocalDate, Map<String, Integer>> count(List<Object[]> rows) {
+        Map<LocalDate, Map<String, Integer>> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.computeIfAbsent(((LocalDateTime) row[0]).toLocalDate(), d -> new HashMap<>())
+                    .merge(label((String) row[1]), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static String label(String location) {
+        return location == null || location.isBlank() ? NO_LOCATION : location.trim();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AvailableSlot;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface AppointmentSlotService {
+
+    /**
+     * Take a place in the slot containing the given time, unless the slot is full
+     *
+     * @param location The donation location
+     * @param time The appointment time
+     * @return True if a place was taken (or the appointment has no location), false if the slot is full
+     */
+    boolean tryReserve(String location, LocalDateTime time);
+
+    /**
+     * Take a place in the slot containing the given time even if the slot is full,
+     * for administrative changes and imports
+     *
+     * @param location The donation location
+     * @param time The appointment time
+     */
+    void reserve(String location, LocalDateTime time);
+
+    /**
+     * Give back a place in the slot containing the given time
+     *
+     * @param location The donation location
+     * @param time The appointment time
+     */
+    void release(String location, LocalDateTime time);
+
+    /**
+     * Check whether two appointment times at two locations fall in the same slot
+     *
+     * @return True if both locations and times map to the same slot
+     */
+    boolean isSameSlot(String location1, LocalDateTime time1, String location2, LocalDateTime time2);
+
+    /**
+     * List the slots of a location that still have room, from now until the end of the
+     * given number of days
+     *
+     * @param location The donation location
+     * @param days The number of days to look ahead, including today
+     * @return The open slots in time order
+     */
+    List<AvailableSlot> getAvailableSlots(String location, int days);
+
+    /**
+     * Set the capacity of one slot of a location
+     *
+     * @param location The donation location
+     * @param slotStart A time within the slot
+     * @param capacity The number of donors the slot can take
+     * @return The slot after the change
+     */
+    AvailableSlot setCapacity(String location, LocalDateTime slotStart, int capacity);
+
+    /**
+     * Get booking counters
+     *
+     * @return A map of statistic name to value
+     */
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,284 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AvailableSlot;
+import com.example.demo.model.AppointmentSlot;
+import com.example.demo.repository.AppointmentSlotRepository;
+import com.example.demo.repository.DonationAppointmentRepository;
+import com.example.demo.util.SnapshotRestoredEvent;
+import com.example.demo.util.TrigramIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-location, per-slot booking capacity for donation appointments.
+ *
+ * Every future slot that has a row is held in memory as an atomic counter. A booking
+ * first takes a place from the counter with compare-and-set, so a full slot is refused
+ * without touching the database, then confirms it with a conditional
+ * {@code UPDATE ... WHERE booked < capacity}. The database row stays the authority: if
+ * the update finds the slot full (another instance booked it) the counter is corrected
+ * from the row and the booking is refused. Counters are re-read from the database every
+ * {@code appointments.slotSyncMs}, which also drops slots that have passed.
+ *
+ * Slots are {@code appointments.slotMinutes} long, aligned to midnight, and offered
+ * between {@code appointments.openingHour} and {@code appointments.closingHour}. A slot
+ * row is created on first booking with {@code appointments.slotCapacity} places and the
+ * number of appointments already scheduled in it.
+ */
+@Service
+public class AppointmentSlotServiceImpl implements AppointmentSlotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentSlotServiceImpl.class);
+    private static final int MAX_KEY_LENGTH = 191;
+
+    private final AppointmentSlotRepository slotRepository;
+    private final DonationAppointmentRepository appointmentRepository;
+    private final Map<String, SlotCounter> counters = new ConcurrentHashMap<>();
+
+    @Value("${appointments.slotMinutes:30}")
+    private int slotMinutes;
+
+    @Value("${appointments.slotCapacity:6}")
+    private int defaultCapacity;
+
+    @Value("${appointments.openingHour:9}")
+    private int openingHour;
+
+    @Value("${appointments.closingHour:17}")
+    private int closingHour;
+
+    @Value("${appointments.maxAvailabilityDays:60}")
+    private int maxAvailabilityDays;
+
+    private final AtomicLong bookings = new AtomicLong();
+    private final AtomicLong rejectedInMemory = new AtomicLong();
+    private final AtomicLong rejectedByDatabase = new AtomicLong();
+    private final AtomicLong releases = new AtomicLong();
+
+    @Autowired
+    public AppointmentSlotServiceImpl(AppointmentSlotRepository slotRepository,
+                                      DonationAppointmentRepository appointmentRepository) {
+        this.slotRepository = slotRepository;
+        this.appointmentRepository = appointmentRepository;
+    }
+
+    /**
+     * Load the counters of every slot from the start of today onwards, before requests
+     * are accepted, and again after a snapshot restore replaced them
+     */
+    @PostConstruct
+    @EventListener(SnapshotRestoredEvent.class)
+    public void load() {
+        counters.clear();
+        sync();
+        logger.info("Loaded {} appointment slots", counters.size());
+    }
+
+    /**
+     * Re-read slot counters from the database and drop slots that have ended
+     */
+    @Scheduled(fixedDelayString = "${appointments.slotSyncMs:60000}")
+    public void sync() {
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        List<AppointmentSlot> slots = slotRepository.findBySlotStartGreaterThanEqual(from);
+        for (AppointmentSlot slot : slots) {
+            SlotCounter counter = counters.computeIfAbsent(key(slot.getLocationKey(), slot.getSlotStart()), k -> new SlotCounter(slot));
+            counter.capacity = slot.getCapacity();
+            counter.booked.set(slot.getBooked());
+        }
+        counters.values().removeIf(counter -> counter.slotStart.isBefore(from));
+    }
+
+    @Override
+    public boolean tryReserve(String location, LocalDateTime time) {
+        String locationKey = locationKey(location);
+        if (locationKey.isEmpty() || time == null) {
+            return true;
+        }
+        SlotCounter counter = counter(locationKey, location, slotStart(time));
+        if (!counter.tryAcquire()) {
+            rejectedInMemory.incrementAndGet();
+            return false;
+        }
+        int updated;
+        try {
+            updated = slotRepository.bookIfAvailable(counter.id);
+        } catch (RuntimeException e) {
+            counter.release();
+            throw e;
+        }
+        if (updated == 0) {
+            // Booked through another instance since the last sync; trust the row
+            slotRepository.findBookedById(counter.id).ifPresent(counter.booked::set);
+            rejectedByDatabase.incrementAndGet();
+            return false;
+        }
+        bookings.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public void reserve(String location, LocalDateTime time) {
+        String locationKey = locationKey(location);
+        if (locationKey.isEmpty() || time == null) {
+            return;
+        }
+        SlotCounter counter = counter(locationKey, location, slotStart(time));
+        slotRepository.book(counter.id);
+        counter.booked.incrementAndGet();
+        bookings.incrementAndGet();
+    }
+
+    @Override
+    public void release(String location, LocalDateTime time) {
+        String locationKey = locationKey(location);
+        if (locationKey.isEmpty() || time == null) {
+            return;
+        }
+        SlotCounter counter = counter(locationKey, location, slotStart(time));
+        if (slotRepository.release(counter.id) > 0) {
+            counter.release();
+            releases.incrementAndGet();
+        }
+    }
+
+    @Override
+    public boolean isSameSlot(String location1, LocalDateTime time1, String location2, LocalDateTime time2) {
+        return locationKey(location1).equals(locationKey(location2))
+                && slotStart(time1).equals(slotStart(time2));
+    }
+
+    @Override
+    public List<AvailableSlot> getAvailableSlots(String location, int days) {
+        String locationKey = locationKey(location);
+        List<AvailableSlot> available = new ArrayList<>();
+        if (locationKey.isEmpty()) {
+            return available;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        int span = Math.max(1, Math.min(days, maxAvailabilityDays));
+        for (int day = 0; day < span; day++) {
+            LocalDateTime start = today.plusDays(day).atTime(openingHour, 0);
+            LocalDateTime close = today.plusDays(day).atStartOfDay().plusHours(closingHour);
+            for (; !start.plusMinutes(slotMinutes).isAfter(close); start = start.plusMinutes(slotMinutes)) {
+                if (start.isBefore(now)) {
+                    continue;
+                }
+                SlotCounter counter = counters.get(key(locationKey, start));
+                int capacity = counter != null ? counter.capacity : defaultCapacity;
+                int booked = counter != null ? counter.booked.get() : 0;
+                if (booked < capacity) {
+                    available.add(new AvailableSlot(location, start, start.plusMinutes(slotMinutes), capacity, booked));
+                }
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public AvailableSlot setCapacity(String location, LocalDateTime slotStart, int capacity) {
+        String locationKey = locationKey(location);
+        LocalDateTime start = slotStart(slotStart);
+        SlotCounter counter = counter(locationKey, location, start);
+        slotRepository.updateCapacity(counter.id, capacity);
+        counter.capacity = capacity;
+        return new AvailableSlot(location, start, start.plusMinutes(slotMinutes), capacity, counter.booked.get());
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("slotsInMemory", counters.size());
+        stats.put("bookings", bookings.get());
+        stats.put("rejectedInMemory", rejectedInMemory.get());
+        stats.put("rejectedByDatabase", rejectedByDatabase.get());
+        stats.put("releases", releases.get());
+        return stats;
+    }
+
+    private SlotCounter counter(String locationKey, String location, LocalDateTime slotStart) {
+        String key = key(locationKey, slotStart);
+        SlotCounter counter = counters.get(key);
+        if (counter != null) {
+            return counter;
+        }
+        AppointmentSlot slot = slotRepository.findByLocationKeyAndSlotStart(locationKey, slotStart)
+                .orElseGet(() -> createSlot(locationKey, location, slotStart));
+        SlotCounter loaded = new SlotCounter(slot);
+        SlotCounter existing = counters.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private AppointmentSlot createSlot(String locationKey, String location, LocalDateTime slotStart) {
+        int alreadyBooked = (int) appointmentRepository.countScheduledAtLocation(location, slotStart, slotStart.plusMinutes(slotMinutes));
+        try {
+            return slotRepository.saveAndFlush(new AppointmentSlot(locationKey, location, slotStart, defaultCapacity, alreadyBooked));
+        } catch (DataIntegrityViolationException e) {
+            // Another booking created the row first
+            return slotRepository.findByLocationKeyAndSlotStart(locationKey, slotStart).orElseThrow(() -> e);
+        }
+    }
+
+    private LocalDateTime slotStart(LocalDateTime time) {
+        int minuteOfDay = time.getHour() * 60 + time.getMinute();
+        return time.toLocalDate().atStartOfDay().plusMinutes((long) (minuteOfDay / slotMinutes) * slotMinutes);
+    }
+
+    // Same normalisation as location search, cut to the column length
+    private static String locationKey(String location) {
+        String normalized = TrigramIndex.normalize(location);
+        return normalized.length() > MAX_KEY_LENGTH ? normalized.substring(0, MAX_KEY_LENGTH) : normalized;
+    }
+
+    private static String key(String locationKey, LocalDateTime slotStart) {
+        return locationKey + '|' + slotStart;
+    }
+
+    private static final class SlotCounter {
+        private final Long id;
+        private final LocalDateTime slotStart;
+        private final AtomicInteger booked;
+        private volatile int capacity;
+
+        private SlotCounter(AppointmentSlot slot) {
+            this.id = slot.getId();
+            this.slotStart = slot.getSlotStart();
+            this.booked = new AtomicInteger(slot.getBooked());
+            this.capacity = slot.getCapacity();
+        }
+
+        private boolean tryAcquire() {
+            while (true) {
+                int current = booked.get();
+                if (current >= capacity) {
+                    return false;
+                }
+                if (booked.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            booked.updateAndGet(current -> Math.max(0, current - 1));
+        }
+    }
+}
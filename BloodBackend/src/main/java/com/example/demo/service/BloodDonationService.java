@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.DonationSummary;
 import com.example.demo.model.BloodDonation;
 import com.example.demo.model.Donor;
+import com.example.demo.util.CursorPage;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,13 +34,28 @@ public interface BloodDonationService {
      */
     List<BloodDonation> getAllBloodDonations();
     
+    /**
+     * Get one page of blood donations, most recent first, filtered on the given values; null filters are ignored
+     * 
+     * @param status Only donations with this status
+     * @param bloodGroup Only donations of this blood group
+     * @param donorId Only donations by this donor
+     * @param from Only donations made at or after this time
+     * @param to Only donations made before this time
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<DonationSummary>> listBloodDonations(String status, String bloodGroup, Long donorId,
+            LocalDateTime from, LocalDateTime to, String cursor, int limit);
+    
     /**
      * Get blood donations by donor ID
      * 
      * @param donorId The donor ID to search for
-     * @return A list of blood donations from the given donor
+     * @return Summaries of the blood donations from the given donor
      */
-    List<BloodDonation> getBloodDonationsByDonorId(Long donorId);
+    List<DonationSummary> getBloodDonationsByDonorId(Long donorId);
     
     /**
      * Get blood donations by blood group
@@ -1,10 +1,14 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.DonationSummary;
 import com.example.demo.model.BloodDonation;
 import com.example.demo.model.BloodInventory;
 import com.example.demo.model.Donor;
 import com.example.demo.repository.BloodDonationRepository;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -49,10 +53,22 @@ public class BloodDonationServiceImpl implements BloodDonationService {
     public List<BloodDonation> getAllBloodDonations() {
         return bloodDonationRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<DonationSummary>> listBloodDonations(String status, String bloodGroup, Long donorId,
+            LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        Specification<BloodDonation> filter = Specification.where(KeysetPager.<BloodDonation>equal("donationStatus", status))
+                .and(KeysetPager.<BloodDonation>equal("bloodGroup", bloodGroup))
+                .and(KeysetPager.<BloodDonation>equal("donor.id", donorId))
+                .and(KeysetPager.<BloodDonation>inRange("donationDate", from, to));
+        return KeysetPager.fetch(bloodDonationRepository, filter,
+                KeysetPager.Order.byTime("donationDate", BloodDonation::getDonationDate, BloodDonation::getId, true),
+                cursor, limit, "donor").map(page -> page.map(DonationSummary::from));
+    }
 
     @Override
-    public List<BloodDonation> getBloodDonationsByDonorId(Long donorId) {
-        return bloodDonationRepository.findByDonorId(donorId);
+    public List<DonationSummary> getBloodDonationsByDonorId(Long donorId) {
+        return bloodDonationRepository.findSummariesByDonorId(donorId);
     }
 
     @Override
@@ -80,8 +96,9 @@ public class BloodDonationServiceImpl implements BloodDonationService {
         // Save the donation
         BloodDonation savedDonation = saveBloodDonation(donation);
         
-        // Update the donor's last donation date
-        donor.setLastDonation(LocalDateTime.now());
+        // Update the donor's last donation date; saving also moves next_eligible_at on by the
+        // deferral interval, taking the donor out of eligibility queries until then
+        donor.setLastDonation(savedDonation.getDonationDate());
         donorService.saveDonor(donor);
         
         // If the donation is healthy, add it to inventory
@@ -107,8 +124,7 @@ public class BloodDonationServiceImpl implements BloodDonationService {
 
     @Override
     public Optional<BloodDonation> getLatestDonationByDonorId(Long donorId) {
-        List<BloodDonation> donations = bloodDonationRepository.findLatestDonationByDonorId(donorId);
-        return donations.isEmpty() ? Optional.empty() : Optional.of(donations.get(0));
+        return bloodDonationRepository.findFirstByDonorIdOrderByDonationDateDescIdDesc(donorId);
     }
 
     @Override
@@ -1,7 +1,9 @@
 package com.example.demo.service;
 
 import com.example.demo.model.BloodInventory;
+import com.example.demo.util.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -31,6 +33,20 @@ public interface BloodInventoryService {
      */
     List<BloodInventory> getAllBloodInventory();
     
+    /**
+     * Get one page of blood inventory items, filtered on the given values; null filters are ignored
+     * 
+     * @param status Only items with this status
+     * @param bloodGroup Only items of this blood group
+     * @param hospitalId Only items held by this hospital
+     * @param expiringBefore Only items expiring before this time
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<BloodInventory>> listBloodInventory(String status, String bloodGroup, Long hospitalId,
+            LocalDateTime expiringBefore, String cursor, int limit);
+    
     /**
      * Get blood inventory items by blood group
      * 
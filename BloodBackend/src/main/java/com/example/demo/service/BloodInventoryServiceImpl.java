@@ -2,7 +2,12 @@ package com.example.demo.service;
 
 import com.example.demo.model.BloodInventory;
 import com.example.demo.repository.BloodInventoryRepository;
+import com.example.demo.util.BloodCompatibility;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,12 +22,15 @@ import java.util.stream.Collectors;
 public class BloodInventoryServiceImpl implements BloodInventoryService {
 
     private final BloodInventoryRepository bloodInventoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     private static final String[] BLOOD_GROUPS = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
 
     @Autowired
-    public BloodInventoryServiceImpl(BloodInventoryRepository bloodInventoryRepository) {
+    public BloodInventoryServiceImpl(BloodInventoryRepository bloodInventoryRepository,
+                                     ApplicationEventPublisher eventPublisher) {
         this.bloodInventoryRepository = bloodInventoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -34,7 +42,9 @@ public class BloodInventoryServiceImpl implements BloodInventoryService {
         bloodInventory.setUpdatedAt(LocalDateTime.now());
         bloodInventory.setLastUpdated(LocalDateTime.now());
         
-        return bloodInventoryRepository.save(bloodInventory);
+        BloodInventory savedInventory = bloodInventoryRepository.save(bloodInventory);
+        publishIfAvailable(savedInventory);
+        return savedInventory;
     }
 
     @Override
@@ -46,6 +56,17 @@ public class BloodInventoryServiceImpl implements BloodInventoryService {
     public List<BloodInventory> getAllBloodInventory() {
         return bloodInventoryRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<BloodInventory>> listBloodInventory(String status, String bloodGroup,
+            Long hospitalId, LocalDateTime expiringBefore, String cursor, int limit) {
+        Specification<BloodInventory> filter = Specification.where(KeysetPager.<BloodInventory>equal("status", status))
+                .and(KeysetPager.<BloodInventory>equal("bloodGroup", bloodGroup))
+                .and(KeysetPager.<BloodInventory>equal("hospitalId", hospitalId))
+                .and(KeysetPager.<BloodInventory>inRange("expiryDate", null, expiringBefore));
+        return KeysetPager.fetch(bloodInventoryRepository, filter,
+                KeysetPager.Order.byId(BloodInventory::getId, false), cursor, limit);
+    }
 
     @Override
     public List<BloodInventory> getBloodInventoryByBloodGroup(String bloodGroup) {
@@ -72,12 +93,21 @@ public class BloodInventoryServiceImpl implements BloodInventoryService {
             inventory.setStatus(status);
             inventory.setLastUpdated(LocalDateTime.now());
             inventory.setUpdatedAt(LocalDateTime.now());
-            return Optional.of(bloodInventoryRepository.save(inventory));
+            BloodInventory savedInventory = bloodInventoryRepository.save(inventory);
+            publishIfAvailable(savedInventory);
+            return Optional.of(savedInventory);
         }
         
         return Optional.empty();
     }
 
+    // Lets waiting blood requests be matched against the new stock
+    private void publishIfAvailable(BloodInventory inventory) {
+        if ("AVAILABLE".equals(inventory.getStatus()) && inventory.getUnits() != null && inventory.getUnits() > 0) {
+            eventPublisher.publishEvent(new BloodStockAvailableEvent(inventory.getBloodGroup(), inventory.getUnits()));
+        }
+    }
+
     @Override
     public void deleteBloodInventory(Long id) {
         bloodInventoryRepository.deleteById(id);
@@ -88,8 +118,10 @@ public class BloodInventoryServiceImpl implements BloodInventoryService {
         Map<String, Integer> bloodStock = new HashMap<>();
         
         for (String bloodGroup : BLOOD_GROUPS) {
-            Integer units = bloodInventoryRepository.getTotalUnitsByBloodGroupAndStatus(bloodGroup, "AVAILABLE");
-            bloodStock.put(bloodGroup, units != null ? units : 0);
+            bloodStock.put(bloodGroup, 0);
+        }
+        for (Object[] row : bloodInventoryRepository.getTotalUnitsGroupedByBloodGroup("AVAILABLE")) {
+            bloodStock.put((String) row[0], ((Number) row[1]).intValue());
         }
         
         return bloodStock;
@@ -98,16 +130,16 @@ public class BloodInventoryServiceImpl implements BloodInventoryService {
     @Override
     @Transactional
     public boolean allocateBlood(String bloodGroup, int units) {
-        // Check if we have enough units available
-        Integer availableUnits = bloodInventoryRepository.getTotalUnitsByBloodGroupAndStatus(bloodGroup, "AVAILABLE");
+        // Lock the available items for the blood group, so a concurrent allocation waits
+        // and then sees what is left rather than reserving the same units
+        List<BloodInventory> inventoryItems = bloodInventoryRepository.lockByBloodGroupAndStatus(bloodGroup, "AVAILABLE");
         
-        if (availableUnits == null || availableUnits < units) {
+        // Check if we have enough units available
+        int availableUnits = inventoryItems.stream().mapToInt(item -> item.getUnits() != null ? item.getUnits() : 0).sum();
+        if (availableUnits < units) {
             return false;
         }
         
-        // Get available blood inventory items for the blood group
-        List<BloodInventory> inventoryItems = bloodInventoryRepository.findByBloodGroupAndStatus(bloodGroup, "AVAILABLE");
-        
         int remainingUnits = units;
         
         // Allocate from the inventory items
@@ -236,36 +268,7 @@ public class BloodInventoryServiceImpl implements BloodInventoryService {
      */
     @Override
     public boolean isCompatible(String recipientBloodGroup, String donorBloodGroup) {
-        // Blood compatibility chart
-        Map<String, List<String>> compatibilityChart = new HashMap<>();
-        
-        // O- can donate to anyone
-        compatibilityChart.put("O-", List.of("O+", "O-", "A+", "A-", "B+", "B-", "AB+", "AB-"));
-        
-        // O+ can donate to O+, A+, B+, AB+
-        compatibilityChart.put("O+", List.of("O+", "A+", "B+", "AB+"));
-        
-        // A- can donate to A+, A-, AB+, AB-
-        compatibilityChart.put("A-", List.of("A+", "A-", "AB+", "AB-"));
-        
-        // A+ can donate to A+, AB+
-        compatibilityChart.put("A+", List.of("A+", "AB+"));
-        
-        // B- can donate to B+, B-, AB+, AB-
-        compatibilityChart.put("B-", List.of("B+", "B-", "AB+", "AB-"));
-        
-        // B+ can donate to B+, AB+
-        compatibilityChart.put("B+", List.of("B+", "AB+"));
-        
-        // AB- can donate to AB+, AB-
-        compatibilityChart.put("AB-", List.of("AB+", "AB-"));
-        
-        // AB+ can donate only to AB+
-        compatibilityChart.put("AB+", List.of("AB+"));
-        
-        // Check compatibility
-        List<String> compatibleRecipients = compatibilityChart.get(donorBloodGroup);
-        return compatibleRecipients != null && compatibleRecipients.contains(recipientBloodGroup);
+        return BloodCompatibility.isCompatible(recipientBloodGroup, donorBloodGroup);
     }
     
     /**
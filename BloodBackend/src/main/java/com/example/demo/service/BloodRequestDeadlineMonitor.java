@@ -0,0 +1,453 @@
+package com.example.demo.service;
+
+import com.example.demo.model.BloodRequest;
+import com.example.demo.model.EmergencyNotification;
+import com.example.demo.repository.BloodRequestRepository;
+import com.example.demo.util.SnapshotRestoredEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escalates open blood requests as their required-by time approaches.
+ *
+ * Each request passes through the escalation levels configured by
+ * {@code requests.deadline.leadMinutes} (by default 6 hours before, 1 hour before and at
+ * the deadline). The next escalation of every open request is kept in an ordered
+ * in-memory queue and a single timer thread sleeps until the earliest one, so no table is
+ * scanned per escalation. When it wakes, the due requests are re-read in batches and each
+ * one is claimed with a conditional UPDATE that records the level and raises the priority
+ * (to URGENT ahead of {@code requests.deadline.alertMinutes}, to EMERGENCY from then on).
+ * Only requests whose UPDATE changed a row are re-queued with the matching engine and,
+ * from the alert lead time onwards, announced to donors with an
+ * {@link EmergencyNotification}, so when several instances watch the same request exactly
+ * one of them alerts. The level is stored on the request, so a restart neither repeats
+ * escalations nor alerts for each level it missed: a request that is already past several
+ * levels, e.g. one created late or one that fell due while the service was down, jumps
+ * straight to the highest of them and is announced once.
+ *
+ * Requests created or changed through another instance are picked up by checking the
+ * latest update time and the number of open deadlines every
+ * {@code requests.deadline.checkMs}; the open deadlines are only re-read when either moved.
+ */
+@Component
+public class BloodRequestDeadlineMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloodRequestDeadlineMonitor.class);
+    private static final long ALERT_HOURS_AFTER_DEADLINE = 6;
+
+    private final BloodRequestRepository bloodRequestRepository;
+    private final BloodRequestMatchingEngine matchingEngine;
+    private final EmergencyNotificationService notificationService;
+    private final ScheduledExecutorService timer;
+    private final int[] leadMinutes;
+
+    @Value("${requests.deadline.alertMinutes:60}")
+    private int alertMinutes;
+
+    @Value("${requests.deadline.batchSize:200}")
+    private int batchSize;
+
+    private final NavigableSet<Escalation> escalations = new ConcurrentSkipListSet<>();
+    private final Map<Long, Escalation> escalationsById = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> nextWake;
+    private long nextWakeAt = Long.MAX_VALUE;
+    private LocalDateTime loadedLatestUpdate;
+    private long loadedOpenCount = -1;
+
+    private final AtomicLong escalated = new AtomicLong();
+    private final AtomicLong alertsSent = new AtomicLong();
+    private final AtomicLong overdue = new AtomicLong();
+
+    @Autowired
+    public BloodRequestDeadlineMonitor(BloodRequestRepository bloodRequestRepository,
+                                       BloodRequestMatchingEngine matchingEngine,
+                                       EmergencyNotificationService notificationService,
+                                       @Value("${requests.deadline.leadMinutes:360,60,0}") int[] leadMinutes) {
+        this.bloodRequestRepository = bloodRequestRepository;
+        this.matchingEngine = matchingEngine;
+        this.notificationService = notificationService;
+        // Level 1 is the earliest escalation, i.e. the longest lead time
+        this.leadMinutes = Arrays.stream(leadMinutes).boxed()
+                .sorted((a, b) -> Integer.compare(b, a)).mapToInt(Integer::intValue).toArray();
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blood-request-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load the next escalation of every open request with a deadline; escalations that
+     * fell due while the service was down run straight away. Runs on startup and again
+     * after a snapshot restore.
+     */
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void initialize() {
+        escalationsById.clear();
+        escalations.clear();
+        reconcile();
+        logger.info("Watching the deadlines of {} open blood requests", escalationsById.size());
+    }
+
+    /**
+     * Reconcile with the open deadlines if requests were written through another instance
+     * since the last check
+     */
+    @Scheduled(fixedDelayString = "${requests.deadline.checkMs:15000}")
+    public void checkForChanges() {
+        LocalDateTime latestUpdate = bloodRequestRepository.findLatestUpdate();
+        long openCount = bloodRequestRepository.countOpenDeadlines();
+        synchronized (this) {
+            if (Objects.equals(latestUpdate, loadedLatestUpdate) && openCount == loadedOpenCount) {
+                return;
+            }
+        }
+        int changed = reconcile();
+        if (changed > 0) {
+            logger.info("Reconciled the deadlines of {} blood requests", changed);
+        }
+    }
+
+    /**
+     * Watch the open requests this instance has not seen, e.g. ones created through
+     * another instance, reschedule the ones whose deadline or level changed and stop
+     * watching the ones that were closed or deleted
+     *
+     * @return The number of requests whose escalation changed
+     */
+    private int reconcile() {
+        // Read the markers first, so a write made during the reload is seen by the next check
+        LocalDateTime latestUpdate = bloodRequestRepository.findLatestUpdate();
+        long openCount = bloodRequestRepository.countOpenDeadlines();
+        long nowMillis = System.currentTimeMillis();
+        Set<Long> open = new HashSet<>();
+        int changed = 0;
+        for (Object[] row : bloodRequestRepository.findOpenDeadlines()) {
+            Long id = (Long) row[0];
+            LocalDateTime requiredBy = (LocalDateTime) row[1];
+            int reached = row[2] != null ? (Integer) row[2] : 0;
+            open.add(id);
+            Escalation current = escalationsById.get(id);
+            if (reached >= leadMinutes.length) {
+                if (current != null) {
+                    untrack(id);
+                    changed++;
+                }
+                continue;
+            }
+            int level = nextLevel(requiredBy, reached, nowMillis);
+            if (current == null || current.level != level || current.at != levelAt(requiredBy, level)) {
+                schedule(id, requiredBy, reached);
+                changed++;
+            }
+        }
+        for (Long id : new ArrayList<>(escalationsById.keySet())) {
+            if (!open.contains(id)) {
+                untrack(id);
+                changed++;
+            }
+        }
+        synchronized (this) {
+            loadedLatestUpdate = latestUpdate;
+            loadedOpenCount = openCount;
+        }
+        return changed;
+    }
+
+    /**
+     * Watch, reschedule or stop watching a request after it was saved
+     *
+     * @param request The request as saved
+     */
+    public void track(BloodRequest request) {
+        if (request.getId() == null) {
+            return;
+        }
+        boolean open = "PENDING".equals(request.getRequestStatus()) || "PARTIAL".equals(request.getRequestStatus());
+        if (!open || request.getRequiredBy() == null) {
+            untrack(request.getId());
+            return;
+        }
+        schedule(request.getId(), request.getRequiredBy(),
+                request.getEscalationLevel() != null ? request.getEscalationLevel() : 0);
+    }
+
+    /**
+     * Stop watching a request, e.g. once it is fulfilled, cancelled or deleted
+     *
+     * @param id The ID of the request
+     */
+    public void untrack(Long id) {
+        if (id == null) {
+            return;
+        }
+        Escalation previous = escalationsById.remove(id);
+        if (previous != null) {
+            escalations.remove(previous);
+        }
+    }
+
+    /**
+     * Get the number of watched requests and escalation counters
+     *
+     * @return A map of statistic name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Iterator<Escalation> next = escalations.iterator();
+        stats.put("watchedRequests", escalationsById.size());
+        stats.put("leadMinutes", leadMinutes);
+        stats.put("nextEscalationAt", next.hasNext()
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(next.next().at), ZoneId.systemDefault()) : null);
+        stats.put("escalations", escalated.get());
+        stats.put("alertsSent", alertsSent.get());
+        stats.put("overdueRequests", overdue.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    // Queue the next escalation after the level reached, if there is one
+    private void schedule(Long id, LocalDateTime requiredBy, int reached) {
+        if (reached >= leadMinutes.length) {
+            untrack(id);
+            return;
+        }
+        int level = nextLevel(requiredBy, reached, System.currentTimeMillis());
+        Escalation escalation = new Escalation(levelAt(requiredBy, level), id, level);
+        Escalation previous = escalationsById.put(id, escalation);
+        if (previous != null) {
+            escalations.remove(previous);
+        }
+        escalations.add(escalation);
+        scheduleWake(escalation.at);
+    }
+
+    private synchronized void scheduleWake(long at) {
+        if (at >= nextWakeAt && nextWake != null && !nextWake.isDone()) {
+            return;
+        }
+        if (nextWake != null) {
+            nextWake.cancel(false);
+        }
+        nextWakeAt = at;
+        long delay = Math.max(0, at - System.currentTimeMillis());
+        nextWake = timer.schedule(this::escalateDue, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void escalateDue() {
+        synchronized (this) {
+            nextWakeAt = Long.MAX_VALUE;
+            nextWake = null;
+        }
+        try {
+            long nowMillis = System.currentTimeMillis();
+            List<Long> ids = new ArrayList<>();
+            Escalation head;
+            while ((head = escalations.pollFirst()) != null) {
+                if (head.at > nowMillis) {
+                    escalations.add(head);
+                    break;
+                }
+                if (escalationsById.remove(head.id, head)) {
+                    ids.add(head.id);
+                }
+            }
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                escalate(ids.subList(from, Math.min(ids.size(), from + batchSize)));
+            }
+        } catch (Exception e) {
+            logger.error("Error escalating blood request deadlines: {}", e.getMessage(), e);
+        } finally {
+            Iterator<Escalation> remaining = escalations.iterator();
+            if (remaining.hasNext()) {
+                scheduleWake(remaining.next().at);
+            }
+        }
+    }
+
+    private void escalate(List<Long> ids) {
+        LocalDateTime now = LocalDateTime.now();
+        long nowMillis = toMillis(now);
+
+        // Re-check against the database: requests may have been closed, escalated or moved
+        // meanwhile. Each due request goes straight to the highest level that has passed.
+        Map<Integer, List<BloodRequest>> dueByLevel = new TreeMap<>();
+        for (BloodRequest request : bloodRequestRepository.findWithHospitalByIdIn(ids)) {
+            boolean open = "PENDING".equals(request.getRequestStatus()) || "PARTIAL".equals(request.getRequestStatus());
+            int reached = request.getEscalationLevel() != null ? request.getEscalationLevel() : 0;
+            if (!open || request.getRequiredBy() == null || reached >= leadMinutes.length) {
+                continue;
+            }
+            int level = nextLevel(request.getRequiredBy(), reached, nowMillis);
+            if (levelAt(request.getRequiredBy(), level) <= nowMillis) {
+                dueByLevel.computeIfAbsent(level, key -> new ArrayList<>()).add(request);
+            } else {
+                schedule(request.getId(), request.getRequiredBy(), reached);
+            }
+        }
+        for (Map.Entry<Integer, List<BloodRequest>> due : dueByLevel.entrySet()) {
+            escalate(due.getValue(), due.getKey(), now);
+        }
+    }
+
+    private void escalate(List<BloodRequest> requests, int level, LocalDateTime now) {
+        int lead = leadMinutes[level - 1];
+        boolean alert = lead <= alertMinutes;
+        BloodRequestMatchingEngine.Priority target = alert
+                ? BloodRequestMatchingEngine.Priority.EMERGENCY : BloodRequestMatchingEngine.Priority.URGENT;
+
+        List<String> lowerPriorities = new ArrayList<>();
+        for (BloodRequestMatchingEngine.Priority priority : BloodRequestMatchingEngine.Priority.values()) {
+            if (priority.compareTo(target) > 0) {
+                lowerPriorities.add(priority.name());
+            }
+        }
+        // Claim each escalation; a request another instance escalated first is left to it
+        List<BloodRequest> claimed = new ArrayList<>();
+        for (BloodRequest request : requests) {
+            if (bloodRequestRepository.escalate(request.getId(), level, target.name(), lowerPriorities, now) == 1) {
+                claimed.add(request);
+            } else {
+                schedule(request.getId(), request.getRequiredBy(), level);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        for (BloodRequest request : claimed) {
+            if (BloodRequestMatchingEngine.Priority.of(request.getPriority()).compareTo(target) > 0) {
+                request.setPriority(target.name());
+            }
+            request.setEscalationLevel(level);
+            // Re-queues the request at its new priority and starts a matching pass
+            matchingEngine.track(request);
+            if (alert) {
+                sendAlert(request, lead, now);
+            }
+            schedule(request.getId(), request.getRequiredBy(), level);
+        }
+        escalated.addAndGet(claimed.size());
+        if (lead <= 0) {
+            overdue.addAndGet(claimed.size());
+            logger.warn("{} blood requests are past their required-by time: {}", claimed.size(),
+                    claimed.stream().map(BloodRequest::getId).toList());
+        } else {
+            logger.info("Escalated {} blood requests due within {} minutes to {}", claimed.size(), lead, target);
+        }
+    }
+
+    private void sendAlert(BloodRequest request, int lead, LocalDateTime now) {
+        int needed = request.getUnitsNeeded() != null ? request.getUnitsNeeded() : 1;
+        int provided = request.getUnitsProvided() != null ? request.getUnitsProvided() : 0;
+        LocalDateTime deadline = request.getRequiredBy().isAfter(now) ? request.getRequiredBy() : now;
+
+        EmergencyNotification notification = new EmergencyNotification();
+        notification.setTitle(lead > 0
+                ? "Urgent: " + request.getBloodGroup() + " blood needed within " + describe(lead)
+                : "Overdue: " + request.getBloodGroup() + " blood still needed");
+        notification.setMessage("Blood request #" + request.getId() + " still needs " + Math.max(1, needed - provided)
+                + " unit(s) of " + request.getBloodGroup() + " blood. Reason: " + request.getReason());
+        notification.setBloodType(request.getBloodGroup());
+        notification.setUnitsNeeded(Math.max(1, needed - provided));
+        notification.setContactPhone(request.getPhone());
+        notification.setContactEmail(request.getEmail());
+        notification.setLocation(request.getLocation());
+        notification.setExpiryDate(deadline.plusHours(ALERT_HOURS_AFTER_DEADLINE));
+        try {
+            if (request.getHospital() != null) {
+                notificationService.createHospitalNotification(notification, request.getHospital());
+            } else {
+                notificationService.saveNotification(notification);
+            }
+            alertsSent.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Error sending deadline alert for blood request {}: {}", request.getId(), e.getMessage(), e);
+        }
+    }
+
+    // The highest level whose time has passed, or the level after the one reached if none has
+    private int nextLevel(LocalDateTime requiredBy, int reached, long nowMillis) {
+        int level = reached + 1;
+        while (level < leadMinutes.length && levelAt(requiredBy, level + 1) <= nowMillis) {
+            level++;
+        }
+        return level;
+    }
+
+    private long levelAt(LocalDateTime requiredBy, int level) {
+        return toMillis(requiredBy.minusMinutes(leadMinutes[level - 1]));
+    }
+
+    private static String describe(int minutes) {
+        if (minutes % 60 == 0) {
+            return minutes == 60 ? "1 hour" : (minutes / 60) + " hours";
+        }
+        return minutes + " minutes";
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Escalation implements Comparable<Escalation> {
+        private final long at;
+        private final long id;
+        private final int level;
+
+        private Escalation(long at, long id, int level) {
+            this.at = at;
+            this.id = id;
+            this.level = level;
+        }
+
+        @Override
+        public int compareTo(Escalation other) {
+            int byTime = Long.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Escalation other && at == other.at && id == other.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(at) * 31 + Long.hashCode(id);
+        }
+    }
+}
@@ -0,0 +1,429 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UnitsContribution;
+import com.example.demo.model.BloodRequest;
+import com.example.demo.repository.BloodInventoryRepository;
+import com.example.demo.repository.BloodRequestRepository;
+import com.example.demo.util.BloodCompatibility;
+import com.example.demo.util.SnapshotRestoredEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills pending blood requests from inventory as stock arrives.
+ *
+ * Pending and partly filled requests are held in a priority queue ordered by priority
+ * (EMERGENCY, URGENT, NORMAL, LOW) and then by the time they are required by. Whenever
+ * units become available ({@link BloodStockAvailableEvent}) or a request is opened, a
+ * matching pass runs on a single background thread: available stock is read with one
+ * grouped query, requests are served in queue order from their own blood group first
+ * and then from compatible groups, each allocation goes through
+ * {@link BloodInventoryService#allocateBlood}, which locks the inventory rows it takes
+ * from, and the units are added to the served request with the same conditional
+ * increment as manual contributions, so neither overwrites the other. Both happen in one
+ * transaction per request: if the request was closed in the meantime the increment
+ * changes nothing and the allocation is rolled back, so the units stay available.
+ * Passes triggered while one is running are coalesced into a single follow-up pass.
+ */
+@Component
+public class BloodRequestMatchingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloodRequestMatchingEngine.class);
+
+    private static final Comparator<PendingRequest> QUEUE_ORDER = Comparator
+            .comparing((PendingRequest r) -> r.priority)
+            .thenComparing(r -> r.requiredBy, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(r -> r.id);
+
+    private final BloodRequestRepository bloodRequestRepository;
+    private final BloodInventoryRepository bloodInventoryRepository;
+    private final BloodInventoryService bloodInventoryService;
+    private final TransactionTemplate allocationTransaction;
+    private final ExecutorService executor;
+    private final PriorityQueue<PendingRequest> queue = new PriorityQueue<>(QUEUE_ORDER);
+    private final Map<Long, PendingRequest> queuedById = new HashMap<>();
+    private final AtomicBoolean passScheduled = new AtomicBoolean();
+
+    @Value("${matching.enabled:true}")
+    private boolean enabled;
+
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong unitsAllocated = new AtomicLong();
+    private final AtomicLong requestsFulfilled = new AtomicLong();
+    private final AtomicLong totalFulfilmentSeconds = new AtomicLong();
+    private final AtomicLong maxFulfilmentSeconds = new AtomicLong();
+    private volatile long stockSignalNanos;
+    private volatile Map<String, Object> lastPass = Map.of();
+
+    @Autowired
+    public BloodRequestMatchingEngine(BloodRequestRepository bloodRequestRepository,
+                                      BloodInventoryRepository bloodInventoryRepository,
+                                      BloodInventoryService bloodInventoryService,
+                                      PlatformTransactionManager transactionManager) {
+        this.bloodRequestRepository = bloodRequestRepository;
+        this.bloodInventoryRepository = bloodInventoryRepository;
+        this.bloodInventoryService = bloodInventoryService;
+        this.allocationTransaction = new TransactionTemplate(transactionManager);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "blood-request-matching");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue every open request, before requests are accepted
+     */
+    @PostConstruct
+    public void load() {
+        List<Object[]> rows = bloodRequestRepository.findOpenRequests();
+        synchronized (queue) {
+            queue.clear();
+            queuedById.clear();
+            for (Object[] row : rows) {
+                int needed = row[2] != null ? (Integer) row[2] : 1;
+                int provided = row[3] != null ? (Integer) row[3] : 0;
+                enqueue(new PendingRequest((Long) row[0], (String) row[1], needed - provided,
+                        Priority.of((String) row[4]), (LocalDateTime) row[5], (LocalDateTime) row[6]));
+            }
+        }
+        logger.info("Queued {} open blood requests for matching", rows.size());
+    }
+
+    /**
+     * Match the queue against the stock on hand once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        requestPass();
+    }
+
+    /**
+     * Queue the restored open requests and match them against the restored stock
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void onSnapshotRestored() {
+        load();
+        requestPass();
+    }
+
+    /**
+     * Run a matching pass after new stock is committed
+     *
+     * @param event The stock that arrived
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockAvailable(BloodStockAvailableEvent event) {
+        stockSignalNanos = System.nanoTime();
+        requestPass();
+    }
+
+    /**
+     * Add, update or drop a request after it was saved
+     *
+     * @param request The request as saved
+     */
+    public void track(BloodRequest request) {
+        if (request.getId() == null) {
+            return;
+        }
+        boolean open = "PENDING".equals(request.getRequestStatus()) || "PARTIAL".equals(request.getRequestStatus());
+        int needed = request.getUnitsNeeded() != null ? request.getUnitsNeeded() : 1;
+        int provided = request.getUnitsProvided() != null ? request.getUnitsProvided() : 0;
+        synchronized (queue) {
+            dequeue(request.getId());
+            if (open && needed > provided) {
+                enqueue(new PendingRequest(request.getId(), request.getBloodGroup(), needed - provided,
+                        Priority.of(request.getPriority()), request.getRequiredBy(), request.getCreatedAt()));
+            }
+        }
+        if (open && needed > provided) {
+            requestPass();
+        }
+    }
+
+    /**
+     * Drop a deleted request
+     *
+     * @param requestId The ID of the request
+     */
+    public void untrack(Long requestId) {
+        synchronized (queue) {
+            dequeue(requestId);
+        }
+    }
+
+    /**
+     * Start a matching pass unless one is already waiting to run
+     */
+    public void requestPass() {
+        if (!enabled || !passScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                passScheduled.set(false);
+                runPass();
+            });
+        } catch (RejectedExecutionException e) {
+            passScheduled.set(false);
+        }
+    }
+
+    /**
+     * Get queue depth, allocation counters and time-to-fulfilment figures
+     *
+     * @return A map of statistic name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<Priority, Integer> byPriority = new EnumMap<>(Priority.class);
+        int depth;
+        synchronized (queue) {
+            depth = queue.size();
+            for (PendingRequest request : queue) {
+                byPriority.merge(request.priority, 1, Integer::sum);
+            }
+        }
+        long fulfilled = requestsFulfilled.get();
+        stats.put("enabled", enabled);
+        stats.put("queueDepth", depth);
+        stats.put("queueDepthByPriority", byPriority);
+        stats.put("passes", passes.get());
+        stats.put("unitsAllocated", unitsAllocated.get());
+        stats.put("requestsFulfilled", fulfilled);
+        stats.put("averageTimeToFulfilmentMinutes", fulfilled > 0 ? totalFulfilmentSeconds.get() / 60.0 / fulfilled : 0.0);
+        stats.put("maxTimeToFulfilmentMinutes", maxFulfilmentSeconds.get() / 60.0);
+        stats.put("lastPass", lastPass);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runPass() {
+        long started = System.nanoTime();
+        long signalled = stockSignalNanos;
+        List<PendingRequest> ordered;
+        synchronized (queue) {
+            ordered = new ArrayList<>(queue);
+        }
+        if (ordered.isEmpty()) {
+            return;
+        }
+        ordered.sort(QUEUE_ORDER);
+
+        Map<Long, Integer> allocations = new HashMap<>();
+        int allocatedUnits = 0;
+        try {
+            Map<String, Integer> stock = new HashMap<>();
+            for (Object[] row : bloodInventoryRepository.getTotalUnitsGroupedByBloodGroup("AVAILABLE")) {
+                stock.put((String) row[0], ((Number) row[1]).intValue());
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (PendingRequest request : ordered) {
+                if (stock.values().stream().noneMatch(units -> units > 0)) {
+                    break;
+                }
+                Optional<UnitsContribution> result = allocate(request, stock, now);
+                if (result.isPresent()) {
+                    allocations.put(request.id, result.get().getUnitsAdded());
+                    allocatedUnits += result.get().getUnitsAdded();
+                    settle(result.get(), now);
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error matching blood requests to inventory: {}", e.getMessage(), e);
+        }
+
+        long finished = System.nanoTime();
+        passes.incrementAndGet();
+        unitsAllocated.addAndGet(allocatedUnits);
+        Map<String, Object> last = new HashMap<>();
+        last.put("requestsConsidered", ordered.size());
+        last.put("requestsServed", allocations.size());
+        last.put("unitsAllocated", allocatedUnits);
+        last.put("durationMs", (finished - started) / 1_000_000.0);
+        if (signalled > 0) {
+            last.put("stockToMatchMs", (finished - signalled) / 1_000_000.0);
+        }
+        lastPass = last;
+        if (allocatedUnits > 0) {
+            logger.info("Allocated {} units to {} blood requests in {} ms", allocatedUnits, allocations.size(),
+                    Math.round((finished - started) / 1_000_000.0));
+        }
+    }
+
+    // Lock the request, reserve the units it still needs and add them to it with the same
+    // atomic increment used for manual contributions, in one transaction. The units needed are
+    // read from the locked row, as contributions through other instances leave the queue's copy
+    // stale. The stock map is only updated on commit.
+    private Optional<UnitsContribution> allocate(PendingRequest request, Map<String, Integer> stock, LocalDateTime now) {
+        Map<String, Integer> taken = new HashMap<>();
+        boolean[] closed = {false};
+        Optional<UnitsContribution> result = allocationTransaction.execute(status -> {
+            Optional<BloodRequest> locked = bloodRequestRepository.lockOpenRequest(request.id);
+            int needed = locked.map(r -> r.getUnitsNeeded() != null ? r.getUnitsNeeded() : 1).orElse(0);
+            int provided = locked.map(r -> r.getUnitsProvided() != null ? r.getUnitsProvided() : 0).orElse(0);
+            int required = Math.max(0, needed - provided);
+            if (required == 0) {
+                closed[0] = true;
+                return Optional.<UnitsContribution>empty();
+            }
+            int outstanding = required;
+            for (String group : preferredGroups(request.bloodGroup)) {
+                int units = Math.min(outstanding, stock.getOrDefault(group, 0));
+                if (units <= 0) {
+                    continue;
+                }
+                if (bloodInventoryService.allocateBlood(group, units)) {
+                    taken.put(group, units);
+                    outstanding -= units;
+                } else {
+                    // Taken by a manual allocation since the stock was read
+                    stock.put(group, 0);
+                }
+                if (outstanding == 0) {
+                    break;
+                }
+            }
+            if (taken.isEmpty()) {
+                return Optional.<UnitsContribution>empty();
+            }
+            Optional<UnitsContribution> contribution = bloodRequestRepository.addUnitsProvided(request.id,
+                    required - outstanding, now);
+            if (contribution.isEmpty()) {
+                // Closed since it was queued: release the reserved units again
+                status.setRollbackOnly();
+            }
+            return contribution;
+        });
+
+        if (result.isPresent()) {
+            taken.forEach((group, units) -> stock.merge(group, -units, Integer::sum));
+        } else if (closed[0] || !taken.isEmpty()) {
+            logger.info("Blood request {} was closed or filled before units could be allocated to it", request.id);
+            untrack(request.id);
+        }
+        return result;
+    }
+
+    /**
+     * Update the queue after units were added to a request
+     *
+     * @param contribution The request's new totals
+     * @param now The time the units were added
+     */
+    public void settle(UnitsContribution contribution, LocalDateTime now) {
+        synchronized (queue) {
+            PendingRequest pending = queuedById.get(contribution.getRequestId());
+            if (pending == null) {
+                return;
+            }
+            if (contribution.getUnitsOutstanding() == 0) {
+                dequeue(contribution.getRequestId());
+                recordFulfilment(pending, now);
+            } else {
+                pending.unitsOutstanding = contribution.getUnitsOutstanding();
+            }
+        }
+    }
+
+    private void recordFulfilment(PendingRequest request, LocalDateTime now) {
+        requestsFulfilled.incrementAndGet();
+        if (request.createdAt != null) {
+            long seconds = Math.max(0, Duration.between(request.createdAt, now).getSeconds());
+            totalFulfilmentSeconds.addAndGet(seconds);
+            maxFulfilmentSeconds.accumulateAndGet(seconds, Math::max);
+        }
+    }
+
+    // Same group first, then other compatible groups, keeping O- (the universal donor) for last
+    private static List<String> preferredGroups(String bloodGroup) {
+        List<String> groups = new ArrayList<>(BloodCompatibility.donorGroupsFor(bloodGroup));
+        groups.sort(Comparator.comparingInt((String group) -> group.equals(bloodGroup) ? 0 : "O-".equals(group) ? 2 : 1)
+                .thenComparing(Comparator.naturalOrder()));
+        return groups;
+    }
+
+    // Caller holds the queue lock
+    private void enqueue(PendingRequest request) {
+        if (request.unitsOutstanding > 0) {
+            queue.add(request);
+            queuedById.put(request.id, request);
+        }
+    }
+
+    // Caller holds the queue lock
+    private void dequeue(Long requestId) {
+        PendingRequest previous = queuedById.remove(requestId);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+    }
+
+    /**
+     * Request priorities, most urgent first
+     */
+    public enum Priority {
+        EMERGENCY, URGENT, NORMAL, LOW;
+
+        static Priority of(String priority) {
+            if (priority != null) {
+                for (Priority value : values()) {
+                    if (value.name().equalsIgnoreCase(priority)) {
+                        return value;
+                    }
+                }
+            }
+            return NORMAL;
+        }
+    }
+
+    private static final class PendingRequest {
+        private final Long id;
+        private final String bloodGroup;
+        private final Priority priority;
+        private final LocalDateTime requiredBy;
+        private final LocalDateTime createdAt;
+        private int unitsOutstanding;
+
+        private PendingRequest(Long id, String bloodGroup, int unitsOutstanding, Priority priority,
+                               LocalDateTime requiredBy, LocalDateTime createdAt) {
+            this.id = id;
+            this.bloodGroup = bloodGroup;
+            this.unitsOutstanding = unitsOutstanding;
+            this.priority = priority;
+            this.requiredBy = requiredBy;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.UnitsContribution;
 import com.example.demo.model.BloodRequest;
 import com.example.demo.model.Hospital;
+import com.example.demo.util.CursorPage;
+import org.springframework.data.domain.Page;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +35,22 @@ public interface BloodRequestService {
      */
     List<BloodRequest> getAllBloodRequests();
     
+    /**
+     * Get one page of blood requests, newest first, filtered on the given values; null filters are ignored
+     * 
+     * @param status Only requests with this status
+     * @param bloodGroup Only requests for this blood group
+     * @param priority Only requests with this priority
+     * @param hospitalId Only requests for this hospital
+     * @param from Only requests created at or after this time
+     * @param to Only requests created before this time
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<BloodRequest>> listBloodRequests(String status, String bloodGroup, String priority,
+            Long hospitalId, LocalDateTime from, LocalDateTime to, String cursor, int limit);
+    
     /**
      * Get blood requests by blood group
      * 
@@ -47,6 +67,16 @@ public interface BloodRequestService {
      */
     List<BloodRequest> getBloodRequestsByLocation(String location);
     
+    /**
+     * Search blood requests by location, best matches first
+     * 
+     * @param location The text to look for, matched as a word prefix or substring
+     * @param page The zero-based page number
+     * @param size The page size
+     * @return One page of matching blood requests with the total number of matches
+     */
+    Page<BloodRequest> searchBloodRequestsByLocation(String location, int page, int size);
+    
     /**
      * Get blood requests by status
      * 
@@ -104,6 +134,17 @@ public interface BloodRequestService {
      */
     Optional<BloodRequest> updateUnitsProvided(Long id, Integer unitsProvided);
     
+    /**
+     * Add contributed units to an open blood request. The total is incremented and the
+     * status moved to PARTIAL or FULFILLED in one conditional update, so concurrent
+     * contributions are never lost.
+     * 
+     * @param id The ID of the blood request
+     * @param units The units contributed, at least 1
+     * @return The request's new totals, or empty if it does not exist or is no longer open
+     */
+    Optional<UnitsContribution> addUnitsProvided(Long id, int units);
+    
     /**
      * Create a hospital blood request
      * 
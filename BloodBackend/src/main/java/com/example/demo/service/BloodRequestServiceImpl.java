@@ -1,9 +1,17 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.UnitsContribution;
 import com.example.demo.model.BloodRequest;
 import com.example.demo.model.Hospital;
 import com.example.demo.repository.BloodRequestRepository;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.KeysetPager;
+import com.example.demo.util.TrigramIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -14,10 +22,17 @@ import java.util.Optional;
 public class BloodRequestServiceImpl implements BloodRequestService {
 
     private final BloodRequestRepository bloodRequestRepository;
+    private final SearchIndexService searchIndexService;
+    private final BloodRequestMatchingEngine matchingEngine;
+    private final BloodRequestDeadlineMonitor deadlineMonitor;
 
     @Autowired
-    public BloodRequestServiceImpl(BloodRequestRepository bloodRequestRepository) {
+    public BloodRequestServiceImpl(BloodRequestRepository bloodRequestRepository, SearchIndexService searchIndexService,
+                                   BloodRequestMatchingEngine matchingEngine, BloodRequestDeadlineMonitor deadlineMonitor) {
         this.bloodRequestRepository = bloodRequestRepository;
+        this.searchIndexService = searchIndexService;
+        this.matchingEngine = matchingEngine;
+        this.deadlineMonitor = deadlineMonitor;
     }
 
     @Override
@@ -28,7 +43,11 @@ public class BloodRequestServiceImpl implements BloodRequestService {
         }
         bloodRequest.setUpdatedAt(LocalDateTime.now());
         
-        return bloodRequestRepository.save(bloodRequest);
+        BloodRequest savedRequest = bloodRequestRepository.save(bloodRequest);
+        searchIndexService.index(SearchIndexService.Field.BLOOD_REQUEST_LOCATION, savedRequest.getId(), savedRequest.getLocation());
+        matchingEngine.track(savedRequest);
+        deadlineMonitor.track(savedRequest);
+        return savedRequest;
     }
 
     @Override
@@ -40,6 +59,18 @@ public class BloodRequestServiceImpl implements BloodRequestService {
     public List<BloodRequest> getAllBloodRequests() {
         return bloodRequestRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<BloodRequest>> listBloodRequests(String status, String bloodGroup, String priority,
+            Long hospitalId, LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        Specification<BloodRequest> filter = Specification.where(KeysetPager.<BloodRequest>equal("requestStatus", status))
+                .and(KeysetPager.<BloodRequest>equal("bloodGroup", bloodGroup))
+                .and(KeysetPager.<BloodRequest>equal("priority", priority))
+                .and(KeysetPager.<BloodRequest>equal("hospital.id", hospitalId))
+                .and(KeysetPager.<BloodRequest>inRange("createdAt", from, to));
+        return KeysetPager.fetch(bloodRequestRepository, filter,
+                KeysetPager.Order.byId(BloodRequest::getId, true), cursor, limit);
+    }
 
     @Override
     public List<BloodRequest> getBloodRequestsByBloodGroup(String bloodGroup) {
@@ -48,7 +79,14 @@ public class BloodRequestServiceImpl implements BloodRequestService {
 
     @Override
     public List<BloodRequest> getBloodRequestsByLocation(String location) {
-        return bloodRequestRepository.findByLocationContainingIgnoreCase(location);
+        return searchBloodRequestsByLocation(location, 0, Integer.MAX_VALUE).getContent();
+    }
+
+    @Override
+    public Page<BloodRequest> searchBloodRequestsByLocation(String location, int page, int size) {
+        TrigramIndex.Result result = searchIndexService.search(SearchIndexService.Field.BLOOD_REQUEST_LOCATION, location, page, size);
+        List<BloodRequest> requests = SearchIndexService.inOrder(result.getIds(), bloodRequestRepository.findAllById(result.getIds()), BloodRequest::getId);
+        return new PageImpl<>(requests, PageRequest.of(page, Math.max(1, size)), result.getTotal());
     }
 
     @Override
@@ -64,7 +102,10 @@ public class BloodRequestServiceImpl implements BloodRequestService {
             BloodRequest bloodRequest = requestOpt.get();
             bloodRequest.setRequestStatus(requestStatus);
             bloodRequest.setUpdatedAt(LocalDateTime.now());
-            return Optional.of(bloodRequestRepository.save(bloodRequest));
+            BloodRequest savedRequest = bloodRequestRepository.save(bloodRequest);
+            matchingEngine.track(savedRequest);
+            deadlineMonitor.track(savedRequest);
+            return Optional.of(savedRequest);
         }
         
         return Optional.empty();
@@ -73,6 +114,9 @@ public class BloodRequestServiceImpl implements BloodRequestService {
     @Override
     public void deleteBloodRequest(Long id) {
         bloodRequestRepository.deleteById(id);
+        searchIndexService.remove(SearchIndexService.Field.BLOOD_REQUEST_LOCATION, id);
+        matchingEngine.untrack(id);
+        deadlineMonitor.untrack(id);
     }
 
     @Override
@@ -106,12 +150,28 @@ public class BloodRequestServiceImpl implements BloodRequestService {
             }
             
             bloodRequest.setUpdatedAt(LocalDateTime.now());
-            return Optional.of(bloodRequestRepository.save(bloodRequest));
+            BloodRequest savedRequest = bloodRequestRepository.save(bloodRequest);
+            matchingEngine.track(savedRequest);
+            deadlineMonitor.track(savedRequest);
+            return Optional.of(savedRequest);
         }
         
         return Optional.empty();
     }
     
+    @Override
+    public Optional<UnitsContribution> addUnitsProvided(Long id, int units) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<UnitsContribution> contribution = bloodRequestRepository.addUnitsProvided(id, units, now);
+        contribution.ifPresent(result -> {
+            matchingEngine.settle(result, now);
+            if (result.getUnitsOutstanding() == 0) {
+                deadlineMonitor.untrack(id);
+            }
+        });
+        return contribution;
+    }
+    
     @Override
     public BloodRequest createHospitalRequest(BloodRequest bloodRequest, Hospital hospital) {
         bloodRequest.setHospital(hospital);
@@ -0,0 +1,23 @@
+package com.example.demo.service;
+
+/**
+ * Published when blood units become available in the inventory
+ */
+public class BloodStockAvailableEvent {
+
+    private final String bloodGroup;
+    private final int units;
+
+    public BloodStockAvailableEvent(String bloodGroup, int units) {
+        this.bloodGroup = bloodGroup;
+        this.units = units;
+    }
+
+    public String getBloodGroup() {
+        return bloodGroup;
+    }
+
+    public int getUnits() {
+        return units;
+    }
+}
@@ -46,11 +46,12 @@ public class DatabaseStatsServiceImpl implements DatabaseStatsService {
     @Override
     public Map<String, Object> getDonorStats() {
         Map<String, Object> stats = new HashMap<>();
-        List<Donor> donors = donorRepository.findAll();
+        long totalDonors = donorRepository.count();
+        long activeDonors = donorRepository.countByIsAvailable(true);
         
-        stats.put("totalDonors", donors.size());
-        stats.put("activeDonors", donors.stream().filter(Donor::isAvailable).count());
-        stats.put("inactiveDonors", donors.stream().filter(d -> !d.isAvailable()).count());
+        stats.put("totalDonors", totalDonors);
+        stats.put("activeDonors", activeDonors);
+        stats.put("inactiveDonors", totalDonors - activeDonors);
         
         // Donors by blood group
         stats.put("donorsByBloodGroup", getBloodGroupDistribution());
@@ -60,16 +61,10 @@ public class DatabaseStatsServiceImpl implements DatabaseStatsService {
         
         // Recent donors (last 30 days)
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-        long recentDonors = donors.stream()
-                .filter(d -> d.getLastDonation() != null && d.getLastDonation().isAfter(thirtyDaysAgo))
-                .count();
-        stats.put("recentDonors", recentDonors);
+        stats.put("recentDonors", donorRepository.countByLastDonationAfter(thirtyDaysAgo));
         
-        // Eligible donors (haven't donated in last 56 days)
-        LocalDateTime fiftyDaysAgo = LocalDateTime.now().minusDays(56);
-        long eligibleDonors = donors.stream()
-                .filter(d -> d.getLastDonation() == null || d.getLastDonation().isBefore(fiftyDaysAgo))
-                .count();
+        // Eligible donors (past the deferral interval since their last donation)
+        long eligibleDonors = donorRepository.countByNextEligibleAtLessThanEqual(LocalDateTime.now());
         stats.put("eligibleDonors", eligibleDonors);
         
         return stats;
@@ -1,8 +1,13 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.AppointmentSummary;
+import com.example.demo.dto.CalendarDay;
 import com.example.demo.model.DonationAppointment;
 import com.example.demo.model.Donor;
+import com.example.demo.util.CursorPage;
+import org.springframework.data.domain.Page;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -10,13 +15,22 @@ import java.util.Optional;
 public interface DonationAppointmentService {
     
     /**
-     * Save an appointment
+     * Save an appointment without checking slot capacity, for imports and
+     * administrative changes; slot bookings are still kept in step
      * 
      * @param appointment The appointment to save
      * @return The saved appointment
      */
     DonationAppointment saveAppointment(DonationAppointment appointment);
     
+    /**
+     * Create or change an appointment, taking a place in its location's time slot
+     * 
+     * @param appointment The appointment to save
+     * @return The saved appointment, or empty if its slot is full
+     */
+    Optional<DonationAppointment> bookAppointment(DonationAppointment appointment);
+    
     /**
      * Get an appointment by ID
      * 
@@ -32,13 +46,27 @@ public interface DonationAppointmentService {
      */
     List<DonationAppointment> getAllAppointments();
     
+    /**
+     * Get one page of appointments in date order, filtered on the given values; null filters are ignored
+     * 
+     * @param status Only appointments with this status
+     * @param donorId Only appointments of this donor
+     * @param from Only appointments at or after this time
+     * @param to Only appointments before this time
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<AppointmentSummary>> listAppointments(String status, Long donorId, LocalDateTime from,
+            LocalDateTime to, String cursor, int limit);
+    
     /**
      * Get appointments by donor ID
      * 
      * @param donorId The donor ID to search for
-     * @return A list of appointments for the given donor
+     * @return Summaries of the appointments for the given donor
      */
-    List<DonationAppointment> getAppointmentsByDonorId(Long donorId);
+    List<AppointmentSummary> getAppointmentsByDonorId(Long donorId);
     
     /**
      * Get appointments by status
@@ -56,6 +84,16 @@ public interface DonationAppointmentService {
      */
     List<DonationAppointment> getAppointmentsByLocation(String location);
     
+    /**
+     * Search appointments by location, best matches first
+     * 
+     * @param location The text to look for, matched as a word prefix or substring
+     * @param page The zero-based page number
+     * @param size The page size
+     * @return One page of matching appointments with the total number of matches
+     */
+    Page<DonationAppointment> searchAppointmentsByLocation(String location, int page, int size);
+    
     /**
      * Get appointments within a date range
      * 
@@ -73,6 +111,31 @@ public interface DonationAppointmentService {
      */
     List<DonationAppointment> getAppointmentsForDay(LocalDateTime date);
     
+    /**
+     * Get appointments for the Monday-to-Sunday week containing a date
+     * 
+     * @param date Any time in the week
+     * @return A list of appointments in that week, earliest first
+     */
+    List<DonationAppointment> getAppointmentsForWeek(LocalDateTime date);
+    
+    /**
+     * Get appointments for the calendar month containing a date
+     * 
+     * @param date Any time in the month
+     * @return A list of appointments in that month, earliest first
+     */
+    List<DonationAppointment> getAppointmentsForMonth(LocalDateTime date);
+    
+    /**
+     * Get per-day and per-location counts of appointments that are not cancelled
+     * 
+     * @param from The first day
+     * @param to The last day, inclusive
+     * @return One entry per day that has appointments
+     */
+    List<CalendarDay> getCalendar(LocalDate from, LocalDate to);
+    
     /**
      * Schedule a new appointment
      * 
@@ -80,12 +143,13 @@ public interface DonationAppointmentService {
      * @param appointmentDate The date and time of the appointment
      * @param location The location of the appointment
      * @param notes Any additional notes
-     * @return The new appointment
+     * @return The new appointment, or empty if the slot is full
      */
-    DonationAppointment scheduleAppointment(Donor donor, LocalDateTime appointmentDate, String location, String notes);
+    Optional<DonationAppointment> scheduleAppointment(Donor donor, LocalDateTime appointmentDate, String location, String notes);
     
     /**
-     * Update appointment status
+     * Update appointment status; leaving SCHEDULED frees the appointment's slot and
+     * returning to it takes the slot back even if it has filled up since
      * 
      * @param id The ID of the appointment
      * @param status The new status
@@ -125,6 +189,16 @@ public interface DonationAppointmentService {
      */
     List<DonationAppointment> getAppointmentsNeedingReminders(int hours);
     
+    /**
+     * Queue reminder mails for every scheduled appointment in the next given hours that
+     * has not had one. Each batch is flagged as sent in one statement before its mail is
+     * queued, so a reminder is sent at most once, even with several instances running.
+     * 
+     * @param hours The number of hours ahead to look
+     * @return The number of reminders queued
+     */
+    int sendDueReminders(int hours);
+    
     /**
      * Delete an appointment
      * 
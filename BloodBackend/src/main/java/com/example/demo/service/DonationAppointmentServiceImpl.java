@@ -1,28 +1,96 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.AppointmentReminder;
+import com.example.demo.dto.AppointmentSummary;
+import com.example.demo.dto.CalendarDay;
 import com.example.demo.model.DonationAppointment;
 import com.example.demo.model.Donor;
 import com.example.demo.repository.DonationAppointmentRepository;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.KeysetPager;
+import com.example.demo.util.TrigramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class DonationAppointmentServiceImpl implements DonationAppointmentService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DonationAppointmentServiceImpl.class);
+    private static final DateTimeFormatter REMINDER_TIME = DateTimeFormatter.ofPattern("EEEE d MMMM yyyy 'at' HH:mm", Locale.ENGLISH);
+
     private final DonationAppointmentRepository appointmentRepository;
+    private final SearchIndexService searchIndexService;
+    private final AppointmentSlotService slotService;
+    private final MailDispatchQueue mailQueue;
+    private final AppointmentOccupancyCache occupancyCache;
+
+    @Value("${appointments.reminders.leadHours:24}")
+    private int reminderLeadHours;
+
+    @Value("${appointments.reminders.batchSize:500}")
+    private int reminderBatchSize;
 
     @Autowired
-    public DonationAppointmentServiceImpl(DonationAppointmentRepository appointmentRepository) {
+    public DonationAppointmentServiceImpl(DonationAppointmentRepository appointmentRepository,
+                                          SearchIndexService searchIndexService,
+                                          AppointmentSlotService slotService,
+                                          MailDispatchQueue mailQueue,
+                                          AppointmentOccupancyCache occupancyCache) {
         this.appointmentRepository = appointmentRepository;
+        this.searchIndexService = searchIndexService;
+        this.slotService = slotService;
+        this.mailQueue = mailQueue;
+        this.occupancyCache = occupancyCache;
     }
 
     @Override
     public DonationAppointment saveAppointment(DonationAppointment appointment) {
+        return save(appointment, false).get();
+    }
+
+    @Override
+    public Optional<DonationAppointment> bookAppointment(DonationAppointment appointment) {
+        return save(appointment, true);
+    }
+
+    private Optional<DonationAppointment> save(DonationAppointment appointment, boolean enforceCapacity) {
+        // Read the stored state before the save overwrites it
+        Booking previous = appointment.getId() == null ? null
+                : appointmentRepository.findById(appointment.getId()).map(Booking::of).orElse(null);
+        Booking current = Booking.of(appointment);
+        boolean moved = current.holdsSlot() && (previous == null || !previous.holdsSlot()
+                || !slotService.isSameSlot(previous.location, previous.time, current.location, current.time));
+        if (moved) {
+            if (enforceCapacity) {
+                if (!slotService.tryReserve(current.location, current.time)) {
+                    return Optional.empty();
+                }
+            } else {
+                slotService.reserve(current.location, current.time);
+            }
+        }
+
         // Set creation and update timestamps
         if (appointment.getId() == null) {
             appointment.setCreatedAt(LocalDateTime.now());
@@ -34,7 +102,21 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
         }
         appointment.setUpdatedAt(LocalDateTime.now());
         
-        return appointmentRepository.save(appointment);
+        DonationAppointment savedAppointment;
+        try {
+            savedAppointment = appointmentRepository.save(appointment);
+        } catch (RuntimeException e) {
+            if (moved) {
+                slotService.release(current.location, current.time);
+            }
+            throw e;
+        }
+        if (previous != null && previous.holdsSlot() && (!current.holdsSlot() || moved)) {
+            slotService.release(previous.location, previous.time);
+        }
+        recordChange(previous, current);
+        searchIndexService.index(SearchIndexService.Field.APPOINTMENT_LOCATION, savedAppointment.getId(), savedAppointment.getLocation());
+        return Optional.of(savedAppointment);
     }
 
     @Override
@@ -46,10 +128,21 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
     public List<DonationAppointment> getAllAppointments() {
         return appointmentRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<AppointmentSummary>> listAppointments(String status, Long donorId,
+            LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        Specification<DonationAppointment> filter = Specification.where(KeysetPager.<DonationAppointment>equal("status", status))
+                .and(KeysetPager.<DonationAppointment>equal("donor.id", donorId))
+                .and(KeysetPager.<DonationAppointment>inRange("appointmentDate", from, to));
+        return KeysetPager.fetch(appointmentRepository, filter,
+                KeysetPager.Order.byTime("appointmentDate", DonationAppointment::getAppointmentDate, DonationAppointment::getId, false),
+                cursor, limit, "donor").map(page -> page.map(AppointmentSummary::from));
+    }
 
     @Override
-    public List<DonationAppointment> getAppointmentsByDonorId(Long donorId) {
-        return appointmentRepository.findByDonorId(donorId);
+    public List<AppointmentSummary> getAppointmentsByDonorId(Long donorId) {
+        return appointmentRepository.findSummariesByDonorId(donorId);
     }
 
     @Override
@@ -59,7 +152,15 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
 
     @Override
     public List<DonationAppointment> getAppointmentsByLocation(String location) {
-        return appointmentRepository.findByLocationContainingIgnoreCase(location);
+        return searchAppointmentsByLocation(location, 0, Integer.MAX_VALUE).getContent();
+    }
+
+    @Override
+    public Page<DonationAppointment> searchAppointmentsByLocation(String location, int page, int size) {
+        TrigramIndex.Result result = searchIndexService.search(SearchIndexService.Field.APPOINTMENT_LOCATION, location, page, size);
+        List<DonationAppointment> appointments = SearchIndexService.inOrder(result.getIds(),
+                appointmentRepository.findAllById(result.getIds()), DonationAppointment::getId);
+        return new PageImpl<>(appointments, PageRequest.of(page, Math.max(1, size)), result.getTotal());
     }
 
     @Override
@@ -69,16 +170,34 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
 
     @Override
     public List<DonationAppointment> getAppointmentsForDay(LocalDateTime date) {
-        return appointmentRepository.findByAppointmentDateDay(date);
+        LocalDateTime start = date.toLocalDate().atStartOfDay();
+        return appointmentRepository.findInRange(start, start.plusDays(1));
+    }
+
+    @Override
+    public List<DonationAppointment> getAppointmentsForWeek(LocalDateTime date) {
+        LocalDateTime start = date.toLocalDate().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+        return appointmentRepository.findInRange(start, start.plusWeeks(1));
     }
 
     @Override
-    public DonationAppointment scheduleAppointment(Donor donor, LocalDateTime appointmentDate, String location, String notes) {
+    public List<DonationAppointment> getAppointmentsForMonth(LocalDateTime date) {
+        LocalDateTime start = date.toLocalDate().withDayOfMonth(1).atStartOfDay();
+        return appointmentRepository.findInRange(start, start.plusMonths(1));
+    }
+
+    @Override
+    public List<CalendarDay> getCalendar(LocalDate from, LocalDate to) {
+        return occupancyCache.getCalendar(from, to);
+    }
+
+    @Override
+    public Optional<DonationAppointment> scheduleAppointment(Donor donor, LocalDateTime appointmentDate, String location, String notes) {
         DonationAppointment appointment = new DonationAppointment(donor, appointmentDate, location);
         appointment.setNotes(notes);
         appointment.setConfirmationCode(generateConfirmationCode());
         
-        return saveAppointment(appointment);
+        return bookAppointment(appointment);
     }
 
     @Override
@@ -87,9 +206,19 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
         
         if (appointmentOpt.isPresent()) {
             DonationAppointment appointment = appointmentOpt.get();
+            Booking previous = Booking.of(appointment);
             appointment.setStatus(status);
             appointment.setUpdatedAt(LocalDateTime.now());
-            return Optional.of(appointmentRepository.save(appointment));
+            Booking current = Booking.of(appointment);
+            if (!previous.holdsSlot() && current.holdsSlot()) {
+                slotService.reserve(current.location, current.time);
+            }
+            DonationAppointment savedAppointment = appointmentRepository.save(appointment);
+            if (previous.holdsSlot() && !current.holdsSlot()) {
+                slotService.release(previous.location, previous.time);
+            }
+            recordChange(previous, current);
+            return Optional.of(savedAppointment);
         }
         
         return Optional.empty();
@@ -127,9 +256,110 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
         return appointmentRepository.findAppointmentsNeedingReminders(now, reminderWindow);
     }
 
+    /**
+     * Send reminders for appointments within {@code appointments.reminders.leadHours}.
+     *
+     * Each batch is claimed in the database with one update before it is queued, so
+     * instances running this job at the same time never both mail the same donor.
+     * Reminders the queue turns away for lack of room are given back for the next run.
+     * Delivery is at most once: the mail queue is in memory, so a reminder queued but not
+     * yet sent when the instance stops is lost rather than sent again.
+     */
+    @Scheduled(fixedDelayString = "${appointments.reminders.intervalMs:600000}")
+    public void sendScheduledReminders() {
+        sendDueReminders(reminderLeadHours);
+    }
+
+    @Override
+    public int sendDueReminders(int hours) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowEnd = now.plusHours(hours);
+        String claim = UUID.randomUUID().toString();
+        int queued = 0;
+        long afterId = 0L;
+        List<AppointmentReminder> batch;
+        do {
+            // Leave the rest for the next run rather than drop mail on a full queue
+            if (mailQueue.remainingCapacity() < reminderBatchSize) {
+                logger.warn("Mail queue is nearly full; deferring remaining appointment reminders");
+                break;
+            }
+            batch = appointmentRepository.findDueReminders(now, windowEnd, afterId, PageRequest.of(0, reminderBatchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            for (AppointmentReminder reminder : batch) {
+                ids.add(reminder.getId());
+            }
+            afterId = ids.get(ids.size() - 1);
+            // Another instance (or an overlapping manual run) may have claimed some since the read
+            if (appointmentRepository.claimReminders(ids, claim, LocalDateTime.now()) == 0) {
+                continue;
+            }
+            Set<Long> claimed = new HashSet<>(appointmentRepository.findClaimedReminderIds(ids, claim));
+            List<Long> unqueued = new ArrayList<>();
+            for (AppointmentReminder reminder : batch) {
+                if (!claimed.contains(reminder.getId())) {
+                    continue;
+                }
+                if (mailQueue.enqueue("reminder:" + reminder.getId(), reminder.getDonorEmail(),
+                        "Reminder: your blood donation appointment", reminderText(reminder))) {
+                    queued++;
+                } else if (mailQueue.remainingCapacity() == 0) {
+                    // Duplicates and donors without an address stay flagged; a full queue is retried
+                    unqueued.add(reminder.getId());
+                }
+            }
+            if (!unqueued.isEmpty()) {
+                appointmentRepository.releaseReminders(unqueued, claim);
+                logger.warn("Mail queue is full; {} appointment reminders left for the next run", unqueued.size());
+                break;
+            }
+        } while (batch.size() == reminderBatchSize);
+        if (queued > 0) {
+            logger.info("Queued reminders for {} appointments in the next {} hours", queued, hours);
+        }
+        return queued;
+    }
+
+    private static String reminderText(AppointmentReminder reminder) {
+        StringBuilder text = new StringBuilder();
+        text.append("Dear ").append(reminder.getDonorName()).append(",\n\n");
+        text.append("This is a reminder of your blood donation appointment on ")
+                .append(reminder.getAppointmentDate().format(REMINDER_TIME));
+        if (reminder.getLocation() != null) {
+            text.append(" at ").append(reminder.getLocation());
+        }
+        text.append(".\n");
+        if (reminder.getConfirmationCode() != null) {
+            text.append("Confirmation code: ").append(reminder.getConfirmationCode()).append("\n");
+        }
+        text.append("\nPlease eat well and drink plenty of water beforehand. Thank you for donating.");
+        return text.toString();
+    }
+
     @Override
     public void deleteAppointment(Long id) {
+        Booking previous = appointmentRepository.findById(id).map(Booking::of).orElse(null);
         appointmentRepository.deleteById(id);
+        searchIndexService.remove(SearchIndexService.Field.APPOINTMENT_LOCATION, id);
+        if (previous != null) {
+            if (previous.holdsSlot()) {
+                slotService.release(previous.location, previous.time);
+            }
+            recordChange(previous, null);
+        }
+    }
+
+    // Move the appointment between calendar days/locations in the occupancy cache
+    private void recordChange(Booking previous, Booking current) {
+        if (previous != null && previous.onCalendar()) {
+            occupancyCache.remove(previous.time, previous.location);
+        }
+        if (current != null && current.onCalendar()) {
+            occupancyCache.add(current.time, current.location);
+        }
     }
     
     /**
@@ -141,4 +371,34 @@ public class DonationAppointmentServiceImpl implements DonationAppointmentServic
         // Generate a random UUID and take the first 8 characters
         return UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
-}
\ No newline at end of file
+
+    /**
+     * The fields of an appointment that decide its slot and calendar entry, captured
+     * before the entity changes
+     */
+    private static final class Booking {
+        private final String location;
+        private final LocalDateTime time;
+        private final String status;
+
+        private Booking(String location, LocalDateTime time, String status) {
+            this.location = location;
+            this.time = time;
+            this.status = status;
+        }
+
+        private static Booking of(DonationAppointment appointment) {
+            return new Booking(appointment.getLocation(), appointment.getAppointmentDate(), appointment.getStatus());
+        }
+
+        // Only scheduled appointments with a place and time hold a slot
+        private boolean holdsSlot() {
+            return "SCHEDULED".equals(status) && location != null && time != null;
+        }
+
+        // Cancelled appointments are left off the calendar
+        private boolean onCalendar() {
+            return time != null && !"CANCELLED".equals(status);
+        }
+    }
+}
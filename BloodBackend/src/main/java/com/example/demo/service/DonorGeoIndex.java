@@ -0,0 +1,284 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Donor;
+import com.example.demo.repository.DonorRepository;
+import com.example.demo.util.GeoPoint;
+import com.example.demo.util.SnapshotRestoredEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory spatial index of donors with known coordinates.
+ *
+ * Donors are bucketed in a fixed latitude/longitude grid of {@value #CELL_DEGREES}-degree
+ * cells (about 11 km north-south). A radius query only visits the cells overlapping the
+ * search circle's bounding box, filters them by blood group, availability and next
+ * eligible donation time (the same {@code next_eligible_at} the database queries use),
+ * and keeps the k closest in a bounded heap, so it never touches the database. The index
+ * is loaded on startup and kept current by {@link DonorService} writes on this instance;
+ * it is rebuilt every {@code geo.index.reloadMs} to pick up writes made through other
+ * instances or directly in the database.
+ */
+@Component
+public class DonorGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DonorGeoIndex.class);
+    private static final double CELL_DEGREES = 0.1;
+    private static final int LON_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final DonorRepository donorRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, List<DonorPoint>> cells = new HashMap<>();
+    private final Map<Long, DonorPoint> byId = new HashMap<>();
+    // Donors saved while a reload reads the table, re-applied over its rows; null values
+    // are deletions. Null when no reload is running.
+    private Map<Long, DonorPoint> writesDuringLoad;
+
+    @Autowired
+    public DonorGeoIndex(DonorRepository donorRepository) {
+        this.donorRepository = donorRepository;
+    }
+
+    /**
+     * Rebuild the index from every donor that has coordinates
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    @Scheduled(fixedDelayString = "${geo.index.reloadMs:600000}", initialDelayString = "${geo.index.reloadMs:600000}")
+    public synchronized void load() {
+        lock.writeLock().lock();
+        try {
+            writesDuringLoad = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Object[]> rows = null;
+        try {
+            rows = donorRepository.findGeoIndexRows();
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rows != null) {
+                    cells.clear();
+                    byId.clear();
+                    for (Object[] row : rows) {
+                        add(new DonorPoint((Long) row[0], (String) row[1], (Boolean) row[2], (LocalDateTime) row[3],
+                                (Double) row[4], (Double) row[5]));
+                    }
+                    // The rows may predate these writes
+                    writesDuringLoad.forEach((donorId, point) -> {
+                        removeLocked(donorId);
+                        if (point != null) {
+                            add(point);
+                        }
+                    });
+                }
+                writesDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Indexed {} donor locations", rows.size());
+    }
+
+    /**
+     * Add, move or drop a donor after it was saved
+     *
+     * @param donor The donor as saved
+     */
+    public void update(Donor donor) {
+        if (donor.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(donor.getId());
+            DonorPoint point = null;
+            if (donor.getLatitude() != null && donor.getLongitude() != null) {
+                point = new DonorPoint(donor.getId(), donor.getBloodGroup(), donor.isAvailable(), donor.getNextEligibleAt(),
+                        donor.getLatitude(), donor.getLongitude());
+                add(point);
+            }
+            if (writesDuringLoad != null) {
+                writesDuringLoad.put(donor.getId(), point);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop a deleted donor
+     *
+     * @param donorId The ID of the donor
+     */
+    public void remove(Long donorId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(donorId);
+            if (writesDuringLoad != null) {
+                writesDuringLoad.put(donorId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the closest donors who can give blood now
+     *
+     * @param latitude The latitude of the search centre
+     * @param longitude The longitude of the search centre
+     * @param radiusKm Only donors within this distance are returned
+     * @param donorGroups The acceptable donor blood groups
+     * @param now Donors whose next eligible time is later, or not yet set, are skipped
+     * @param limit The maximum number of donors to return
+     * @return The matching donors, closest first
+     */
+    public List<Match> findNearest(double latitude, double longitude, double radiusKm,
+                                   Set<String> donorGroups, LocalDateTime now, int limit) {
+        if (limit <= 0 || radiusKm <= 0 || donorGroups.isEmpty()) {
+            return List.of();
+        }
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(latitude) + latSpan)));
+        double lonSpan = Math.min(180.0, radiusKm / (KM_PER_DEGREE * Math.max(cosLat, 0.01)));
+        int minLatCell = latCell(Math.max(-90.0, latitude - latSpan));
+        int maxLatCell = latCell(Math.min(90.0, latitude + latSpan));
+        int minLonCell = (int) Math.floor((longitude - lonSpan) / CELL_DEGREES);
+        int maxLonCell = Math.min(minLonCell + LON_CELLS - 1, (int) Math.floor((longitude + lonSpan) / CELL_DEGREES));
+
+        // Max-heap on distance holding the best `limit` candidates seen so far
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Match::getDistanceKm).reversed());
+        lock.readLock().lock();
+        try {
+            for (int latIndex = minLatCell; latIndex <= maxLatCell; latIndex++) {
+                for (int lonIndex = minLonCell; lonIndex <= maxLonCell; lonIndex++) {
+                    List<DonorPoint> cell = cells.get(cellKey(latIndex, Math.floorMod(lonIndex, LON_CELLS)));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (DonorPoint point : cell) {
+                        if (!point.available || point.bloodGroup == null || !donorGroups.contains(point.bloodGroup)
+                                || point.nextEligibleAt == null || point.nextEligibleAt.isAfter(now)) {
+                            continue;
+                        }
+                        double distance = GeoPoint.distanceKm(latitude, longitude, point.latitude, point.longitude);
+                        if (distance > radiusKm) {
+                            continue;
+                        }
+                        if (best.size() < limit) {
+                            best.add(new Match(point.id, distance));
+                        } else if (distance < best.peek().distanceKm) {
+                            best.poll();
+                            best.add(new Match(point.id, distance));
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Match> matches = new ArrayList<>(best);
+        matches.sort(Comparator.comparingDouble(Match::getDistanceKm));
+        return matches;
+    }
+
+    /**
+     * Get the number of donors in the index
+     *
+     * @return The number of donors with coordinates
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(DonorPoint point) {
+        byId.put(point.id, point);
+        cells.computeIfAbsent(cellKey(point), k -> new ArrayList<>()).add(point);
+    }
+
+    private void removeLocked(Long donorId) {
+        DonorPoint previous = byId.remove(donorId);
+        if (previous != null) {
+            long key = cellKey(previous);
+            List<DonorPoint> cell = cells.get(key);
+            cell.remove(previous);
+            if (cell.isEmpty()) {
+                cells.remove(key);
+            }
+        }
+    }
+
+    private static long cellKey(DonorPoint point) {
+        return cellKey(latCell(point.latitude), Math.floorMod((int) Math.floor(point.longitude / CELL_DEGREES), LON_CELLS));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+
+    private static int latCell(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    /**
+     * A donor found by a radius query
+     */
+    public static final class Match {
+        private final Long donorId;
+        private final double distanceKm;
+
+        private Match(Long donorId, double distanceKm) {
+            this.donorId = donorId;
+            this.distanceKm = distanceKm;
+        }
+
+        public Long getDonorId() {
+            return donorId;
+        }
+
+        public double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    private static final class DonorPoint {
+        private final Long id;
+        private final String bloodGroup;
+        private final boolean available;
+        private final LocalDateTime nextEligibleAt;
+        private final double latitude;
+        private final double longitude;
+
+        private DonorPoint(Long id, String bloodGroup, boolean available, LocalDateTime nextEligibleAt,
+                           double latitude, double longitude) {
+            this.id = id;
+            this.bloodGroup = bloodGroup;
+            this.available = available;
+            this.nextEligibleAt = nextEligibleAt;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.DonorProfile;
+import com.example.demo.dto.DonorSummary;
+import com.example.demo.dto.NearbyDonor;
 import com.example.demo.model.Donor;
+import com.example.demo.util.CursorPage;
+import org.springframework.data.domain.Page;
 
 import java.util.List;
 import java.util.Optional;
@@ -46,13 +51,26 @@ public interface DonorService {
      */
     List<Donor> getAllDonors();
     
+    /**
+     * Get one page of donors, filtered on the given values; null filters are ignored
+     * 
+     * @param bloodGroup Only donors of this blood group
+     * @param available Only donors with this availability
+     * @param hospitalId Only donors registered at this hospital
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<DonorSummary>> listDonors(String bloodGroup, Boolean available, Long hospitalId,
+            String cursor, int limit);
+    
     /**
      * Get donors by blood group
      * 
      * @param bloodGroup The blood group to search for
-     * @return A list of donors with the given blood group
+     * @return Summaries of the donors with the given blood group
      */
-    List<Donor> getDonorsByBloodGroup(String bloodGroup);
+    List<DonorSummary> getDonorsByBloodGroup(String bloodGroup);
     
     /**
      * Get donors by location
@@ -62,6 +80,16 @@ public interface DonorService {
      */
     List<Donor> getDonorsByLocation(String location);
     
+    /**
+     * Search donors by location, best matches first
+     * 
+     * @param location The text to look for, matched as a word prefix or substring
+     * @param page The zero-based page number
+     * @param size The page size
+     * @return One page of matching donors with the total number of matches
+     */
+    Page<Donor> searchDonorsByLocation(String location, int page, int size);
+    
     /**
      * Get donors by availability
      * 
@@ -99,24 +127,89 @@ public interface DonorService {
      * Get donors by hospital
      * 
      * @param hospitalId The ID of the hospital
-     * @return A list of donors associated with the given hospital
+     * @return Summaries of the donors associated with the given hospital
      */
-    List<Donor> getDonorsByHospital(Long hospitalId);
+    List<DonorSummary> getDonorsByHospital(Long hospitalId);
     
     /**
      * Get donors by blood group and hospital
      * 
      * @param bloodGroup The blood group to search for
      * @param hospitalId The ID of the hospital
-     * @return A list of donors with the given blood group at the specified hospital
+     * @return Summaries of the donors with the given blood group at the specified hospital
      */
-    List<Donor> getDonorsByBloodGroupAndHospital(String bloodGroup, Long hospitalId);
+    List<DonorSummary> getDonorsByBloodGroupAndHospital(String bloodGroup, Long hospitalId);
     
     /**
      * Get available donors by hospital
      * 
      * @param hospitalId The ID of the hospital
-     * @return A list of available donors at the specified hospital
+     * @return Summaries of the available donors at the specified hospital
+     */
+    List<DonorSummary> getAvailableDonorsByHospital(Long hospitalId);
+    
+    /**
+     * Check whether a donor with the given username exists
+     * 
+     * @param username The username to check
+     * @return True if the username is taken
+     */
+    boolean existsByUsername(String username);
+    
+    /**
+     * Check whether a donor with the given email exists
+     * 
+     * @param email The email to check
+     * @return True if the email is taken
+     */
+    boolean existsByEmail(String email);
+    
+    /**
+     * Get the usernames of all donors, lower-cased
+     * 
+     * @return A list of every donor username
+     */
+    List<String> getAllUsernames();
+    
+    /**
+     * Get the emails of all donors, lower-cased
+     * 
+     * @return A list of every donor email
+     */
+    List<String> getAllEmails();
+    
+    /**
+     * Find the closest donors who can give blood to a recipient now
+     * 
+     * @param latitude The latitude of the search centre
+     * @param longitude The longitude of the search centre
+     * @param recipientBloodGroup The recipient's blood group
+     * @param radiusKm Only donors within this distance are returned
+     * @param limit The maximum number of donors to return
+     * @return Available, compatible donors outside the deferral window, closest first
+     */
+    List<NearbyDonor> findNearestDonors(double latitude, double longitude, String recipientBloodGroup,
+                                        double radiusKm, int limit);
+    
+    /**
+     * Get one page of available donors who can donate now, soonest eligible first
+     * 
+     * @param bloodGroup Only donors of this blood group, or null for all groups
+     * @param hospitalId Only donors registered at this hospital, or null for all
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<DonorSummary>> getEligibleDonors(String bloodGroup, Long hospitalId, String cursor, int limit);
+    
+    /**
+     * Get a donor's dashboard profile: details, donation totals, latest donation and next
+     * appointment, in at most two queries. If the client's ETag is still current, only the
+     * first query runs and a not-modified profile is returned.
+     * 
+     * @param id The ID of the donor
+     * @param ifNoneMatch The client's If-None-Match header, or null
+     * @return The profile with its ETag, or empty if the donor does not exist
      */
-    List<Donor> getAvailableDonorsByHospital(Long hospitalId);
-}
\ No newline at end of file
+    Optional<DonorProfile> getDonorProfile(Long id, String ifNoneMatch);
+}
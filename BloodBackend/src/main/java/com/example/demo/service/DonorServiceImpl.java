@@ -1,22 +1,62 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.DonorProfile;
+import com.example.demo.dto.DonorSummary;
+import com.example.demo.dto.NearbyDonor;
+import com.example.demo.model.BloodDonation;
 import com.example.demo.model.Donor;
+import com.example.demo.repository.BloodDonationRepository;
 import com.example.demo.repository.DonorRepository;
+import com.example.demo.util.BloodCompatibility;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.Gazetteer;
+import com.example.demo.util.KeysetPager;
+import com.example.demo.util.TrigramIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class DonorServiceImpl implements DonorService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DonorServiceImpl.class);
+
     private final DonorRepository donorRepository;
+    private final BloodDonationRepository bloodDonationRepository;
+    private final Gazetteer gazetteer;
+    private final DonorGeoIndex donorGeoIndex;
+    private final SearchIndexService searchIndexService;
+
+    @Value("${donation.deferralDays:56}")
+    private int deferralDays;
 
     @Autowired
-    public DonorServiceImpl(DonorRepository donorRepository) {
+    public DonorServiceImpl(DonorRepository donorRepository, BloodDonationRepository bloodDonationRepository,
+                            Gazetteer gazetteer, DonorGeoIndex donorGeoIndex, SearchIndexService searchIndexService) {
         this.donorRepository = donorRepository;
+        this.bloodDonationRepository = bloodDonationRepository;
+        this.gazetteer = gazetteer;
+        this.donorGeoIndex = donorGeoIndex;
+        this.searchIndexService = searchIndexService;
     }
 
     @Override
@@ -26,8 +66,27 @@ public class DonorServiceImpl implements DonorService {
             donor.setCreatedAt(LocalDateTime.now());
         }
         donor.setUpdatedAt(LocalDateTime.now());
+        donor.setNextEligibleAt(nextEligibleAt(donor));
+        locate(donor);
         
-        return donorRepository.save(donor);
+        Donor savedDonor = donorRepository.save(donor);
+        donorGeoIndex.update(savedDonor);
+        searchIndexService.index(SearchIndexService.Field.DONOR_LOCATION, savedDonor.getId(), savedDonor.getLocation());
+        return savedDonor;
+    }
+
+    /**
+     * Bring next_eligible_at up to date for donors saved before it existed or under a
+     * different deferral interval
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillEligibility() {
+        int updated = donorRepository.backfillNextEligibleAt(deferralDays);
+        if (updated > 0) {
+            logger.info("Set the next eligible donation time of {} donors", updated);
+            // The spatial index may have been loaded before the backfill
+            donorGeoIndex.load();
+        }
     }
 
     @Override
@@ -49,15 +108,32 @@ public class DonorServiceImpl implements DonorService {
     public List<Donor> getAllDonors() {
         return donorRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<DonorSummary>> listDonors(String bloodGroup, Boolean available, Long hospitalId,
+            String cursor, int limit) {
+        Specification<Donor> filter = Specification.where(KeysetPager.<Donor>equal("bloodGroup", bloodGroup))
+                .and(KeysetPager.<Donor>equal("isAvailable", available))
+                .and(KeysetPager.<Donor>equal("hospital.id", hospitalId));
+        return KeysetPager.fetch(donorRepository, filter,
+                KeysetPager.Order.byId(Donor::getId, false), cursor, limit).map(page -> page.map(DonorSummary::from));
+    }
 
     @Override
-    public List<Donor> getDonorsByBloodGroup(String bloodGroup) {
-        return donorRepository.findByBloodGroup(bloodGroup);
+    public List<DonorSummary> getDonorsByBloodGroup(String bloodGroup) {
+        return donorRepository.findSummariesByBloodGroup(bloodGroup);
     }
 
     @Override
     public List<Donor> getDonorsByLocation(String location) {
-        return donorRepository.findByLocationContainingIgnoreCase(location);
+        return searchDonorsByLocation(location, 0, Integer.MAX_VALUE).getContent();
+    }
+
+    @Override
+    public Page<Donor> searchDonorsByLocation(String location, int page, int size) {
+        TrigramIndex.Result result = searchIndexService.search(SearchIndexService.Field.DONOR_LOCATION, location, page, size);
+        List<Donor> donors = SearchIndexService.inOrder(result.getIds(), donorRepository.findAllById(result.getIds()), Donor::getId);
+        return new PageImpl<>(donors, PageRequest.of(page, Math.max(1, size)), result.getTotal());
     }
 
     @Override
@@ -68,6 +144,8 @@ public class DonorServiceImpl implements DonorService {
     @Override
     public void deleteDonor(Long id) {
         donorRepository.deleteById(id);
+        donorGeoIndex.remove(id);
+        searchIndexService.remove(SearchIndexService.Field.DONOR_LOCATION, id);
     }
 
     @Override
@@ -93,24 +171,147 @@ public class DonorServiceImpl implements DonorService {
             Donor donor = donorOpt.get();
             donor.setAvailable(isAvailable);
             donor.setUpdatedAt(LocalDateTime.now());
-            return Optional.of(donorRepository.save(donor));
+            Donor savedDonor = donorRepository.save(donor);
+            donorGeoIndex.update(savedDonor);
+            return Optional.of(savedDonor);
         }
         
         return Optional.empty();
     }
 
     @Override
-    public List<Donor> getDonorsByHospital(Long hospitalId) {
-        return donorRepository.findByHospitalId(hospitalId);
+    public List<DonorSummary> getDonorsByHospital(Long hospitalId) {
+        return donorRepository.findSummariesByHospitalId(hospitalId);
+    }
+
+    @Override
+    public List<DonorSummary> getDonorsByBloodGroupAndHospital(String bloodGroup, Long hospitalId) {
+        return donorRepository.findSummariesByBloodGroupAndHospitalId(bloodGroup, hospitalId);
     }
 
     @Override
-    public List<Donor> getDonorsByBloodGroupAndHospital(String bloodGroup, Long hospitalId) {
-        return donorRepository.findByBloodGroupAndHospitalId(bloodGroup, hospitalId);
+    public List<DonorSummary> getAvailableDonorsByHospital(Long hospitalId) {
+        return donorRepository.findSummariesByIsAvailableAndHospitalId(true, hospitalId);
     }
 
     @Override
-    public List<Donor> getAvailableDonorsByHospital(Long hospitalId) {
-        return donorRepository.findByIsAvailableAndHospitalId(true, hospitalId);
+    public boolean existsByUsername(String username) {
+        return donorRepository.existsByUsername(username);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return donorRepository.existsByEmail(email);
+    }
+
+    @Override
+    public List<String> getAllUsernames() {
+        return donorRepository.findAllUsernamesLowerCase();
+    }
+
+    @Override
+    public List<String> getAllEmails() {
+        return donorRepository.findAllEmailsLowerCase();
+    }
+
+    @Override
+    public List<NearbyDonor> findNearestDonors(double latitude, double longitude, String recipientBloodGroup,
+                                               double radiusKm, int limit) {
+        List<DonorGeoIndex.Match> matches = donorGeoIndex.findNearest(latitude, longitude, radiusKm,
+                BloodCompatibility.donorGroupsFor(recipientBloodGroup), LocalDateTime.now(), limit);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, Donor> donors = donorRepository.findAllById(matches.stream().map(DonorGeoIndex.Match::getDonorId).toList())
+                .stream()
+                .collect(Collectors.toMap(Donor::getId, Function.identity()));
+        List<NearbyDonor> nearby = new ArrayList<>(matches.size());
+        for (DonorGeoIndex.Match match : matches) {
+            Donor donor = donors.get(match.getDonorId());
+            if (donor != null) {
+                nearby.add(new NearbyDonor(donor.getId(), donor.getName(), donor.getBloodGroup(), donor.getPhone(),
+                        donor.getEmail(), donor.getLocation(), Math.round(match.getDistanceKm() * 10) / 10.0));
+            }
+        }
+        return nearby;
+    }
+
+    // Keep coordinates the client supplied; otherwise place the donor from their location text
+    private void locate(Donor donor) {
+        if (donor.getLatitude() == null || donor.getLongitude() == null) {
+            gazetteer.resolve(donor.getLocation()).ifPresent(point -> {
+                donor.setLatitude(point.getLatitude());
+                donor.setLongitude(point.getLongitude());
+            });
+        }
+    }
+
+    @Override
+    public Optional<CursorPage<DonorSummary>> getEligibleDonors(String bloodGroup, Long hospitalId, String cursor, int limit) {
+        // Equality on group, availability and hospital, then one range on next_eligible_at:
+        // a single range scan of idx_donors_eligibility or idx_donors_hospital_eligibility
+        Specification<Donor> filter = Specification.where(KeysetPager.<Donor>equal("bloodGroup", bloodGroup))
+                .and(KeysetPager.<Donor>equal("isAvailable", true))
+                .and(KeysetPager.<Donor>equal("hospital.id", hospitalId))
+                .and(KeysetPager.<Donor>inRange("nextEligibleAt", null, LocalDateTime.now()));
+        return KeysetPager.fetch(donorRepository, filter,
+                KeysetPager.Order.byTime("nextEligibleAt", Donor::getNextEligibleAt, Donor::getId, false), cursor, limit)
+                .map(page -> page.map(DonorSummary::from));
+    }
+
+    @Override
+    public Optional<DonorProfile> getDonorProfile(Long id, String ifNoneMatch) {
+        List<Object[]> rows = donorRepository.findProfileRow(id, LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+
+        // The row covers every field shown, and the latest donation through the donation count
+        // and last donation update, so its digest changes whenever the profile does
+        String etag = "\"" + DigestUtils.md5DigestAsHex(Arrays.deepToString(row).getBytes(StandardCharsets.UTF_8)) + "\"";
+        if (matchesETag(ifNoneMatch, etag)) {
+            return Optional.of(DonorProfile.notModified(etag));
+        }
+
+        DonorSummary donor = new DonorSummary((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                (String) row[4], (String) row[5], (String) row[6], Boolean.TRUE.equals(row[7]),
+                (LocalDateTime) row[8], (LocalDateTime) row[9], (Long) row[10]);
+        long donationCount = ((Number) row[12]).longValue();
+        Optional<BloodDonation> latest = donationCount > 0
+                ? bloodDonationRepository.findFirstByDonorIdOrderByDonationDateDescIdDesc(id)
+                : Optional.empty();
+        return Optional.of(new DonorProfile(donor, donationCount, ((Number) row[13]).longValue(),
+                latest.map(BloodDonation::getId).orElse(null),
+                latest.map(BloodDonation::getDonationDate).orElse(null),
+                latest.map(BloodDonation::getQuantityMl).orElse(null),
+                latest.map(BloodDonation::getDonationStatus).orElse(null),
+                ((Number) row[15]).longValue(), (LocalDateTime) row[16], etag));
+    }
+
+    // If-None-Match holds "*" or a comma-separated list of tags, possibly weak (W/"...")
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Donors who never donated are eligible from when they registered
+    private LocalDateTime nextEligibleAt(Donor donor) {
+        if (donor.getLastDonation() != null) {
+            return donor.getLastDonation().plusDays(deferralDays);
+        }
+        return donor.getCreatedAt() != null ? donor.getCreatedAt() : LocalDateTime.now();
     }
-}
\ No newline at end of file
+}
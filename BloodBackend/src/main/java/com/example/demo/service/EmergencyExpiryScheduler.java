@@ -0,0 +1,212 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.EmergencyNotificationRepository;
+import com.example.demo.util.SnapshotRestoredEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires emergency notifications at their exact expiry time.
+ *
+ * Active notifications' deadlines are kept in an ordered in-memory queue and a single
+ * timer thread sleeps until the earliest one. When it wakes, every notification due by
+ * then is expired with one bulk UPDATE per batch of IDs; the UPDATE re-checks status and
+ * expiry, so a notification that was fulfilled or extended in the meantime is left alone.
+ * On startup anything that expired while the service was down is swept in one statement
+ * and the queue is rebuilt from the active notifications.
+ */
+@Component
+public class EmergencyExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmergencyExpiryScheduler.class);
+
+    private final EmergencyNotificationRepository notificationRepository;
+    private final ActiveEmergencyIndex activeIndex;
+    private final ScheduledExecutorService timer;
+
+    @Value("${emergency.expiry.batchSize:500}")
+    private int batchSize;
+
+    private final NavigableSet<Deadline> deadlines = new ConcurrentSkipListSet<>();
+    private final Map<Long, Deadline> deadlinesById = new ConcurrentHashMap<>();
+    private ScheduledFuture<?> nextWake;
+    private long nextWakeAt = Long.MAX_VALUE;
+
+    @Autowired
+    public EmergencyExpiryScheduler(EmergencyNotificationRepository notificationRepository,
+                                    ActiveEmergencyIndex activeIndex) {
+        this.notificationRepository = notificationRepository;
+        this.activeIndex = activeIndex;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "emergency-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Catch up on notifications that expired while the service was down and load the
+     * deadlines of the ones still active, on startup and after a snapshot restore
+     */
+    @EventListener({ApplicationReadyEvent.class, SnapshotRestoredEvent.class})
+    public void initialize() {
+        deadlinesById.clear();
+        deadlines.clear();
+        LocalDateTime now = LocalDateTime.now();
+        int expired = notificationRepository.expireAllDueNotifications(now);
+        List<Object[]> active = notificationRepository.findActiveExpiryDeadlines(now);
+        for (Object[] row : active) {
+            track((Long) row[0], (LocalDateTime) row[1]);
+        }
+        logger.info("Expired {} overdue emergency notifications; tracking {} active deadlines", expired, active.size());
+    }
+
+    /**
+     * Track or reschedule a notification's expiry
+     *
+     * @param id The ID of the notification
+     * @param expiryDate When the notification expires
+     */
+    public void track(Long id, LocalDateTime expiryDate) {
+        if (id == null || expiryDate == null) {
+            return;
+        }
+        Deadline deadline = new Deadline(toMillis(expiryDate), id);
+        Deadline previous = deadlinesById.put(id, deadline);
+        if (previous != null) {
+            deadlines.remove(previous);
+        }
+        deadlines.add(deadline);
+        scheduleWake(deadline.at);
+    }
+
+    /**
+     * Stop tracking a notification, e.g. once it is fulfilled or deleted
+     *
+     * @param id The ID of the notification
+     */
+    public void untrack(Long id) {
+        if (id == null) {
+            return;
+        }
+        Deadline previous = deadlinesById.remove(id);
+        if (previous != null) {
+            deadlines.remove(previous);
+        }
+    }
+
+    /**
+     * Get the number of deadlines currently tracked
+     *
+     * @return The number of active notifications with a pending expiry
+     */
+    public int getTrackedCount() {
+        return deadlinesById.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private synchronized void scheduleWake(long at) {
+        if (at >= nextWakeAt && nextWake != null && !nextWake.isDone()) {
+            return;
+        }
+        if (nextWake != null) {
+            nextWake.cancel(false);
+        }
+        nextWakeAt = at;
+        long delay = Math.max(0, at - System.currentTimeMillis());
+        nextWake = timer.schedule(this::expireDue, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void expireDue() {
+        synchronized (this) {
+            nextWakeAt = Long.MAX_VALUE;
+            nextWake = null;
+        }
+        try {
+            long nowMillis = System.currentTimeMillis();
+            List<Long> due = new ArrayList<>();
+            Deadline head;
+            while ((head = deadlines.pollFirst()) != null) {
+                if (head.at > nowMillis) {
+                    deadlines.add(head);
+                    break;
+                }
+                if (deadlinesById.remove(head.id, head)) {
+                    due.add(head.id);
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            int expired = 0;
+            for (int from = 0; from < due.size(); from += batchSize) {
+                expired += notificationRepository.expireDueNotifications(
+                        due.subList(from, Math.min(due.size(), from + batchSize)), now);
+            }
+            activeIndex.remove(due);
+            if (expired > 0) {
+                logger.info("Expired {} emergency notifications", expired);
+            }
+        } catch (Exception e) {
+            logger.error("Error expiring emergency notifications: {}", e.getMessage(), e);
+        } finally {
+            Iterator<Deadline> remaining = deadlines.iterator();
+            if (remaining.hasNext()) {
+                scheduleWake(remaining.next().at);
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Deadline implements Comparable<Deadline> {
+        private final long at;
+        private final long id;
+
+        private Deadline(long at, long id) {
+            this.at = at;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            int byTime = Long.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Deadline other && at == other.at && id == other.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(at) * 31 + Long.hashCode(id);
+        }
+    }
+}
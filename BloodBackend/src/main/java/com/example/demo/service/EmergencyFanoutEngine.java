@@ -0,0 +1,262 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.DonorContact;
+import com.example.demo.model.EmergencyNotification;
+import com.example.demo.repository.DonorRepository;
+import com.example.demo.util.BloodCompatibility;
+import com.example.demo.util.Gazetteer;
+import com.example.demo.util.GeoPoint;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alerts eligible donors when an emergency notification is created.
+ *
+ * The work runs on a background thread so the creating request returns as soon as the
+ * notification is saved. The compatible donor groups for the notification's blood type
+ * are looked up, and donors who are available and past their next eligible donation time
+ * are selected. When the emergency can be placed (from its
+ * hospital's coordinates or its location text) the closest such donors within
+ * {@code emergency.fanout.radiusKm} come from {@link DonorGeoIndex} without scanning the
+ * donors table, together with the eligible donors whose location could not be resolved to
+ * coordinates; otherwise all of them are read in ID-ordered batches using the donor
+ * eligibility index. Only contact details are loaded. Each donor gets one alert queued on
+ * {@link MailDispatchQueue}, keyed by notification and donor so a donor is never alerted
+ * twice for the same emergency.
+ */
+@Component
+public class EmergencyFanoutEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmergencyFanoutEngine.class);
+
+    private final DonorRepository donorRepository;
+    private final MailDispatchQueue mailQueue;
+    private final DonorGeoIndex donorGeoIndex;
+    private final Gazetteer gazetteer;
+    private final ExecutorService executor;
+
+    @Value("${emergency.fanout.batchSize:1000}")
+    private int batchSize;
+
+    @Value("${emergency.fanout.radiusKm:50}")
+    private double radiusKm;
+
+    @Value("${emergency.fanout.maxDonors:5000}")
+    private int maxDonors;
+
+    private final AtomicLong fanouts = new AtomicLong();
+    private final AtomicLong donorsMatched = new AtomicLong();
+    private final AtomicLong alertsQueued = new AtomicLong();
+    private final AtomicLong totalFanoutNanos = new AtomicLong();
+    private volatile Map<String, Object> lastFanout = Map.of();
+
+    @Autowired
+    public EmergencyFanoutEngine(DonorRepository donorRepository, MailDispatchQueue mailQueue,
+                                 DonorGeoIndex donorGeoIndex, Gazetteer gazetteer) {
+        this.donorRepository = donorRepository;
+        this.mailQueue = mailQueue;
+        this.donorGeoIndex = donorGeoIndex;
+        this.gazetteer = gazetteer;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "emergency-fanout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start alerting donors for a newly created notification; returns immediately
+     *
+     * @param notification The saved notification
+     */
+    public void fanOut(EmergencyNotification notification) {
+        // Copy what the alert needs so the background thread never touches the entity
+        Alert alert = new Alert(notification.getId(), notification.getBloodType(), notification.getTitle(),
+                notification.getMessage(), notification.getHospitalName(), notification.getLocation(),
+                notification.getContactPhone(), notification.getExpiryDate(), locate(notification).orElse(null));
+        try {
+            executor.execute(() -> run(alert));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Could not start donor alerts for emergency notification {}: {}", alert.notificationId, e.getMessage());
+        }
+    }
+
+    /**
+     * Get fan-out counters and the throughput of the most recent fan-out
+     *
+     * @return A map of statistic name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        long queued = alertsQueued.get();
+        long nanos = totalFanoutNanos.get();
+        stats.put("fanouts", fanouts.get());
+        stats.put("donorsMatched", donorsMatched.get());
+        stats.put("alertsQueued", queued);
+        stats.put("alertsPerSecond", nanos > 0 ? queued * 1_000_000_000.0 / nanos : 0.0);
+        stats.put("lastFanout", lastFanout);
+        stats.put("mail", mailQueue.getStats());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Alert alert) {
+        Set<String> donorGroups = BloodCompatibility.donorGroupsFor(alert.bloodType);
+        if (donorGroups.isEmpty()) {
+            logger.warn("Emergency notification {} has unknown blood type '{}'; no donors alerted",
+                    alert.notificationId, alert.bloodType);
+            return;
+        }
+
+        long started = System.nanoTime();
+        String subject = "Urgent: " + alert.bloodType + " blood needed" + (alert.hospitalName != null ? " at " + alert.hospitalName : "");
+        int matched = 0;
+        int queued = 0;
+        int unlocated = 0;
+        try {
+            if (alert.point != null && radiusKm > 0) {
+                List<Long> donorIds = donorGeoIndex.findNearest(alert.point.getLatitude(), alert.point.getLongitude(),
+                        radiusKm, donorGroups, LocalDateTime.now(), maxDonors).stream().map(DonorGeoIndex.Match::getDonorId).toList();
+                for (int from = 0; from < donorIds.size(); from += batchSize) {
+                    List<DonorContact> batch = donorRepository.findContactsByIds(donorIds.subList(from, Math.min(donorIds.size(), from + batchSize)));
+                    matched += batch.size();
+                    queued += queueAlerts(alert, subject, batch);
+                }
+                // Donors whose location the gazetteer could not resolve are not in the geo
+                // index; alert them too rather than leave them out without a trace
+                long afterId = 0L;
+                List<DonorContact> batch;
+                do {
+                    batch = donorRepository.findEligibleUnlocatedDonorContacts(donorGroups, LocalDateTime.now(), afterId,
+                            PageRequest.of(0, batchSize));
+                    unlocated += batch.size();
+                    matched += batch.size();
+                    queued += queueAlerts(alert, subject, batch);
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == batchSize);
+            } else {
+                long afterId = 0L;
+                List<DonorContact> batch;
+                do {
+                    batch = donorRepository.findEligibleDonorContacts(donorGroups, LocalDateTime.now(), afterId, PageRequest.of(0, batchSize));
+                    matched += batch.size();
+                    queued += queueAlerts(alert, subject, batch);
+                    if (!batch.isEmpty()) {
+                        afterId = batch.get(batch.size() - 1).getId();
+                    }
+                } while (batch.size() == batchSize);
+            }
+        } catch (Exception e) {
+            logger.error("Error alerting donors for emergency notification {}: {}", alert.notificationId, e.getMessage(), e);
+        }
+
+        long elapsed = System.nanoTime() - started;
+        fanouts.incrementAndGet();
+        donorsMatched.addAndGet(matched);
+        alertsQueued.addAndGet(queued);
+        totalFanoutNanos.addAndGet(elapsed);
+
+        double millis = elapsed / 1_000_000.0;
+        Map<String, Object> last = new HashMap<>();
+        last.put("notificationId", alert.notificationId);
+        last.put("bloodType", alert.bloodType);
+        last.put("nearbyOnly", alert.point != null && radiusKm > 0);
+        last.put("donorsMatched", matched);
+        last.put("unlocatedDonors", unlocated);
+        last.put("alertsQueued", queued);
+        last.put("durationMs", millis);
+        last.put("alertsPerSecond", millis > 0 ? queued * 1000.0 / millis : 0.0);
+        lastFanout = last;
+        logger.info("Queued {} alerts to {} eligible donors ({} without coordinates) for emergency notification {} in {} ms",
+                queued, matched, unlocated, alert.notificationId, Math.round(millis));
+    }
+
+    private int queueAlerts(Alert alert, String subject, List<DonorContact> donors) {
+        int queued = 0;
+        for (DonorContact donor : donors) {
+            if (mailQueue.enqueue("emergency:" + alert.notificationId + ":" + donor.getId(),
+                    donor.getEmail(), subject, alert.body(donor))) {
+                queued++;
+            }
+        }
+        return queued;
+    }
+
+    // Prefer the hospital's coordinates, then the notification's own location text
+    private Optional<GeoPoint> locate(EmergencyNotification notification) {
+        if (notification.getHospital() != null && notification.getHospital().getLatitude() != null
+                && notification.getHospital().getLongitude() != null) {
+            return Optional.of(new GeoPoint(notification.getHospital().getLatitude(), notification.getHospital().getLongitude()));
+        }
+        return gazetteer.resolve(notification.getLocation());
+    }
+
+    private static final class Alert {
+        private final Long notificationId;
+        private final String bloodType;
+        private final String title;
+        private final String message;
+        private final String hospitalName;
+        private final String location;
+        private final String contactPhone;
+        private final LocalDateTime expiryDate;
+        private final GeoPoint point;
+
+        private Alert(Long notificationId, String bloodType, String title, String message, String hospitalName,
+                      String location, String contactPhone, LocalDateTime expiryDate, GeoPoint point) {
+            this.notificationId = notificationId;
+            this.bloodType = bloodType;
+            this.title = title;
+            this.message = message;
+            this.hospitalName = hospitalName;
+            this.location = location;
+            this.contactPhone = contactPhone;
+            this.expiryDate = expiryDate;
+            this.point = point;
+        }
+
+        private String body(DonorContact donor) {
+            StringBuilder body = new StringBuilder();
+            body.append("Dear ").append(donor.getName()).append(",\n\n");
+            body.append("As a ").append(donor.getBloodGroup()).append(" donor you can help with an emergency need for ")
+                    .append(bloodType).append(" blood.\n\n");
+            body.append(title).append("\n").append(message).append("\n\n");
+            if (hospitalName != null) {
+                body.append("Hospital: ").append(hospitalName).append("\n");
+            }
+            if (location != null) {
+                body.append("Location: ").append(location).append("\n");
+            }
+            if (contactPhone != null) {
+                body.append("Contact: ").append(contactPhone).append("\n");
+            }
+            if (expiryDate != null) {
+                body.append("Needed before: ").append(expiryDate).append("\n");
+            }
+            body.append("\nThank you for being a blood donor.");
+            return body.toString();
+        }
+    }
+}
@@ -2,7 +2,9 @@ package com.example.demo.service;
 
 import com.example.demo.model.EmergencyNotification;
 import com.example.demo.model.Hospital;
+import com.example.demo.util.CursorPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +33,21 @@ public interface EmergencyNotificationService {
      */
     List<EmergencyNotification> getAllNotifications();
     
+    /**
+     * Get one page of emergency notifications, newest first, filtered on the given values; null filters are ignored
+     * 
+     * @param status Only notifications with this status
+     * @param bloodType Only notifications for this blood type
+     * @param hospitalId Only notifications from this hospital
+     * @param from Only notifications created at or after this time
+     * @param to Only notifications created before this time
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<EmergencyNotification>> listNotifications(String status, String bloodType,
+            Long hospitalId, LocalDateTime from, LocalDateTime to, String cursor, int limit);
+    
     /**
      * Get all active emergency notifications
      * 
@@ -46,6 +63,14 @@ public interface EmergencyNotificationService {
      */
     List<EmergencyNotification> getActiveNotificationsByBloodType(String bloodType);
     
+    /**
+     * Get active emergency notifications together with an ETag identifying them
+     * 
+     * @param bloodType The blood type to filter by, or null for all active notifications
+     * @return The active notifications ordered by expiry and their ETag
+     */
+    ActiveEmergencyIndex.Listing getActiveNotificationListing(String bloodType);
+    
     /**
      * Get emergency notifications by hospital
      * 
@@ -3,7 +3,10 @@ package com.example.demo.service;
 import com.example.demo.model.EmergencyNotification;
 import com.example.demo.model.Hospital;
 import com.example.demo.repository.EmergencyNotificationRepository;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -15,19 +18,34 @@ import java.util.Optional;
 public class EmergencyNotificationServiceImpl implements EmergencyNotificationService {
 
     private final EmergencyNotificationRepository notificationRepository;
+    private final EmergencyExpiryScheduler expiryScheduler;
+    private final EmergencyFanoutEngine fanoutEngine;
+    private final ActiveEmergencyIndex activeIndex;
 
     @Autowired
-    public EmergencyNotificationServiceImpl(EmergencyNotificationRepository notificationRepository) {
+    public EmergencyNotificationServiceImpl(EmergencyNotificationRepository notificationRepository,
+                                            EmergencyExpiryScheduler expiryScheduler,
+                                            EmergencyFanoutEngine fanoutEngine,
+                                            ActiveEmergencyIndex activeIndex) {
         this.notificationRepository = notificationRepository;
+        this.expiryScheduler = expiryScheduler;
+        this.fanoutEngine = fanoutEngine;
+        this.activeIndex = activeIndex;
     }
 
     @Override
     public EmergencyNotification saveNotification(EmergencyNotification notification) {
-        if (notification.getId() == null) {
+        boolean created = notification.getId() == null;
+        if (created) {
             notification.setCreatedAt(LocalDateTime.now());
         }
         notification.setUpdatedAt(LocalDateTime.now());
-        return notificationRepository.save(notification);
+        EmergencyNotification savedNotification = notificationRepository.save(notification);
+        trackExpiry(savedNotification);
+        if (created && isLive(savedNotification)) {
+            fanoutEngine.fanOut(savedNotification);
+        }
+        return savedNotification;
     }
 
     @Override
@@ -39,15 +57,31 @@ public class EmergencyNotificationServiceImpl implements EmergencyNotificationSe
     public List<EmergencyNotification> getAllNotifications() {
         return notificationRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<EmergencyNotification>> listNotifications(String status, String bloodType,
+            Long hospitalId, LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        Specification<EmergencyNotification> filter = Specification.where(KeysetPager.<EmergencyNotification>equal("status", status))
+                .and(KeysetPager.<EmergencyNotification>equal("bloodType", bloodType))
+                .and(KeysetPager.<EmergencyNotification>equal("hospital.id", hospitalId))
+                .and(KeysetPager.<EmergencyNotification>inRange("createdAt", from, to));
+        return KeysetPager.fetch(notificationRepository, filter,
+                KeysetPager.Order.byId(EmergencyNotification::getId, true), cursor, limit);
+    }
 
     @Override
     public List<EmergencyNotification> getActiveNotifications() {
-        return notificationRepository.findActiveNotifications(LocalDateTime.now());
+        return activeIndex.getActive(null).getNotifications();
     }
 
     @Override
     public List<EmergencyNotification> getActiveNotificationsByBloodType(String bloodType) {
-        return notificationRepository.findActiveNotificationsByBloodType(LocalDateTime.now(), bloodType);
+        return activeIndex.getActive(bloodType).getNotifications();
+    }
+
+    @Override
+    public ActiveEmergencyIndex.Listing getActiveNotificationListing(String bloodType) {
+        return activeIndex.getActive(bloodType);
     }
 
     @Override
@@ -86,28 +120,43 @@ public class EmergencyNotificationServiceImpl implements EmergencyNotificationSe
             EmergencyNotification notification = notificationOpt.get();
             notification.setStatus(status);
             notification.setUpdatedAt(LocalDateTime.now());
-            return Optional.of(notificationRepository.save(notification));
+            EmergencyNotification savedNotification = notificationRepository.save(notification);
+            trackExpiry(savedNotification);
+            return Optional.of(savedNotification);
         }
         
         return Optional.empty();
     }
 
     @Override
-    @Scheduled(fixedRate = 3600000) // Run every hour
+    @Scheduled(fixedRate = 3600000) // Reconciliation sweep; EmergencyExpiryScheduler expires on time
     public int markExpiredNotifications() {
-        List<EmergencyNotification> expiredNotifications = notificationRepository.findExpiredNotifications(LocalDateTime.now());
-        
-        for (EmergencyNotification notification : expiredNotifications) {
-            notification.setStatus("EXPIRED");
-            notification.setUpdatedAt(LocalDateTime.now());
-            notificationRepository.save(notification);
-        }
-        
-        return expiredNotifications.size();
+        LocalDateTime now = LocalDateTime.now();
+        int expired = notificationRepository.expireAllDueNotifications(now);
+        activeIndex.removeExpired(now);
+        return expired;
     }
 
     @Override
     public void deleteNotification(Long id) {
         notificationRepository.deleteById(id);
+        expiryScheduler.untrack(id);
+        activeIndex.remove(List.of(id));
+    }
+
+    // Only active notifications need an expiry deadline and a place in the active index
+    private void trackExpiry(EmergencyNotification notification) {
+        activeIndex.update(notification);
+        if ("ACTIVE".equals(notification.getStatus())) {
+            expiryScheduler.track(notification.getId(), notification.getExpiryDate());
+        } else {
+            expiryScheduler.untrack(notification.getId());
+        }
+    }
+
+    // Imported or back-dated notifications that are already over should not alert anyone
+    private static boolean isLive(EmergencyNotification notification) {
+        return "ACTIVE".equals(notification.getStatus())
+                && (notification.getExpiryDate() == null || notification.getExpiryDate().isAfter(LocalDateTime.now()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Hospital;
+import com.example.demo.repository.DonorRepository;
+import com.example.demo.repository.HospitalRepository;
+import com.example.demo.util.Gazetteer;
+import com.example.demo.util.GeoPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves coordinates for donors and hospitals saved before they were geocoded, then
+ * builds the spatial donor index.
+ *
+ * Donors in the same place share coordinates, so they are updated with one statement
+ * per resolved place rather than one per donor. Locations the gazetteer does not know
+ * are left without coordinates and are retried on the next start.
+ */
+@Component
+public class GeoLocationBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoLocationBackfill.class);
+    private static final int UPDATE_BATCH_SIZE = 1000;
+
+    private final DonorRepository donorRepository;
+    private final HospitalRepository hospitalRepository;
+    private final Gazetteer gazetteer;
+    private final DonorGeoIndex donorGeoIndex;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Autowired
+    public GeoLocationBackfill(DonorRepository donorRepository, HospitalRepository hospitalRepository,
+                               Gazetteer gazetteer, DonorGeoIndex donorGeoIndex,
+                               ReferenceDataCache referenceDataCache) {
+        this.donorRepository = donorRepository;
+        this.hospitalRepository = hospitalRepository;
+        this.gazetteer = gazetteer;
+        this.donorGeoIndex = donorGeoIndex;
+        this.referenceDataCache = referenceDataCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            backfillHospitals();
+            backfillDonors();
+        } catch (Exception e) {
+            logger.error("Error resolving coordinates: {}", e.getMessage(), e);
+        }
+        donorGeoIndex.load();
+    }
+
+    private void backfillHospitals() {
+        List<Hospital> located = new ArrayList<>();
+        for (Hospital hospital : hospitalRepository.findByLatitudeIsNull()) {
+            Optional<GeoPoint> point = gazetteer.resolve(hospital.getAddress());
+            if (point.isPresent()) {
+                hospital.setLatitude(point.get().getLatitude());
+                hospital.setLongitude(point.get().getLongitude());
+                located.add(hospital);
+            }
+        }
+        hospitalRepository.saveAll(located);
+        if (!located.isEmpty()) {
+            referenceDataCache.hospitalsChanged();
+            logger.info("Resolved coordinates for {} hospitals", located.size());
+        }
+    }
+
+    private void backfillDonors() {
+        Map<GeoPoint, List<Long>> donorsByPoint = new HashMap<>();
+        int unresolved = 0;
+        for (Object[] row : donorRepository.findUnlocatedDonors()) {
+            Optional<GeoPoint> point = gazetteer.resolve((String) row[1]);
+            if (point.isPresent()) {
+                donorsByPoint.computeIfAbsent(point.get(), k -> new ArrayList<>()).add((Long) row[0]);
+            } else {
+                unresolved++;
+            }
+        }
+        int updated = 0;
+        for (Map.Entry<GeoPoint, List<Long>> entry : donorsByPoint.entrySet()) {
+            List<Long> ids = entry.getValue();
+            for (int from = 0; from < ids.size(); from += UPDATE_BATCH_SIZE) {
+                updated += donorRepository.updateCoordinates(ids.subList(from, Math.min(ids.size(), from + UPDATE_BATCH_SIZE)),
+                        entry.getKey().getLatitude(), entry.getKey().getLongitude());
+            }
+        }
+        if (updated > 0 || unresolved > 0) {
+            logger.info("Resolved coordinates for {} donors; {} locations not found in the gazetteer", updated, unresolved);
+        }
+    }
+}
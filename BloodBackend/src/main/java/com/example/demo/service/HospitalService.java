@@ -1,6 +1,9 @@
 package com.example.demo.service;
 
 import com.example.demo.model.Hospital;
+import com.example.demo.util.CursorPage;
+import org.springframework.data.domain.Page;
+
 import java.util.List;
 import java.util.Optional;
 
@@ -8,6 +11,8 @@ public interface HospitalService {
     
     List<Hospital> getAllHospitals();
     
+    Optional<CursorPage<Hospital>> listHospitals(String status, String cursor, int limit);
+    
     Optional<Hospital> getHospitalById(Long id);
     
     Hospital saveHospital(Hospital hospital);
@@ -21,4 +26,6 @@ public interface HospitalService {
     Optional<Hospital> findByRegistrationNumber(String registrationNumber);
     
     List<Hospital> searchHospitals(String query);
+    
+    Page<Hospital> searchHospitals(String query, int page, int size);
 }
\ No newline at end of file
@@ -2,7 +2,15 @@ package com.example.demo.service;
 
 import com.example.demo.model.Hospital;
 import com.example.demo.repository.HospitalRepository;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.Gazetteer;
+import com.example.demo.util.KeysetPager;
+import com.example.demo.util.TrigramIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -13,20 +21,34 @@ import java.util.Optional;
 public class HospitalServiceImpl implements HospitalService {
 
     private final HospitalRepository hospitalRepository;
+    private final Gazetteer gazetteer;
+    private final SearchIndexService searchIndexService;
+    private final ReferenceDataCache referenceDataCache;
 
     @Autowired
-    public HospitalServiceImpl(HospitalRepository hospitalRepository) {
+    public HospitalServiceImpl(HospitalRepository hospitalRepository, Gazetteer gazetteer,
+                               SearchIndexService searchIndexService, ReferenceDataCache referenceDataCache) {
         this.hospitalRepository = hospitalRepository;
+        this.gazetteer = gazetteer;
+        this.searchIndexService = searchIndexService;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @Override
     public List<Hospital> getAllHospitals() {
-        return hospitalRepository.findAll();
+        return referenceDataCache.getAllHospitals();
+    }
+    
+    @Override
+    public Optional<CursorPage<Hospital>> listHospitals(String status, String cursor, int limit) {
+        Specification<Hospital> filter = Specification.where(KeysetPager.<Hospital>equal("status", status));
+        return KeysetPager.fetch(hospitalRepository, filter,
+                KeysetPager.Order.byText("name", Hospital::getName, Hospital::getId, false), cursor, limit);
     }
 
     @Override
     public Optional<Hospital> getHospitalById(Long id) {
-        return hospitalRepository.findById(id);
+        return referenceDataCache.getHospital(id);
     }
 
     @Override
@@ -35,17 +57,29 @@ public class HospitalServiceImpl implements HospitalService {
             hospital.setCreatedAt(LocalDateTime.now());
         }
         hospital.setUpdatedAt(LocalDateTime.now());
-        return hospitalRepository.save(hospital);
+        // Keep coordinates the client supplied; otherwise place the hospital from its address
+        if (hospital.getLatitude() == null || hospital.getLongitude() == null) {
+            gazetteer.resolve(hospital.getAddress()).ifPresent(point -> {
+                hospital.setLatitude(point.getLatitude());
+                hospital.setLongitude(point.getLongitude());
+            });
+        }
+        Hospital savedHospital = hospitalRepository.save(hospital);
+        referenceDataCache.hospitalChanged(savedHospital.getId());
+        searchIndexService.index(SearchIndexService.Field.HOSPITAL_NAME, savedHospital.getId(), savedHospital.getName());
+        return savedHospital;
     }
 
     @Override
     public void deleteHospital(Long id) {
         hospitalRepository.deleteById(id);
+        referenceDataCache.hospitalChanged(id);
+        searchIndexService.remove(SearchIndexService.Field.HOSPITAL_NAME, id);
     }
 
     @Override
     public List<Hospital> getActiveHospitals() {
-        return hospitalRepository.findByStatus("ACTIVE");
+        return referenceDataCache.getActiveHospitals();
     }
 
     @Override
@@ -60,6 +94,13 @@ public class HospitalServiceImpl implements HospitalService {
 
     @Override
     public List<Hospital> searchHospitals(String query) {
-        return hospitalRepository.findByNameContainingIgnoreCase(query);
+        return searchHospitals(query, 0, Integer.MAX_VALUE).getContent();
+    }
+
+    @Override
+    public Page<Hospital> searchHospitals(String query, int page, int size) {
+        TrigramIndex.Result result = searchIndexService.search(SearchIndexService.Field.HOSPITAL_NAME, query, page, size);
+        List<Hospital> hospitals = SearchIndexService.inOrder(result.getIds(), hospitalRepository.findAllById(result.getIds()), Hospital::getId);
+        return new PageImpl<>(hospitals, PageRequest.of(page, Math.max(1, size)), result.getTotal());
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface LoginService {
+    
+    /**
+     * Verify a user's credentials on the password hashing pool
+     * 
+     * @param username The email the user logs in with
+     * @param password The password to verify
+     * @param requiredRole The role the user must have, or null for any role
+     * @return A future completing with the user if the credentials match; it fails with
+     *         RejectedExecutionException when the hashing pool is saturated
+     */
+    CompletableFuture<Optional<User>> authenticate(String username, String password, String requiredRole);
+}
@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.PasswordHashingExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public class LoginServiceImpl implements LoginService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginServiceImpl.class);
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor hashingExecutor;
+
+    @Autowired
+    public LoginServiceImpl(UserService userService, UserRepository userRepository, PasswordEncoder passwordEncoder,
+                            PasswordHashingExecutor hashingExecutor) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> authenticate(String username, String password, String requiredRole) {
+        // Read the stored hash from the database, never from a cache
+        User user = userRepository.findByEmail(username).orElse(null);
+        if (user == null || password == null || (requiredRole != null && !requiredRole.equals(user.getRole()))) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        String storedPassword = user.getPassword();
+        if (storedPassword == null || !storedPassword.startsWith("$2a$")) {
+            // Legacy password comparison - for transition period. The comparison is cheap;
+            // re-encoding is queued so the request does not pay for a BCrypt hash.
+            boolean passwordMatch = storedPassword != null && storedPassword.equals(password);
+            if (passwordMatch) {
+                queuePasswordUpgrade(user.getId(), password);
+            }
+            return CompletableFuture.completedFuture(passwordMatch ? Optional.of(user) : Optional.empty());
+        }
+
+        return hashingExecutor.submit(() -> passwordEncoder.matches(password, storedPassword)
+                ? Optional.of(user)
+                : Optional.<User>empty());
+    }
+
+    // Update to encoded password for future logins
+    private void queuePasswordUpgrade(Long userId, String rawPassword) {
+        hashingExecutor.submitUpgrade(() -> {
+            try {
+                userService.getUserById(userId).ifPresent(user -> {
+                    if (user.getPassword() != null && !user.getPassword().startsWith("$2a$")) {
+                        user.setPassword(passwordEncoder.encode(rawPassword));
+                        userService.saveUser(user);
+                    }
+                });
+            } catch (Exception e) {
+                logger.warn("Could not upgrade legacy password for user {}: {}", userId, e.getMessage());
+            }
+        });
+    }
+}
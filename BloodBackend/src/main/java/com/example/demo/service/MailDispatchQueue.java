@@ -0,0 +1,311 @@
+package com.example.demo.service;
+
+import com.example.demo.util.TokenBucket;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous outbound mail pipeline.
+ *
+ * Callers enqueue plain-text messages and return immediately. A single background worker
+ * drains the queue in batches and hands each batch to {@link JavaMailSender} in one call,
+ * so one SMTP connection is reused for the whole batch. Sending is rate limited to
+ * {@code mail.dispatch.ratePerSecond} to stay within the relay's limits.
+ *
+ * Every message carries a dedup key (e.g. notification and donor); a key seen within the
+ * last {@code mail.dispatch.dedupWindowHours} is dropped, so re-running a fan-out never
+ * mails the same person twice. Messages the server rejects are retried with exponential
+ * backoff up to {@code mail.dispatch.maxAttempts} times. The queue is bounded; when it is
+ * full new messages are dropped and counted rather than exhausting memory.
+ *
+ * If no mail server is configured (no {@code spring.mail.host}), messages are still
+ * deduplicated and drained but only counted as undeliverable.
+ */
+@Component
+public class MailDispatchQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(MailDispatchQueue.class);
+
+    private final ObjectProvider<JavaMailSender> mailSenderProvider;
+
+    @Value("${mail.dispatch.from:noreply@bloodbank.local}")
+    private String from;
+
+    @Value("${mail.dispatch.capacity:50000}")
+    private int capacity;
+
+    @Value("${mail.dispatch.batchSize:50}")
+    private int batchSize;
+
+    @Value("${mail.dispatch.ratePerSecond:20}")
+    private double ratePerSecond;
+
+    @Value("${mail.dispatch.maxAttempts:3}")
+    private int maxAttempts;
+
+    @Value("${mail.dispatch.retryDelayMs:30000}")
+    private long retryDelayMs;
+
+    @Value("${mail.dispatch.dedupWindowHours:24}")
+    private long dedupWindowHours;
+
+    private final DelayQueue<OutboundMail> queue = new DelayQueue<>();
+    private final Map<String, Long> recentKeys = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong undeliverable = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private volatile double sentPerSecond;
+
+    @Autowired
+    public MailDispatchQueue(ObjectProvider<JavaMailSender> mailSenderProvider) {
+        this.mailSenderProvider = mailSenderProvider;
+        this.worker = new Thread(this::drain, "mail-dispatch");
+        this.worker.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mailSenderProvider.getIfAvailable() == null) {
+            logger.warn("No mail server configured (spring.mail.host); queued mail will not be delivered");
+        }
+        worker.start();
+    }
+
+    /**
+     * Queue a plain-text message for delivery
+     *
+     * @param dedupKey Identifies the message; a key already queued within the dedup window is ignored
+     * @param to The recipient's address
+     * @param subject The subject line
+     * @param text The message body
+     * @return True if the message was queued, false if it was a duplicate or the queue is full
+     */
+    public boolean enqueue(String dedupKey, String to, String subject, String text) {
+        if (to == null || to.isBlank()) {
+            return false;
+        }
+        if (recentKeys.putIfAbsent(dedupKey, System.currentTimeMillis()) != null) {
+            deduplicated.incrementAndGet();
+            return false;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            recentKeys.remove(dedupKey);
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.add(new OutboundMail(dedupKey, to, subject, text, System.nanoTime()));
+        enqueued.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Get the number of messages that can still be queued before new ones are dropped
+     *
+     * @return The free queue capacity
+     */
+    public int remainingCapacity() {
+        return Math.max(0, capacity - pending.get());
+    }
+
+    /**
+     * Get delivery counters for monitoring
+     *
+     * @return A map of counter name to value
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pending", pending.get());
+        stats.put("enqueued", enqueued.get());
+        stats.put("sent", sent.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("undeliverable", undeliverable.get());
+        stats.put("deduplicated", deduplicated.get());
+        stats.put("dropped", dropped.get());
+        stats.put("sentPerSecond", sentPerSecond);
+        stats.put("mailServerConfigured", mailSenderProvider.getIfAvailable() != null);
+        return stats;
+    }
+
+    /**
+     * Forget dedup keys older than the dedup window
+     */
+    @Scheduled(fixedRate = 3600000) // Run every hour
+    public void evictExpiredKeys() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(dedupWindowHours);
+        recentKeys.values().removeIf(queuedAt -> queuedAt < cutoff);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        if (pending.get() > 0) {
+            logger.warn("Shutting down with {} undelivered messages", pending.get());
+        }
+    }
+
+    private void drain() {
+        TokenBucket rate = new TokenBucket(Math.max(1, batchSize), ratePerSecond, System.nanoTime());
+        List<OutboundMail> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+                OutboundMail next;
+                while (batch.size() < batchSize && (next = queue.poll()) != null) {
+                    batch.add(next);
+                }
+                long started = System.nanoTime();
+                for (int i = 0; i < batch.size(); i++) {
+                    while (!rate.tryConsume(System.nanoTime())) {
+                        Thread.sleep(Math.max(1L, (long) (1000 / ratePerSecond)));
+                    }
+                }
+                int delivered = send(batch);
+                long elapsed = System.nanoTime() - started;
+                if (delivered > 0 && elapsed > 0) {
+                    sentPerSecond = delivered * 1_000_000_000.0 / elapsed;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error dispatching mail: {}", e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Returns the number of messages the server accepted
+    private int send(List<OutboundMail> batch) {
+        JavaMailSender mailSender = mailSenderProvider.getIfAvailable();
+        if (mailSender == null) {
+            pending.addAndGet(-batch.size());
+            undeliverable.addAndGet(batch.size());
+            logger.debug("No mail server configured; discarding {} messages", batch.size());
+            return 0;
+        }
+
+        Map<SimpleMailMessage, OutboundMail> byMessage = new IdentityHashMap<>();
+        for (OutboundMail mail : batch) {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(from);
+            message.setTo(mail.to);
+            message.setSubject(mail.subject);
+            message.setText(mail.text);
+            byMessage.put(message, mail);
+        }
+
+        try {
+            mailSender.send(byMessage.keySet().toArray(new SimpleMailMessage[0]));
+            complete(batch.size());
+            return batch.size();
+        } catch (MailSendException e) {
+            // Only the messages listed as failed were rejected; the rest went out
+            List<OutboundMail> rejected = new ArrayList<>();
+            e.getFailedMessages().keySet().forEach(message -> {
+                OutboundMail mail = byMessage.get(message);
+                if (mail != null) {
+                    rejected.add(mail);
+                }
+            });
+            if (rejected.isEmpty()) {
+                rejected.addAll(batch);
+            }
+            complete(batch.size() - rejected.size());
+            rejected.forEach(mail -> retryOrFail(mail, e));
+            return batch.size() - rejected.size();
+        } catch (MailException e) {
+            batch.forEach(mail -> retryOrFail(mail, e));
+            return 0;
+        }
+    }
+
+    private void complete(int count) {
+        pending.addAndGet(-count);
+        sent.addAndGet(count);
+    }
+
+    private void retryOrFail(OutboundMail mail, Exception cause) {
+        if (mail.attempts + 1 < maxAttempts) {
+            long backoffNanos = TimeUnit.MILLISECONDS.toNanos(retryDelayMs << mail.attempts);
+            queue.add(mail.retryAt(System.nanoTime() + backoffNanos));
+            retried.incrementAndGet();
+        } else {
+            pending.decrementAndGet();
+            failed.incrementAndGet();
+            logger.warn("Giving up on mail to {} after {} attempts: {}", mail.to, maxAttempts, cause.getMessage());
+        }
+    }
+
+    private static final class OutboundMail implements Delayed {
+        private final String dedupKey;
+        private final String to;
+        private final String subject;
+        private final String text;
+        private final long readyAtNanos;
+        private final int attempts;
+
+        private OutboundMail(String dedupKey, String to, String subject, String text, long readyAtNanos) {
+            this(dedupKey, to, subject, text, readyAtNanos, 0);
+        }
+
+        private OutboundMail(String dedupKey, String to, String subject, String text, long readyAtNanos, int attempts) {
+            this.dedupKey = dedupKey;
+            this.to = to;
+            this.subject = subject;
+            this.text = text;
+            this.readyAtNanos = readyAtNanos;
+            this.attempts = attempts;
+        }
+
+        private OutboundMail retryAt(long readyAtNanos) {
+            return new OutboundMail(dedupKey, to, subject, text, readyAtNanos, attempts + 1);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(readyAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof OutboundMail mail) {
+                return Long.compare(readyAtNanos, mail.readyAtNanos);
+            }
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Hospital;
+import com.example.demo.model.User;
+import com.example.demo.repository.HospitalRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.NearCache;
+import com.example.demo.util.SnapshotRestoredEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Near cache for reference data that is read on most requests but rarely written:
+ * hospitals by ID, the full and active hospital lists, and users by email.
+ *
+ * The cache holds its own detached copies and every read returns a fresh copy, so a
+ * caller can modify and save what it gets back without other requests seeing the change.
+ * Every write goes through {@link HospitalService} or {@link UserService}, which report
+ * it here so the next read goes to the database; the TTL bounds how stale another
+ * instance's writes can look. Password checks do not read from this cache.
+ */
+@Component
+public class ReferenceDataCache {
+
+    private static final String ALL_HOSPITALS = "ALL";
+    private static final String ACTIVE_HOSPITALS = "ACTIVE";
+
+    private final HospitalRepository hospitalRepository;
+    private final UserRepository userRepository;
+    private final NearCache<Long, Hospital> hospitals;
+    private final NearCache<String, List<Hospital>> hospitalLists;
+    private final NearCache<String, User> usersByEmail;
+
+    @Autowired
+    public ReferenceDataCache(HospitalRepository hospitalRepository, UserRepository userRepository,
+                              @Value("${cache.reference.ttlMs:300000}") long ttlMs,
+                              @Value("${cache.reference.maxSize:1000}") int maxSize) {
+        this.hospitalRepository = hospitalRepository;
+        this.userRepository = userRepository;
+        this.hospitals = new NearCache<>(ttlMs, maxSize);
+        this.hospitalLists = new NearCache<>(ttlMs, 2);
+        this.usersByEmail = new NearCache<>(ttlMs, maxSize);
+    }
+
+    /**
+     * Get a hospital by ID
+     *
+     * @param id The ID of the hospital
+     * @return An Optional containing the hospital if found
+     */
+    public Optional<Hospital> getHospital(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return hospitals.get(id, key -> hospitalRepository.findById(key).map(ReferenceDataCache::copyOf))
+                .map(ReferenceDataCache::copyOf);
+    }
+
+    /**
+     * Get every hospital
+     *
+     * @return A list of all hospitals
+     */
+    public List<Hospital> getAllHospitals() {
+        return copyOf(hospitalLists.get(ALL_HOSPITALS, key -> Optional.of(copyOf(hospitalRepository.findAll())))
+                .orElse(List.of()));
+    }
+
+    /**
+     * Get the hospitals whose status is ACTIVE
+     *
+     * @return A list of active hospitals
+     */
+    public List<Hospital> getActiveHospitals() {
+        return copyOf(hospitalLists.get(ACTIVE_HOSPITALS, key -> Optional.of(copyOf(hospitalRepository.findByStatus(key))))
+                .orElse(List.of()));
+    }
+
+    /**
+     * Record that a hospital was saved or deleted
+     *
+     * @param id The ID of the hospital
+     */
+    public void hospitalChanged(Long id) {
+        if (id != null) {
+            hospitals.invalidate(id);
+        }
+        hospitalLists.clear();
+    }
+
+    /**
+     * Record that hospitals were changed in bulk
+     */
+    public void hospitalsChanged() {
+        hospitals.clear();
+        hospitalLists.clear();
+    }
+
+    /**
+     * Drop every cached value, after a snapshot restore rewrote the tables outside the services
+     */
+    @EventListener(SnapshotRestoredEvent.class)
+    public void clear() {
+        hospitalsChanged();
+        usersByEmail.clear();
+    }
+
+    /**
+     * Get a user by email, compared case-insensitively as the database does
+     *
+     * @param email The email of the user
+     * @return An Optional containing the user if found
+     */
+    public Optional<User> getUserByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        return usersByEmail.get(email.toLowerCase(Locale.ROOT), key -> userRepository.findByEmail(email).map(ReferenceDataCache::copyOf))
+                .map(ReferenceDataCache::copyOf);
+    }
+
+    /**
+     * Record that a user was saved or deleted; their email may have changed, so the entry
+     * is found by ID
+     *
+     * @param id The ID of the user
+     */
+    public void userChanged(Long id) {
+        if (id != null) {
+            usersByEmail.invalidateIf(user -> id.equals(user.getId()));
+        }
+    }
+
+    /**
+     * Get the size and hit rate of each cache
+     *
+     * @return A map of cache name to its counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hospitals", hospitals.getStats());
+        stats.put("hospitalLists", hospitalLists.getStats());
+        stats.put("usersByEmail", usersByEmail.getStats());
+        return stats;
+    }
+
+    private static List<Hospital> copyOf(List<Hospital> hospitals) {
+        List<Hospital> copies = new ArrayList<>(hospitals.size());
+        for (Hospital hospital : hospitals) {
+            copies.add(copyOf(hospital));
+        }
+        return copies;
+    }
+
+    // The blood requests collection is lazy and never read through the cache, so it is not copied
+    private static Hospital copyOf(Hospital hospital) {
+        Hospital copy = new Hospital(hospital.getName(), hospital.getAddress(), hospital.getContactPerson(),
+                hospital.getEmail(), hospital.getPhone(), hospital.getRegistrationNumber());
+        copy.setId(hospital.getId());
+        copy.setStatus(hospital.getStatus());
+        copy.setLatitude(hospital.getLatitude());
+        copy.setLongitude(hospital.getLongitude());
+        copy.setCreatedAt(hospital.getCreatedAt());
+        copy.setUpdatedAt(hospital.getUpdatedAt());
+        return copy;
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setBloodType(user.getBloodType());
+        copy.setRole(user.getRole());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        return copy;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.util.TrigramIndex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+public interface SearchIndexService {
+
+    /**
+     * The text fields that can be searched
+     */
+    enum Field {
+        DONOR_LOCATION,
+        HOSPITAL_NAME,
+        BLOOD_REQUEST_LOCATION,
+        APPOINTMENT_LOCATION
+    }
+
+    /**
+     * Add or update the indexed text of a record
+     * 
+     * @param field The field the text belongs to
+     * @param id The ID of the record
+     * @param text The current text; null removes the record from the index
+     */
+    void index(Field field, Long id, String text);
+
+    /**
+     * Remove a deleted record from the index
+     * 
+     * @param field The field to remove the record from
+     * @param id The ID of the record
+     */
+    void remove(Field field, Long id);
+
+    /**
+     * Find records whose field contains the query, best matches first
+     * 
+     * @param field The field to search
+     * @param query The text to look for
+     * @param page The zero-based page number
+     * @param size The page size
+     * @return The total number of matches and the IDs on the requested page
+     */
+    TrigramIndex.Result search(Field field, String query, int page, int size);
+
+    /**
+     * Get the number of records indexed per field
+     * 
+     * @return A map of field name to record count
+     */
+    Map<String, Object> getStats();
+
+    /**
+     * Put loaded entities back into the order of the IDs they were loaded by
+     * 
+     * @param ids The IDs in the wanted order
+     * @param entities The entities, in any order
+     * @param idOf Extracts an entity's ID
+     * @return The entities in ID order, skipping IDs that were not found
+     */
+    static <T> List<T> inOrder(List<Long> ids, List<T> entities, Function<T, Long> idOf) {
+        Map<Long, T> byId = new HashMap<>();
+        entities.forEach(entity -> byId.put(idOf.apply(entity), entity));
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = byId.get(id);
+            if (entity != null) {
+                ordered.add(entity);
+            }
+        }
+        return ordered;
+    }
+}
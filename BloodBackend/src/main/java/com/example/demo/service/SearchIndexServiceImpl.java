@@ -0,0 +1,148 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.BloodRequestRepository;
+import com.example.demo.repository.DonationAppointmentRepository;
+import com.example.demo.repository.DonorRepository;
+import com.example.demo.repository.HospitalRepository;
+import com.example.demo.util.SnapshotRestoredEvent;
+import com.example.demo.util.TrigramIndex;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Location and name search backed by in-memory trigram indexes.
+ *
+ * Replaces {@code LIKE '%x%'} queries, which scan the whole table on every keystroke of
+ * a search box. The indexes are built once on startup, before requests are accepted,
+ * from ID/text projections, and kept current by the owning services' writes. Writes made
+ * through other instances or directly in the database are picked up by checking each
+ * table's latest update time and row count every {@code search.index.checkMs}; an index
+ * is only rebuilt when either moved.
+ */
+@Service
+public class SearchIndexServiceImpl implements SearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexServiceImpl.class);
+
+    private final DonorRepository donorRepository;
+    private final HospitalRepository hospitalRepository;
+    private final BloodRequestRepository bloodRequestRepository;
+    private final DonationAppointmentRepository appointmentRepository;
+    private final Map<Field, TrigramIndex> indexes = new EnumMap<>(Field.class);
+    private final Map<Field, Marker> loadedMarkers = new EnumMap<>(Field.class);
+
+    @Autowired
+    public SearchIndexServiceImpl(DonorRepository donorRepository, HospitalRepository hospitalRepository,
+                                  BloodRequestRepository bloodRequestRepository,
+                                  DonationAppointmentRepository appointmentRepository) {
+        this.donorRepository = donorRepository;
+        this.hospitalRepository = hospitalRepository;
+        this.bloodRequestRepository = bloodRequestRepository;
+        this.appointmentRepository = appointmentRepository;
+        for (Field field : Field.values()) {
+            indexes.put(field, new TrigramIndex());
+        }
+    }
+
+    /**
+     * Build every index from the database
+     */
+    @PostConstruct
+    @EventListener(SnapshotRestoredEvent.class)
+    public void load() {
+        long started = System.currentTimeMillis();
+        for (Field field : Field.values()) {
+            load(field, marker(field));
+        }
+        logger.info("Built search indexes {} in {} ms", getStats(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Rebuild the indexes whose table was written through another instance since the
+     * last load
+     */
+    @Scheduled(fixedDelayString = "${search.index.checkMs:30000}")
+    public void checkForChanges() {
+        for (Field field : Field.values()) {
+            Marker marker = marker(field);
+            synchronized (this) {
+                if (marker.equals(loadedMarkers.get(field))) {
+                    continue;
+                }
+            }
+            load(field, marker);
+            logger.info("Rebuilt the {} search index after outside changes", field);
+        }
+    }
+
+    @Override
+    public void index(Field field, Long id, String text) {
+        if (id != null) {
+            indexes.get(field).put(id, text);
+        }
+    }
+
+    @Override
+    public void remove(Field field, Long id) {
+        if (id != null) {
+            indexes.get(field).remove(id);
+        }
+    }
+
+    @Override
+    public TrigramIndex.Result search(Field field, String query, int page, int size) {
+        return indexes.get(field).search(query, (int) Math.min(Integer.MAX_VALUE, (long) page * size), size);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        indexes.forEach((field, index) -> stats.put(field.name(), index.size()));
+        return stats;
+    }
+
+    // The marker is read before the rows, so a write made during the load is seen by the next check
+    private void load(Field field, Marker marker) {
+        Map<Long, String> texts = new HashMap<>();
+        for (Object[] row : rows(field)) {
+            texts.put((Long) row[0], (String) row[1]);
+        }
+        indexes.get(field).replaceAll(texts);
+        synchronized (this) {
+            loadedMarkers.put(field, marker);
+        }
+    }
+
+    private List<Object[]> rows(Field field) {
+        return switch (field) {
+            case DONOR_LOCATION -> donorRepository.findAllLocations();
+            case HOSPITAL_NAME -> hospitalRepository.findAllNames();
+            case BLOOD_REQUEST_LOCATION -> bloodRequestRepository.findAllLocations();
+            case APPOINTMENT_LOCATION -> appointmentRepository.findAllLocations();
+        };
+    }
+
+    private Marker marker(Field field) {
+        return switch (field) {
+            case DONOR_LOCATION -> new Marker(donorRepository.findLatestUpdate(), donorRepository.count());
+            case HOSPITAL_NAME -> new Marker(hospitalRepository.findLatestUpdate(), hospitalRepository.count());
+            case BLOOD_REQUEST_LOCATION -> new Marker(bloodRequestRepository.findLatestUpdate(), bloodRequestRepository.count());
+            case APPOINTMENT_LOCATION -> new Marker(appointmentRepository.findLatestUpdate(), appointmentRepository.count());
+        };
+    }
+
+    // The latest update time and row count of the table behind an index
+    private record Marker(LocalDateTime latestUpdate, long count) {
+    }
+}
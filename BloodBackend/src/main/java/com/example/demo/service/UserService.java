@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import com.example.demo.model.User;
+import com.example.demo.util.CursorPage;
 
 import java.util.List;
 import java.util.Optional;
@@ -38,6 +39,16 @@ public interface UserService {
      */
     List<User> getAllUsers();
     
+    /**
+     * Get one page of users, filtered on the given values; null filters are ignored
+     * 
+     * @param role Only users with this role
+     * @param cursor The token from the previous page, or null for the first page
+     * @param limit The maximum number of rows to return
+     * @return The page, or empty if the cursor is invalid
+     */
+    Optional<CursorPage<User>> listUsers(String role, String cursor, int limit);
+    
     /**
      * Delete a user
      * 
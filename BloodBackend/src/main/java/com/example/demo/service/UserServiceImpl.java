@@ -1,13 +1,20 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.UserCredentials;
 import com.example.demo.model.User;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.TokenRevocationStore;
+import com.example.demo.security.UserPrincipalCache;
+import com.example.demo.util.CursorPage;
+import com.example.demo.util.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -15,11 +22,19 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCache principalCache;
+    private final TokenRevocationStore revocationStore;
+    private final ReferenceDataCache referenceDataCache;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           UserPrincipalCache principalCache, TokenRevocationStore revocationStore,
+                           ReferenceDataCache referenceDataCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.revocationStore = revocationStore;
+        this.referenceDataCache = referenceDataCache;
     }
 
     @Override
@@ -34,7 +49,24 @@ public class UserServiceImpl implements UserService {
         }
         user.setUpdatedAt(LocalDateTime.now());
         
-        return userRepository.save(user);
+        // Read before saving: the user passed in may already carry the new values
+        Optional<UserCredentials> previous = user.getId() != null
+                ? userRepository.findCredentialsById(user.getId())
+                : Optional.empty();
+        User savedUser;
+        try {
+            savedUser = userRepository.save(user);
+        } finally {
+            // The user passed in may be the cached instance, already modified by the caller
+            referenceDataCache.userChanged(user.getId());
+        }
+        // Tokens carry the email and role they were issued with, so a change to either (or to
+        // the password) revokes every token issued so far
+        if (previous.isPresent() && credentialsChanged(previous.get(), savedUser)) {
+            revocationStore.revokeAllForUser(previous.get().getEmail());
+        }
+        principalCache.invalidate(savedUser.getId());
+        return savedUser;
     }
 
     @Override
@@ -44,17 +76,28 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return referenceDataCache.getUserByEmail(email);
     }
 
     @Override
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
+    
+    @Override
+    public Optional<CursorPage<User>> listUsers(String role, String cursor, int limit) {
+        Specification<User> filter = Specification.where(KeysetPager.<User>equal("role", role));
+        return KeysetPager.fetch(userRepository, filter,
+                KeysetPager.Order.byId(User::getId, false), cursor, limit);
+    }
 
     @Override
     public void deleteUser(Long id) {
+        Optional<UserCredentials> previous = userRepository.findCredentialsById(id);
         userRepository.deleteById(id);
+        referenceDataCache.userChanged(id);
+        previous.ifPresent(credentials -> revocationStore.revokeAllForUser(credentials.getEmail()));
+        principalCache.invalidate(id);
     }
 
     @Override
@@ -87,7 +130,21 @@ public class UserServiceImpl implements UserService {
     
     @Override
     public User findByUsername(String username) {
-        Optional<User> userOpt = userRepository.findByEmail(username);
+        Optional<User> userOpt = referenceDataCache.getUserByEmail(username);
         return userOpt.orElse(null);
     }
-}
\ No newline at end of file
+
+    // Upgrading a legacy plain-text password to its hash is not a change of password
+    private boolean credentialsChanged(UserCredentials previous, User saved) {
+        if (!Objects.equals(previous.getEmail(), saved.getEmail()) || !Objects.equals(previous.getRole(), saved.getRole())) {
+            return true;
+        }
+        String oldPassword = previous.getPassword();
+        String newPassword = saved.getPassword();
+        if (Objects.equals(oldPassword, newPassword)) {
+            return false;
+        }
+        return oldPassword == null || newPassword == null || oldPassword.startsWith("$2a$")
+                || !passwordEncoder.matches(oldPassword, newPassword);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Red cell compatibility between ABO/Rh blood groups.
+ *
+ * The chart is built once; both directions are precomputed so that "who can this donor
+ * give to" and "who can give to this recipient" are plain lookups.
+ */
+public final class BloodCompatibility {
+
+    private static final Map<String, Set<String>> RECIPIENTS_BY_DONOR = new HashMap<>();
+    private static final Map<String, Set<String>> DONORS_BY_RECIPIENT = new HashMap<>();
+
+    static {
+        // O- can donate to anyone
+        RECIPIENTS_BY_DONOR.put("O-", Set.of("O+", "O-", "A+", "A-", "B+", "B-", "AB+", "AB-"));
+        // O+ can donate to O+, A+, B+, AB+
+        RECIPIENTS_BY_DONOR.put("O+", Set.of("O+", "A+", "B+", "AB+"));
+        // A- can donate to A+, A-, AB+, AB-
+        RECIPIENTS_BY_DONOR.put("A-", Set.of("A+", "A-", "AB+", "AB-"));
+        // A+ can donate to A+, AB+
+        RECIPIENTS_BY_DONOR.put("A+", Set.of("A+", "AB+"));
+        // B- can donate to B+, B-, AB+, AB-
+        RECIPIENTS_BY_DONOR.put("B-", Set.of("B+", "B-", "AB+", "AB-"));
+        // B+ can donate to B+, AB+
+        RECIPIENTS_BY_DONOR.put("B+", Set.of("B+", "AB+"));
+        // AB- can donate to AB+, AB-
+        RECIPIENTS_BY_DONOR.put("AB-", Set.of("AB+", "AB-"));
+        // AB+ can donate only to AB+
+        RECIPIENTS_BY_DONOR.put("AB+", Set.of("AB+"));
+
+        Map<String, Set<String>> inverted = new HashMap<>();
+        RECIPIENTS_BY_DONOR.forEach((donor, recipients) ->
+                recipients.forEach(recipient -> inverted.computeIfAbsent(recipient, k -> new HashSet<>()).add(donor)));
+        inverted.forEach((recipient, donors) -> DONORS_BY_RECIPIENT.put(recipient, Set.copyOf(donors)));
+    }
+
+    private BloodCompatibility() {
+    }
+
+    /**
+     * Check whether a donor's blood can be given to a recipient
+     *
+     * @param recipientBloodGroup Recipient blood group
+     * @param donorBloodGroup Donor blood group
+     * @return True if compatible, false otherwise (including unknown groups)
+     */
+    public static boolean isCompatible(String recipientBloodGroup, String donorBloodGroup) {
+        Set<String> recipients = donorBloodGroup != null ? RECIPIENTS_BY_DONOR.get(donorBloodGroup) : null;
+        return recipients != null && recipients.contains(recipientBloodGroup);
+    }
+
+    /**
+     * Get the donor blood groups a recipient can receive
+     *
+     * @param recipientBloodGroup Recipient blood group
+     * @return The compatible donor groups, or an empty set if the group is unknown
+     */
+    public static Set<String> donorGroupsFor(String recipientBloodGroup) {
+        Set<String> donors = recipientBloodGroup != null ? DONORS_BY_RECIPIENT.get(recipientBloodGroup.trim().toUpperCase()) : null;
+        return donors != null ? donors : Collections.emptySet();
+    }
+}
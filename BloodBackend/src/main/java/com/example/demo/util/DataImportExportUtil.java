@@ -2,6 +2,8 @@ package com.example.demo.util;
 
 import com.example.demo.model.*;
 import com.example.demo.service.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -17,7 +19,9 @@ import java.util.*;
 @Component
 public class DataImportExportUtil {
 
+    private static final Logger logger = LoggerFactory.getLogger(DataImportExportUtil.class);
     private static final String CSV_DELIMITER = ",";
+    private static final double KEY_FILTER_FALSE_POSITIVE_RATE = 0.01;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     private final DonorService donorService;
@@ -52,11 +56,21 @@ public class DataImportExportUtil {
     /**
      * Import donors from a CSV file
      * 
+     * Existing usernames and emails are loaded once into Bloom filters, so rows with
+     * new keys are accepted without a query; only likely duplicates are confirmed
+     * against the database. Duplicates within the file itself are caught in memory.
+     * 
      * @param csvFile The file containing donor data
      * @return The number of records imported
      */
     public int importDonorsFromCsv(File csvFile) throws IOException {
         int recordsImported = 0;
+        int duplicatesSkipped = 0;
+        
+        BloomFilter existingUsernames = buildKeyFilter(donorService.getAllUsernames());
+        BloomFilter existingEmails = buildKeyFilter(donorService.getAllEmails());
+        Set<String> fileUsernames = new HashSet<>();
+        Set<String> fileEmails = new HashSet<>();
         
         try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
             String line;
@@ -71,13 +85,32 @@ public class DataImportExportUtil {
                 
                 String[] data = line.split(CSV_DELIMITER);
                 if (data.length >= 8) { // At least 8 columns expected
+                    String username = data[4].trim();
+                    String email = data[5].trim();
+                    String usernameKey = username.toLowerCase(Locale.ROOT);
+                    String emailKey = email.toLowerCase(Locale.ROOT);
+                    
+                    boolean duplicate = !fileUsernames.add(usernameKey)
+                            | (!emailKey.isEmpty() && !fileEmails.add(emailKey));
+                    if (!duplicate && existingUsernames.mightContain(usernameKey)) {
+                        duplicate = donorService.existsByUsername(username);
+                    }
+                    if (!duplicate && !emailKey.isEmpty() && existingEmails.mightContain(emailKey)) {
+                        duplicate = donorService.existsByEmail(email);
+                    }
+                    if (duplicate) {
+                        logger.warn("Skipping donor import row with duplicate username or email: {}", username);
+                        duplicatesSkipped++;
+                        continue;
+                    }
+                    
                     Donor donor = new Donor();
                     donor.setName(data[0].trim());
                     donor.setLocation(data[1].trim());
                     donor.setPhone(data[2].trim());
                     donor.setBloodGroup(data[3].trim());
-                    donor.setUsername(data[4].trim());
-                    donor.setEmail(data[5].trim());
+                    donor.setUsername(username);
+                    donor.setEmail(email);
                     donor.setPassword(data[6].trim());
                     donor.setAvailable("true".equalsIgnoreCase(data[7].trim()));
                     
@@ -91,9 +124,28 @@ public class DataImportExportUtil {
             }
         }
         
+        if (duplicatesSkipped > 0) {
+            logger.info("Donor import skipped {} duplicate rows", duplicatesSkipped);
+        }
         return recordsImported;
     }
     
+    /**
+     * Build a Bloom filter over a set of lower-cased keys
+     * 
+     * @param keys The keys to add
+     * @return A filter containing every key
+     */
+    private BloomFilter buildKeyFilter(List<String> keys) {
+        BloomFilter filter = BloomFilter.create(keys.size(), KEY_FILTER_FALSE_POSITIVE_RATE);
+        for (String key : keys) {
+            if (key != null) {
+                filter.put(key);
+            }
+        }
+        return filter;
+    }
+    
     /**
      * Import blood donations from a CSV file
      * 
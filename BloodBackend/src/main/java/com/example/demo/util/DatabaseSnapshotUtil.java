@@ -0,0 +1,646 @@
+package com.example.demo.util;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Table;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Utility for taking and restoring full-database snapshots of every JPA entity table.
+ *
+ * A snapshot is a single binary archive laid out as:
+ * <pre>
+ *   magic "BBSNAP", format version
+ *   schema header: table count, then per table its name and (column name, type tag) pairs
+ *   per table: table index, payload frames (length, bytes) ended by a zero length,
+ *              row count, CRC32 of the payload
+ * </pre>
+ * Each payload is the table's rows, deflate-compressed, with every value written as a
+ * presence flag followed by its binary encoding. Payloads are streamed in frames, so
+ * neither side holds a whole table in memory and a table can be any size.
+ *
+ * Restore reads the archive twice: once to verify every checksum before the database is
+ * touched, then again to replace the contents of all entity tables in one transaction,
+ * so a failure part way leaves the database as it was. A {@link SnapshotRestoredEvent}
+ * is published once the new contents are committed. Tables are loaded one after another:
+ * a transaction is bound to a single connection, so loading tables in parallel would
+ * need one connection, and one transaction, per table and give up that guarantee.
+ */
+@Component
+public class DatabaseSnapshotUtil {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseSnapshotUtil.class);
+
+    private static final byte[] MAGIC = {'B', 'B', 'S', 'N', 'A', 'P'};
+    private static final int FORMAT_VERSION = 2;
+    private static final int FRAME_SIZE = 64 * 1024;
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_STRING = 4;
+    private static final byte TYPE_TIMESTAMP = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final TransactionTemplate restoreTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Entity tables in foreign-key order: every table comes after the tables it references
+    private final List<EntityTable> tables;
+
+    @Autowired
+    public DatabaseSnapshotUtil(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                EntityManagerFactory entityManagerFactory, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // MySQL Connector/J only streams result sets row by row with this fetch size;
+        // otherwise the whole table is buffered in memory before the first row is read
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+
+        // A single repeatable-read transaction gives every table the same consistent view
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        this.restoreTransaction = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.tables = resolveTables(entityManagerFactory.getMetamodel());
+    }
+
+    /**
+     * Write a snapshot of all entity tables to the given stream
+     *
+     * @param out The stream to write the archive to; it is not closed
+     * @return The number of rows written per table
+     */
+    public Map<String, Long> exportSnapshot(OutputStream out) throws IOException {
+        try {
+            return snapshotTransaction.execute(status -> {
+                try {
+                    return writeSnapshot(out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Replace the contents of all entity tables with the contents of a snapshot. Tables
+     * the snapshot does not contain are left empty.
+     *
+     * @param source The archive; it is opened twice, to verify and then to load
+     * @return The number of rows restored per table
+     */
+    public Map<String, Long> restoreSnapshot(InputStreamSource source) throws IOException {
+        Map<String, Long> rowCounts;
+        try (InputStream in = source.getInputStream()) {
+            rowCounts = verifySnapshot(new DataInputStream(new BufferedInputStream(in)));
+        }
+
+        Map<String, Long> restored;
+        try (InputStream in = source.getInputStream()) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+            restored = restoreTransaction.execute(status -> {
+                try {
+                    return loadSnapshot(input, rowCounts);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        logger.info("Snapshot restored: {}", restored);
+        eventPublisher.publishEvent(new SnapshotRestoredEvent(restored));
+        return restored;
+    }
+
+    private Map<String, Long> writeSnapshot(OutputStream out) throws IOException {
+        List<TableSchema> schemas = new ArrayList<>();
+        for (EntityTable table : tables) {
+            schemas.add(describeTable(table.name()));
+        }
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(out));
+        output.write(MAGIC);
+        output.writeShort(FORMAT_VERSION);
+        output.writeInt(schemas.size());
+        for (TableSchema schema : schemas) {
+            output.writeUTF(schema.name());
+            output.writeShort(schema.columns().size());
+            for (int i = 0; i < schema.columns().size(); i++) {
+                output.writeUTF(schema.columns().get(i));
+                output.writeByte(schema.types()[i]);
+            }
+        }
+
+        Map<String, Long> written = new LinkedHashMap<>();
+        for (int tableIndex = 0; tableIndex < schemas.size(); tableIndex++) {
+            TableSchema schema = schemas.get(tableIndex);
+            output.writeInt(tableIndex);
+            CheckedOutputStream payload = new CheckedOutputStream(new FrameOutputStream(output), new CRC32());
+            long rowCount = writeRows(schema, tables.get(tableIndex).idColumn(), payload);
+            output.writeLong(rowCount);
+            output.writeLong(payload.getChecksum().getValue());
+            written.put(schema.name(), rowCount);
+        }
+        output.flush();
+
+        logger.info("Snapshot exported: {}", written);
+        return written;
+    }
+
+    private TableSchema describeTable(String table) {
+        return jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0", rs -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            List<String> columns = new ArrayList<>();
+            byte[] types = new byte[meta.getColumnCount()];
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                columns.add(meta.getColumnName(i));
+                types[i - 1] = typeTag(meta.getColumnType(i));
+            }
+            return new TableSchema(table, columns, types);
+        });
+    }
+
+    // Closing the row stream ends the deflate stream and writes the frame terminator
+    private long writeRows(TableSchema schema, String idColumn, OutputStream payload) throws IOException {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        long[] rowCount = {0};
+        try (DataOutputStream rows = new DataOutputStream(
+                new BufferedOutputStream(new DeflaterOutputStream(payload, deflater)))) {
+            String sql = "SELECT " + String.join(", ", schema.columns()) + " FROM " + schema.name() + " ORDER BY " + idColumn;
+            streamingJdbcTemplate.query(sql, rs -> {
+                try {
+                    writeRow(schema, rs, rows);
+                    rowCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            deflater.end();
+        }
+        return rowCount[0];
+    }
+
+    private void writeRow(TableSchema schema, ResultSet rs, DataOutputStream rows) throws SQLException, IOException {
+        for (int i = 0; i < schema.types().length; i++) {
+            int column = i + 1;
+            switch (schema.types()[i]) {
+                case TYPE_LONG -> {
+                    long value = rs.getLong(column);
+                    writePresence(rows, rs.wasNull());
+                    if (!rs.wasNull()) {
+                        rows.writeLong(value);
+                    }
+                }
+                case TYPE_DOUBLE -> {
+                    double value = rs.getDouble(column);
+                    writePresence(rows, rs.wasNull());
+                    if (!rs.wasNull()) {
+                        rows.writeDouble(value);
+                    }
+                }
+                case TYPE_BOOLEAN -> {
+                    boolean value = rs.getBoolean(column);
+                    writePresence(rows, rs.wasNull());
+                    if (!rs.wasNull()) {
+                        rows.writeBoolean(value);
+                    }
+                }
+                case TYPE_TIMESTAMP -> {
+                    LocalDateTime value = rs.getObject(column, LocalDateTime.class);
+                    writePresence(rows, value == null);
+                    if (value != null) {
+                        rows.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+                        rows.writeInt(value.getNano());
+                    }
+                }
+                default -> {
+                    String value = rs.getString(column);
+                    writePresence(rows, value == null);
+                    if (value != null) {
+                        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                        rows.writeInt(bytes.length);
+                        rows.write(bytes);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writePresence(DataOutputStream rows, boolean isNull) throws IOException {
+        rows.writeBoolean(!isNull);
+    }
+
+    private List<TableSchema> readHeader(DataInputStream input) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a blood bank snapshot file");
+        }
+        int version = input.readUnsignedShort();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported snapshot version: " + version);
+        }
+
+        int tableCount = input.readInt();
+        List<TableSchema> schemas = new ArrayList<>(tableCount);
+        for (int t = 0; t < tableCount; t++) {
+            String name = input.readUTF();
+            if (tables.stream().noneMatch(table -> table.name().equals(name))) {
+                throw new IOException("Snapshot contains unknown table: " + name);
+            }
+            int columnCount = input.readUnsignedShort();
+            List<String> columns = new ArrayList<>(columnCount);
+            byte[] types = new byte[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columns.add(input.readUTF());
+                types[i] = input.readByte();
+            }
+            schemas.add(new TableSchema(name, columns, types));
+        }
+        return schemas;
+    }
+
+    /**
+     * Check every table's checksum, and that each table comes after the tables it
+     * references, without touching the database
+     *
+     * @return The row count of each table, in snapshot order
+     */
+    private Map<String, Long> verifySnapshot(DataInputStream input) throws IOException {
+        List<TableSchema> schemas = readHeader(input);
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        byte[] buffer = new byte[FRAME_SIZE];
+        for (int i = 0; i < schemas.size(); i++) {
+            TableSchema schema = schemas.get(readTableIndex(input, schemas, rowCounts));
+            EntityTable table = tableNamed(schema.name());
+            for (String referenced : table.references()) {
+                if (!rowCounts.containsKey(referenced) && schemas.stream().anyMatch(s -> s.name().equals(referenced))) {
+                    throw new IOException("Snapshot table " + schema.name() + " comes before " + referenced);
+                }
+            }
+
+            CheckedInputStream payload = new CheckedInputStream(new FrameInputStream(input), new CRC32());
+            while (payload.read(buffer) >= 0) {
+                // Read to the end of the frames for the checksum
+            }
+            long rowCount = input.readLong();
+            if (payload.getChecksum().getValue() != input.readLong()) {
+                throw new IOException("Checksum mismatch for table " + schema.name());
+            }
+            rowCounts.put(schema.name(), rowCount);
+        }
+        return rowCounts;
+    }
+
+    /**
+     * Empty every entity table and load the snapshot's rows, table by table in the order
+     * they were written; runs inside the restore transaction
+     */
+    private Map<String, Long> loadSnapshot(DataInputStream input, Map<String, Long> rowCounts) throws IOException {
+        List<TableSchema> schemas = readHeader(input);
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            jdbcTemplate.update("DELETE FROM " + tables.get(i).name());
+        }
+
+        Map<String, Long> restored = new LinkedHashMap<>();
+        for (int i = 0; i < schemas.size(); i++) {
+            TableSchema schema = schemas.get(readTableIndex(input, schemas, restored));
+            CheckedInputStream payload = new CheckedInputStream(new FrameInputStream(input), new CRC32());
+            long loaded = loadTable(schema, rowCounts.get(schema.name()), payload);
+            input.readLong();
+            if (payload.getChecksum().getValue() != input.readLong()) {
+                throw new IOException("Snapshot changed while restoring table " + schema.name());
+            }
+            restored.put(schema.name(), loaded);
+        }
+        return restored;
+    }
+
+    private int readTableIndex(DataInputStream input, List<TableSchema> schemas, Map<String, Long> seen) throws IOException {
+        int tableIndex = input.readInt();
+        if (tableIndex < 0 || tableIndex >= schemas.size() || seen.containsKey(schemas.get(tableIndex).name())) {
+            throw new IOException("Corrupt snapshot: unexpected table index " + tableIndex);
+        }
+        return tableIndex;
+    }
+
+    private long loadTable(TableSchema schema, long rowCount, InputStream payload) throws IOException {
+        String placeholders = String.join(", ", Collections.nCopies(schema.columns().size(), "?"));
+        String sql = "INSERT INTO " + schema.name() + " (" + String.join(", ", schema.columns())
+                + ") VALUES (" + placeholders + ")";
+
+        long loaded = 0;
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        try (DataInputStream rows = new DataInputStream(new BufferedInputStream(new InflaterInputStream(payload)))) {
+            for (long r = 0; r < rowCount; r++) {
+                batch.add(readRow(schema, rows));
+                if (batch.size() == INSERT_BATCH_SIZE) {
+                    loaded += insertBatch(sql, batch);
+                }
+            }
+            loaded += insertBatch(sql, batch);
+
+            // The inflater may stop short of the last frame bytes; they still count towards the checksum
+            byte[] buffer = new byte[FRAME_SIZE];
+            while (payload.read(buffer) >= 0) {
+                // Read to the end of the frames
+            }
+        }
+        return loaded;
+    }
+
+    private int insertBatch(String sql, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        jdbcTemplate.batchUpdate(sql, batch);
+        batch.clear();
+        return size;
+    }
+
+    private Object[] readRow(TableSchema schema, DataInputStream rows) throws IOException {
+        Object[] values = new Object[schema.types().length];
+        for (int i = 0; i < values.length; i++) {
+            if (!rows.readBoolean()) {
+                continue;
+            }
+            values[i] = switch (schema.types()[i]) {
+                case TYPE_LONG -> rows.readLong();
+                case TYPE_DOUBLE -> rows.readDouble();
+                case TYPE_BOOLEAN -> rows.readBoolean();
+                case TYPE_TIMESTAMP -> LocalDateTime.ofEpochSecond(rows.readLong(), rows.readInt(), ZoneOffset.UTC);
+                default -> {
+                    byte[] bytes = new byte[rows.readInt()];
+                    rows.readFully(bytes);
+                    yield new String(bytes, StandardCharsets.UTF_8);
+                }
+            };
+        }
+        return values;
+    }
+
+    private EntityTable tableNamed(String name) {
+        return tables.stream().filter(table -> table.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * List the table of every entity, ordered so that each table comes after the tables
+     * its many-to-one and one-to-one associations reference
+     */
+    private static List<EntityTable> resolveTables(Metamodel metamodel) {
+        Map<Class<?>, EntityTable> byType = new HashMap<>();
+        for (EntityType<?> entity : metamodel.getEntities()) {
+            String idColumn = "id";
+            Set<Class<?>> referencedTypes = new HashSet<>();
+            for (SingularAttribute<?, ?> attribute : entity.getSingularAttributes()) {
+                if (attribute.isId()) {
+                    idColumn = columnName(attribute);
+                } else if (attribute.isAssociation()) {
+                    referencedTypes.add(attribute.getJavaType());
+                }
+            }
+            byType.put(entity.getJavaType(), new EntityTable(tableName(entity), idColumn, referencedTypes));
+        }
+
+        List<EntityTable> ordered = new ArrayList<>();
+        Set<String> placed = new HashSet<>();
+        List<EntityTable> remaining = new ArrayList<>(byType.values());
+        remaining.sort(Comparator.comparing(EntityTable::name));
+        while (!remaining.isEmpty()) {
+            boolean progressed = false;
+            for (Iterator<EntityTable> it = remaining.iterator(); it.hasNext(); ) {
+                EntityTable table = it.next();
+                boolean ready = table.referencedTypes().stream()
+                        .map(byType::get)
+                        .allMatch(referenced -> referenced == null || referenced == table || placed.contains(referenced.name()));
+                if (ready) {
+                    ordered.add(table.withReferences(byType));
+                    placed.add(table.name());
+                    it.remove();
+                    progressed = true;
+                }
+            }
+            if (!progressed) {
+                throw new IllegalStateException("Circular foreign keys between entity tables " + remaining);
+            }
+        }
+        return List.copyOf(ordered);
+    }
+
+    private static String tableName(EntityType<?> entity) {
+        Table table = entity.getJavaType().getAnnotation(Table.class);
+        return table != null && !table.name().isEmpty() ? table.name() : snakeCase(entity.getName());
+    }
+
+    private static String columnName(SingularAttribute<?, ?> attribute) {
+        if (attribute.getJavaMember() instanceof Field field) {
+            Column column = field.getAnnotation(Column.class);
+            if (column != null && !column.name().isEmpty()) {
+                return column.name();
+            }
+        }
+        return snakeCase(attribute.getName());
+    }
+
+    // Matches Spring Boot's default physical naming strategy
+    private static String snakeCase(String name) {
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase(Locale.ROOT);
+    }
+
+    private static byte typeTag(int sqlType) {
+        switch (sqlType) {
+            case Types.BIGINT:
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return TYPE_LONG;
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.REAL:
+                return TYPE_DOUBLE;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return TYPE_BOOLEAN;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case Types.DATE:
+                return TYPE_TIMESTAMP;
+            default:
+                // DECIMAL and character types keep their exact textual form
+                return TYPE_STRING;
+        }
+    }
+
+    private record TableSchema(String name, List<String> columns, byte[] types) {
+    }
+
+    private record EntityTable(String name, String idColumn, Set<Class<?>> referencedTypes, Set<String> references) {
+
+        private EntityTable(String name, String idColumn, Set<Class<?>> referencedTypes) {
+            this(name, idColumn, referencedTypes, Set.of());
+        }
+
+        private EntityTable withReferences(Map<Class<?>, EntityTable> byType) {
+            Set<String> names = new HashSet<>();
+            for (Class<?> type : referencedTypes) {
+                EntityTable referenced = byType.get(type);
+                if (referenced != null && !referenced.name().equals(name)) {
+                    names.add(referenced.name());
+                }
+            }
+            return new EntityTable(name, idColumn, referencedTypes, Set.copyOf(names));
+        }
+    }
+
+    /**
+     * Writes a table's payload as length-prefixed frames of up to {@link #FRAME_SIZE}
+     * bytes, and a zero length on close; the underlying stream is not closed
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte[] buffer = new byte[FRAME_SIZE];
+        private int count;
+        private boolean closed;
+
+        private FrameOutputStream(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeFrame();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (count == buffer.length) {
+                    writeFrame();
+                }
+                int chunk = Math.min(length, buffer.length - count);
+                System.arraycopy(bytes, offset, buffer, count, chunk);
+                count += chunk;
+                offset += chunk;
+                length -= chunk;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                writeFrame();
+                out.writeInt(0);
+            }
+        }
+
+        private void writeFrame() throws IOException {
+            if (count > 0) {
+                out.writeInt(count);
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * Reads the frames written by {@link FrameOutputStream} as one stream, ending at the
+     * zero length; the underlying stream is not closed
+     */
+    private static final class FrameInputStream extends InputStream {
+
+        private final DataInputStream in;
+        private int remaining;
+        private boolean finished;
+
+        private FrameInputStream(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextFrame()) {
+                return -1;
+            }
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!nextFrame()) {
+                return -1;
+            }
+            int read = in.read(bytes, offset, Math.min(length, remaining));
+            if (read < 0) {
+                throw new EOFException("Snapshot ends inside a frame");
+            }
+            remaining -= read;
+            return read;
+        }
+
+        private boolean nextFrame() throws IOException {
+            while (remaining == 0 && !finished) {
+                int length = in.readInt();
+                if (length < 0 || length > FRAME_SIZE) {
+                    throw new IOException("Corrupt snapshot: frame length " + length);
+                }
+                finished = length == 0;
+                remaining = length;
+            }
+            return remaining > 0;
+        }
+    }
+}
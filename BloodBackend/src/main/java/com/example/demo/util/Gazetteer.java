@@ -0,0 +1,236 @@
+package com.example.demo.util;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves free-text locations and addresses to coordinates using a bundled place list.
+ *
+ * The list ({@code geo.gazetteer}, a CSV on the classpath) maps place names to their
+ * centre. A location such as "123 Main Street, New York, NY 10001" or "Andheri West
+ * Mumbai" is matched first by whole comma-separated parts, then by the longest run of
+ * words that names a place.
+ *
+ * Street names are often place names too ("12 Salem Street, Medford MA", "Washington
+ * Ave"), so a hit is only trusted when its region or country code appears in the text,
+ * or, if the text names no known region or country, when it comes from the city part
+ * (the last part that is not just a region, postcode or country) or is an unambiguous
+ * name of several words. When a trusted name is ambiguous, the entry whose code appears
+ * wins, otherwise the first (most populous) one. Codes count at the end of the city
+ * part or in the parts after it. No network lookups are made.
+ */
+@Component
+public class Gazetteer {
+
+    private static final Logger logger = LoggerFactory.getLogger(Gazetteer.class);
+    private static final int MAX_PLACE_WORDS = 4;
+    private static final int MAX_CACHED = 10000;
+    private static final Map<String, String> COUNTRY_CODES = Map.ofEntries(
+            Map.entry("india", "in"), Map.entry("usa", "us"), Map.entry("united states", "us"),
+            Map.entry("united states of america", "us"), Map.entry("canada", "ca"), Map.entry("australia", "au"),
+            Map.entry("united kingdom", "gb"), Map.entry("england", "gb"), Map.entry("sri lanka", "lk"),
+            Map.entry("pakistan", "pk"), Map.entry("bangladesh", "bd"), Map.entry("nepal", "np"),
+            Map.entry("singapore", "sg"), Map.entry("uae", "ae"), Map.entry("united arab emirates", "ae"));
+
+    @Value("${geo.gazetteer:gazetteer.csv}")
+    private String gazetteerPath;
+
+    private final Map<String, List<Place>> placesByName = new HashMap<>();
+    private final Set<String> knownCodes = new HashSet<>();
+    private final Map<String, Optional<GeoPoint>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Load the place list from the classpath
+     */
+    @PostConstruct
+    public void load() {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(gazetteerPath).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < 5) {
+                    continue;
+                }
+                try {
+                    Place place = new Place(fields[1].trim().toLowerCase(Locale.ROOT), fields[2].trim().toLowerCase(Locale.ROOT),
+                            new GeoPoint(Double.parseDouble(fields[3].trim()), Double.parseDouble(fields[4].trim())));
+                    placesByName.computeIfAbsent(normalize(fields[0]), k -> new ArrayList<>()).add(place);
+                    knownCodes.add(place.region);
+                    knownCodes.add(place.country);
+                } catch (NumberFormatException e) {
+                    logger.warn("Skipping malformed gazetteer line: {}", line);
+                }
+            }
+            logger.info("Loaded {} place names from {}", placesByName.size(), gazetteerPath);
+        } catch (IOException e) {
+            logger.error("Could not load gazetteer {}: {}", gazetteerPath, e.getMessage());
+        }
+    }
+
+    /**
+     * Find the coordinates of a free-text location
+     *
+     * @param location The location or address
+     * @return The coordinates of the best matching place, or empty if none matches
+     */
+    public Optional<GeoPoint> resolve(String location) {
+        if (location == null || location.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<GeoPoint> cached = resolved.get(location);
+        if (cached != null) {
+            return cached;
+        }
+        Optional<GeoPoint> point = lookup(location);
+        if (resolved.size() >= MAX_CACHED) {
+            resolved.clear();
+        }
+        resolved.put(location, point);
+        return point;
+    }
+
+    private Optional<GeoPoint> lookup(String location) {
+        String[] parts = location.split(",");
+        int cityPart = cityPart(parts);
+        Set<String> codes = codesIn(parts, cityPart);
+
+        // Whole parts first: "new york" in "123 Main Street, New York, NY"
+        for (int i = 0; i < parts.length; i++) {
+            String name = normalize(parts[i]);
+            Optional<Place> place = pick(placesByName.get(name), name, codes, i == cityPart);
+            if (place.isPresent()) {
+                return Optional.of(place.get().point);
+            }
+        }
+        // Then the longest run of words naming a place, scanning from the end where towns usually are
+        for (int i = parts.length - 1; i >= 0; i--) {
+            String[] partWords = normalize(parts[i]).split(" ");
+            for (int length = Math.min(MAX_PLACE_WORDS, partWords.length); length >= 1; length--) {
+                for (int start = partWords.length - length; start >= 0; start--) {
+                    String name = String.join(" ", Arrays.copyOfRange(partWords, start, start + length));
+                    Optional<Place> place = pick(placesByName.get(name), name, codes, i == cityPart);
+                    if (place.isPresent()) {
+                        return Optional.of(place.get().point);
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // The entry to use for a hit, or empty if the hit is not trusted; see the class comment
+    private static Optional<Place> pick(List<Place> places, String name, Set<String> codes, boolean inCityPart) {
+        if (places == null) {
+            return Optional.empty();
+        }
+        for (Place place : places) {
+            if (codes.contains(place.region) || codes.contains(place.country)) {
+                return Optional.of(place);
+            }
+        }
+        if (!codes.isEmpty()) {
+            // The text names a region or country, and it is not this place's
+            return Optional.empty();
+        }
+        if (inCityPart || (places.size() == 1 && name.indexOf(' ') > 0)) {
+            return Optional.of(places.get(0));
+        }
+        return Optional.empty();
+    }
+
+    // The last part that is not only region codes, postcodes or a country: "Medford MA" in
+    // "12 Salem Street, Medford MA, 02155"; the first part if every part is
+    private int cityPart(String[] parts) {
+        for (int i = parts.length - 1; i >= 0; i--) {
+            if (!isTrailer(normalize(parts[i]))) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private boolean isTrailer(String part) {
+        if (part.isEmpty() || COUNTRY_CODES.containsKey(part)) {
+            return true;
+        }
+        for (String word : part.split(" ")) {
+            if (!knownCodes.contains(word) && !COUNTRY_CODES.containsKey(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Known codes or country names ending the city part ("Medford MA") or in the parts
+    // after it ("portland, or", "salem, india"); codes inside street parts are ignored
+    private Set<String> codesIn(String[] parts, int cityPart) {
+        Set<String> codes = new HashSet<>();
+        String[] cityWords = normalize(parts[cityPart]).split(" ");
+        int last = cityWords.length - 1;
+        while (last > 0 && addCode(cityWords[last], codes)) {
+            last--;
+        }
+        for (int i = cityPart + 1; i < parts.length; i++) {
+            String part = normalize(parts[i]);
+            if (COUNTRY_CODES.containsKey(part)) {
+                codes.add(COUNTRY_CODES.get(part));
+            }
+            for (String word : part.split(" ")) {
+                addCode(word, codes);
+            }
+        }
+        return codes;
+    }
+
+    private boolean addCode(String word, Set<String> codes) {
+        if (knownCodes.contains(word)) {
+            codes.add(word);
+            return true;
+        }
+        if (COUNTRY_CODES.containsKey(word)) {
+            codes.add(COUNTRY_CODES.get(word));
+            return true;
+        }
+        return false;
+    }
+
+    // Lower-case letters and single spaces only, so "St. Louis" matches "st louis"
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L} ]+", " ").trim().replaceAll("\\s+", " ");
+    }
+
+    private static final class Place {
+        private final String region;
+        private final String country;
+        private final GeoPoint point;
+
+        private Place(String region, String country, GeoPoint point) {
+            this.region = region;
+            this.country = country;
+            this.point = point;
+        }
+    }
+}
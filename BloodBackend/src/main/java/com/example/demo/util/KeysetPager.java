@@ -0,0 +1,189 @@
+package com.example.demo.util;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Keyset (seek) pagination over JPA specifications.
+ *
+ * Rows are ordered by a sort key and then by ID, and a page continues from the last row
+ * of the previous one with {@code WHERE (key, id) > (lastKey, lastId)} instead of an
+ * OFFSET, so each page costs the same however deep the client goes. One extra row is
+ * fetched to tell whether another page follows; no count query is run. Sort keys must be
+ * non-null columns.
+ */
+public final class KeysetPager {
+
+    private KeysetPager() {
+    }
+
+    /**
+     * Fetch one page
+     *
+     * @param repository The repository to read from
+     * @param filter The filters to apply, or null for none
+     * @param order The sort order
+     * @param cursor The token from the previous page, or null/blank for the first page
+     * @param limit The maximum number of rows to return
+     * @param fetch Associations to load in the same query, for rows that are serialized with them
+     * @return The page, or empty if the cursor is malformed or belongs to another sort order
+     */
+    public static <T> Optional<CursorPage<T>> fetch(JpaSpecificationExecutor<T> repository, Specification<T> filter,
+                                                   Order<T> order, String cursor, int limit, String... fetch) {
+        Specification<T> spec = Specification.where(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            Optional<PageCursor> decoded = PageCursor.decode(cursor).filter(c -> c.getSortKey().equals(order.attribute));
+            if (decoded.isEmpty()) {
+                return Optional.empty();
+            }
+            Comparable<?> value;
+            try {
+                value = order.parse(decoded.get().getSortValue());
+            } catch (RuntimeException e) {
+                return Optional.empty();
+            }
+            spec = spec.and(after(order, value, decoded.get().getId()));
+        }
+
+        Sort.Direction direction = order.descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = order.byId() ? Sort.by(direction, "id") : Sort.by(direction, order.attribute, "id");
+        List<T> rows = repository.findBy(spec, query -> {
+            FluentQuery.FetchableFluentQuery<T> sorted = query.sortBy(sort).limit(limit + 1);
+            return fetch.length > 0 ? sorted.project(fetch).all() : sorted.all();
+        });
+
+        if (rows.size() <= limit) {
+            return Optional.of(new CursorPage<>(rows, null));
+        }
+        List<T> content = rows.subList(0, limit);
+        T last = content.get(limit - 1);
+        Object lastValue = order.byId() ? null : order.valueOf.apply(last);
+        String next = PageCursor.encode(order.attribute, lastValue != null ? lastValue.toString() : null, order.idOf.apply(last));
+        return Optional.of(new CursorPage<>(content, next));
+    }
+
+    /**
+     * Filter on an attribute being equal to a value; a null value means no filter
+     *
+     * @param path The attribute, dotted for associations (e.g. "hospital.id")
+     * @param value The value to match
+     * @return The filter, or null
+     */
+    public static <T> Specification<T> equal(String path, Object value) {
+        if (value == null || (value instanceof String text && text.isBlank())) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(path(root, path), value);
+    }
+
+    /**
+     * Filter on a time attribute being in [from, to); either bound may be null
+     *
+     * @param path The attribute
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return The filter, or null if both bounds are null
+     */
+    public static <T> Specification<T> inRange(String path, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Expression<LocalDateTime> attribute = path(root, path);
+            if (from == null) {
+                return cb.lessThan(attribute, to);
+            }
+            if (to == null) {
+                return cb.greaterThanOrEqualTo(attribute, from);
+            }
+            return cb.and(cb.greaterThanOrEqualTo(attribute, from), cb.lessThan(attribute, to));
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Specification<T> after(Order<T> order, Comparable value, long id) {
+        return (root, query, cb) -> {
+            Expression<Long> idPath = root.get("id");
+            if (order.byId()) {
+                return order.descending ? cb.lessThan(idPath, id) : cb.greaterThan(idPath, id);
+            }
+            Expression<Comparable> key = root.get(order.attribute);
+            if (order.descending) {
+                return cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(idPath, id)));
+            }
+            return cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(idPath, id)));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <X> Path<X> path(Root<?> root, String path) {
+        Path<?> current = root;
+        for (String part : path.split("\\.")) {
+            current = current.get(part);
+        }
+        return (Path<X>) current;
+    }
+
+    /**
+     * A sort order for keyset pagination: a non-null sort key, then ID as tie-breaker
+     */
+    public static final class Order<T> {
+        private final String attribute;
+        private final Class<?> type;
+        private final Function<T, ?> valueOf;
+        private final Function<T, Long> idOf;
+        private final boolean descending;
+
+        private Order(String attribute, Class<?> type, Function<T, ?> valueOf, Function<T, Long> idOf, boolean descending) {
+            this.attribute = attribute;
+            this.type = type;
+            this.valueOf = valueOf;
+            this.idOf = idOf;
+            this.descending = descending;
+        }
+
+        /**
+         * Order by ID alone
+         */
+        public static <T> Order<T> byId(Function<T, Long> idOf, boolean descending) {
+            return new Order<>("id", Long.class, idOf, idOf, descending);
+        }
+
+        /**
+         * Order by a time attribute, then ID
+         */
+        public static <T> Order<T> byTime(String attribute, Function<T, LocalDateTime> valueOf, Function<T, Long> idOf,
+                                          boolean descending) {
+            return new Order<>(attribute, LocalDateTime.class, valueOf, idOf, descending);
+        }
+
+        /**
+         * Order by a text attribute, then ID
+         */
+        public static <T> Order<T> byText(String attribute, Function<T, String> valueOf, Function<T, Long> idOf,
+                                          boolean descending) {
+            return new Order<>(attribute, String.class, valueOf, idOf, descending);
+        }
+
+        private boolean byId() {
+            return "id".equals(attribute);
+        }
+
+        private Comparable<?> parse(String text) {
+            if (byId()) {
+                return 0L; // Unused: ID-only cursors compare on the ID alone
+            }
+            return type == LocalDateTime.class ? LocalDateTime.parse(text) : text;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-memory read-through cache with a time to live and hit/miss counters.
+ *
+ * Only values the loader finds are cached; misses always go back to the loader. Every
+ * invalidation bumps a generation number, and a load that started before it is not
+ * stored, so a slow read cannot put back a value a concurrent write has just replaced.
+ */
+public class NearCache<K, V> {
+
+    private final long ttlMs;
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Create an empty cache
+     *
+     * @param ttlMs How long a value is served before it is loaded again
+     * @param maxSize The maximum number of values held
+     */
+    public NearCache(long ttlMs, int maxSize) {
+        this.ttlMs = ttlMs;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Get a value, loading and caching it on a miss
+     *
+     * @param key The key
+     * @param loader Loads the value for a key; an empty result is returned but not cached
+     * @return An Optional containing the value if found
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt > now) {
+            hits.incrementAndGet();
+            return Optional.of(entry.value);
+        }
+        misses.incrementAndGet();
+        long loadedGeneration = generation.get();
+        Optional<V> value = loader.apply(key);
+        if (value.isPresent() && generation.get() == loadedGeneration) {
+            if (entries.size() >= maxSize && !entries.containsKey(key)) {
+                makeRoom(now);
+            }
+            entries.put(key, new Entry<>(value.get(), now + ttlMs));
+        }
+        return value;
+    }
+
+    /**
+     * Drop the value for a key
+     *
+     * @param key The key
+     */
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every value matching a condition, for when the key of a changed value is unknown
+     *
+     * @param condition The values to drop
+     */
+    public void invalidateIf(Predicate<V> condition) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.values().removeIf(entry -> condition.test(entry.value));
+    }
+
+    /**
+     * Drop every value
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Get the size and hit rate of the cache
+     *
+     * @return A map of counter name to value
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    // Drop expired values first, then arbitrary ones until there is room
+    private void makeRoom(long now) {
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        Iterator<Entry<V>> values = entries.values().iterator();
+        while (entries.size() >= maxSize && values.hasNext()) {
+            values.next();
+            values.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort key and ID of the last row
+ * of a page. Clients send it back unchanged to get the rows that follow.
+ */
+public final class PageCursor {
+
+    private static final String VERSION = "1";
+
+    private final String sortKey;
+    private final String sortValue;
+    private final long id;
+
+    private PageCursor(String sortKey, String sortValue, long id) {
+        this.sortKey = sortKey;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Build the token for the row a page ended on
+     *
+     * @param sortKey The attribute the list is sorted by
+     * @param sortValue The row's value of that attribute, as text (ignored when sorting by ID)
+     * @param id The row's ID
+     * @return A URL-safe token
+     */
+    public static String encode(String sortKey, String sortValue, long id) {
+        String raw = VERSION + "|" + sortKey + "|" + id + "|" + (sortValue != null ? sortValue : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a token sent by a client
+     *
+     * @param token The token
+     * @return The cursor, or empty if the token is malformed
+     */
+    public static Optional<PageCursor> decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The value goes last and may itself contain '|'
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                return Optional.empty();
+            }
+            return Optional.of(new PageCursor(parts[1], parts[3], Long.parseLong(parts[2])));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.util;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for list endpoints that return one page at a time.
+ *
+ * The body stays a plain JSON array so existing clients keep working; the total number
+ * of matches is sent in the {@value #TOTAL_COUNT_HEADER} header, or, for keyset-paginated
+ * lists, the token for the next page in the {@value #NEXT_CURSOR_HEADER} header.
+ */
+public final class PagedResponse {
+
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private PagedResponse() {
+    }
+
+    /**
+     * Clamp a requested page size to [1, {@value #MAX_PAGE_SIZE}]
+     *
+     * @param requested The size the client asked for
+     * @return The size to use
+     */
+    public static int pageSize(int requested) {
+        return Math.min(Math.max(1, requested), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Build a 200 response holding the page's content and the total count header
+     *
+     * @param page The page to return
+     * @return The response
+     */
+    public static <T> ResponseEntity<List<T>> of(Page<T> page) {
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(page.getTotalElements()))
+                .body(page.getContent());
+    }
+
+    /**
+     * Build a 200 response holding the page's content and, unless it is the last page,
+     * the next cursor header
+     *
+     * @param page The page to return
+     * @return The response
+     */
+    public static <T> ResponseEntity<List<T>> of(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getContent());
+    }
+
+    /**
+     * Build the 400 response for a cursor that could not be read
+     *
+     * @return The response
+     */
+    public static ResponseEntity<?> invalidCursor() {
+        return ResponseEntity.badRequest().body(Map.of("message", "Invalid or expired page cursor"));
+    }
+}
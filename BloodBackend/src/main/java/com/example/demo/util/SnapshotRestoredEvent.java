@@ -0,0 +1,20 @@
+package com.example.demo.util;
+
+import java.util.Map;
+
+/**
+ * Published after a database snapshot has been restored and committed, so components
+ * holding database state in memory can reload it
+ */
+public class SnapshotRestoredEvent {
+
+    private final Map<String, Long> counts;
+
+    public SnapshotRestoredEvent(Map<String, Long> counts) {
+        this.counts = counts;
+    }
+
+    public Map<String, Long> getCounts() {
+        return counts;
+    }
+}
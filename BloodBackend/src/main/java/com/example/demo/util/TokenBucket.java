@@ -0,0 +1,85 @@
+package com.example.demo.util;
+
+/**
+ * Thread-safe token bucket that refills continuously.
+ *
+ * The bucket starts full, holds at most {@code capacity} tokens and regains tokens at
+ * a fixed rate. Time is passed in by the caller as {@link System#nanoTime()} so one
+ * clock read can serve several buckets.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Create a full bucket
+     *
+     * @param capacity The maximum number of tokens (the burst size)
+     * @param refillPerSecond The number of tokens regained per second
+     * @param now The current time from System.nanoTime()
+     */
+    public TokenBucket(double capacity, double refillPerSecond, long now) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Take one token if available
+     *
+     * @param now The current time from System.nanoTime()
+     * @return True if a token was taken
+     */
+    public synchronized boolean tryConsume(long now) {
+        refill(now);
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check whether a token is available without taking it
+     *
+     * @param now The current time from System.nanoTime()
+     * @return True if at least one token is available
+     */
+    public synchronized boolean hasToken(long now) {
+        refill(now);
+        return tokens >= 1.0;
+    }
+
+    /**
+     * Take one token whether or not one is available. The bucket may go into debt, down to
+     * minus its capacity, for uses that could only be charged after the fact.
+     *
+     * @param now The current time from System.nanoTime()
+     */
+    public synchronized void consume(long now) {
+        refill(now);
+        tokens = Math.max(-capacity, tokens - 1.0);
+    }
+
+    /**
+     * Check whether the bucket has refilled completely, i.e. has been idle for a while
+     *
+     * @param now The current time from System.nanoTime()
+     * @return True if the bucket is full
+     */
+    public synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
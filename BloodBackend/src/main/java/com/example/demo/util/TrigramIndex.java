@@ -0,0 +1,281 @@
+package com.example.demo.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram inverted index for case-insensitive substring search over short text
+ * such as names and locations.
+ *
+ * Every document's text is normalised (lower case, accents and punctuation removed) and
+ * split into overlapping three-character grams. A query only looks at documents that
+ * contain all of its grams, starting from the rarest gram, and confirms each candidate
+ * with a plain substring check, so cost depends on the number of matches rather than on
+ * the number of documents. Queries of one or two characters have no gram and check every
+ * document instead, so they still match anywhere in the text.
+ *
+ * Matches are ranked: exact text first, then text that starts with the query, then a
+ * word that starts with the query, then any other substring; shorter text and lower IDs
+ * break ties.
+ */
+public class TrigramIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, String> textById = new HashMap<>();
+    private Map<String, Set<Long>> postings = new HashMap<>();
+
+    /**
+     * Add a document or replace its text
+     *
+     * @param id The document ID
+     * @param text The text to index; null or blank removes the document
+     */
+    public void put(Long id, String text) {
+        String normalized = normalize(text);
+        lock.writeLock().lock();
+        try {
+            String previous = textById.get(id);
+            if (normalized.equals(previous)) {
+                return;
+            }
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            if (normalized.isEmpty()) {
+                textById.remove(id);
+                return;
+            }
+            textById.put(id, normalized);
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a document
+     *
+     * @param id The document ID
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String previous = textById.remove(id);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace every document at once. The new index is built before the lock is taken, so
+     * searches keep seeing the old documents until it is complete.
+     *
+     * @param texts The text of every document by ID
+     */
+    public void replaceAll(Map<Long, String> texts) {
+        Map<Long, String> newTextById = new HashMap<>();
+        Map<String, Set<Long>> newPostings = new HashMap<>();
+        for (Map.Entry<Long, String> entry : texts.entrySet()) {
+            String normalized = normalize(entry.getValue());
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            newTextById.put(entry.getKey(), normalized);
+            for (String gram : grams(normalized)) {
+                newPostings.computeIfAbsent(gram, k -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            textById = newTextById;
+            postings = newPostings;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every document
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            textById.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the documents whose text contains the query
+     *
+     * @param query The text to look for
+     * @param offset The number of ranked matches to skip
+     * @param limit The maximum number of IDs to return
+     * @return The total number of matches and the requested slice of ranked IDs
+     */
+    public Result search(String query, int offset, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty()) {
+            return new Result(0, List.of());
+        }
+        List<Ranked> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(needle)) {
+                String text = textById.get(id);
+                int position = text.indexOf(needle);
+                if (position >= 0) {
+                    matches.add(new Ranked(id, rank(text, needle, position), text.length()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt((Ranked r) -> r.rank).thenComparingInt(r -> r.length).thenComparingLong(r -> r.id));
+        int from = Math.min(Math.max(0, offset), matches.size());
+        int to = Math.min(matches.size(), from + Math.max(0, limit));
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(matches.get(i).id);
+        }
+        return new Result(matches.size(), ids);
+    }
+
+    /**
+     * Get the number of indexed documents
+     *
+     * @return The document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return textById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock
+    private Set<Long> candidates(String needle) {
+        if (needle.length() < 3) {
+            // Too short for a gram: every document is a candidate
+            return textById.keySet();
+        }
+        Set<String> queryGrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= needle.length(); i++) {
+            queryGrams.add(needle.substring(i, i + 3));
+        }
+
+        List<Set<Long>> lists = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private void unindex(Long id, String text) {
+        for (String gram : grams(text)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static int rank(String text, String needle, int position) {
+        if (text.equals(needle)) {
+            return 0;
+        }
+        if (position == 0) {
+            return 1;
+        }
+        if (text.contains(" " + needle)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * Normalise text for indexing and querying
+     *
+     * @param text The raw text
+     * @return Lower-case letters and digits separated by single spaces
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    /**
+     * One page of search results
+     */
+    public static final class Result {
+        private final int total;
+        private final List<Long> ids;
+
+        private Result(int total, List<Long> ids) {
+            this.total = total;
+            this.ids = ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+    }
+
+    private static final class Ranked {
+        private final long id;
+        private final int rank;
+        private final int length;
+
+        private Ranked(long id, int rank, int length) {
+            this.id = id;
+            this.rank = rank;
+            this.length = length;
+        }
+    }
+}
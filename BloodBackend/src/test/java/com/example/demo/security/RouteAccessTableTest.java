@@ -0,0 +1,110 @@
+package com.example.demo.security;
+
+import com.example.demo.security.RouteAccessTable.Access;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteAccessTableTest {
+
+	private static final String CONTEXT_PATH = "/bloodbank";
+
+	private final RouteAccessTable table = new RouteAccessTable();
+
+	// The endpoints that carried @PreAuthorize("hasAuthority('ROLE_ADMIN')") before the table existed
+	@ParameterizedTest
+	@ValueSource(strings = {
+			"/api/blood-donations/pending",
+			"/api/blood-donations/17/approve",
+			"/api/blood-donations/17/reject",
+			"/api/blood-requests/pending",
+			"/api/blood-requests/17/approve",
+			"/api/blood-requests/17/reject",
+			"/api/blood-inventory/update"
+	})
+	void formerMethodSecuredEndpointsAreAdminOnly(String path) {
+		assertThat(table.resolve(path)).isEqualTo(Access.ADMIN);
+		assertThat(decide(path, user("USER"))).isFalse();
+		assertThat(decide(path, anonymous())).isFalse();
+		assertThat(decide(path, user("ADMIN"))).isTrue();
+	}
+
+	@Test
+	void firstDeclaredRuleWins() {
+		// Admin rules are declared before the broader user-or-admin and public ones
+		assertThat(table.resolve("/api/blood-donations/17/status")).isEqualTo(Access.ADMIN);
+		assertThat(table.resolve("/api/blood-donations/17")).isEqualTo(Access.USER_OR_ADMIN);
+		assertThat(table.resolve("/api/blood-requests/matching/stats")).isEqualTo(Access.ADMIN);
+		assertThat(table.resolve("/api/blood-requests/17")).isEqualTo(Access.USER_OR_ADMIN);
+		assertThat(table.resolve("/api/donation-appointments/slots/capacity")).isEqualTo(Access.ADMIN);
+		assertThat(table.resolve("/api/donation-appointments/slots")).isEqualTo(Access.USER_OR_ADMIN);
+		assertThat(table.resolve("/api/blood-inventory")).isEqualTo(Access.PUBLIC);
+		assertThat(table.resolve("/api/blood-inventory/stock")).isEqualTo(Access.PUBLIC);
+	}
+
+	@Test
+	void singleStarMatchesExactlyOneSegment() {
+		assertThat(table.resolve("/api/blood-donations/approve")).isEqualTo(Access.USER_OR_ADMIN);
+		assertThat(table.resolve("/api/blood-donations/17/18/approve")).isEqualTo(Access.USER_OR_ADMIN);
+		assertThat(table.resolve("/api/blood-donations/17/approve/extra")).isEqualTo(Access.USER_OR_ADMIN);
+	}
+
+	@Test
+	void doubleStarMatchesThePathAndEverythingBelowIt() {
+		assertThat(table.resolve("/api/admin")).isEqualTo(Access.ADMIN);
+		assertThat(table.resolve("/api/admin/tokens/users/a@b.com/revoke")).isEqualTo(Access.ADMIN);
+		assertThat(table.resolve("/api/auth")).isEqualTo(Access.PUBLIC);
+		assertThat(table.resolve("/api/auth/login")).isEqualTo(Access.PUBLIC);
+		// Not a prefix match on the segment itself
+		assertThat(table.resolve("/api/administrators")).isEqualTo(Access.AUTHENTICATED);
+		// Only exact paths match rules without "**"
+		assertThat(table.resolve("/api/blood-inventory/stock/A+")).isEqualTo(Access.AUTHENTICATED);
+	}
+
+	@Test
+	void unlistedPathsNeedAnyAuthenticatedCaller() {
+		assertThat(table.resolve("/api/users")).isEqualTo(Access.AUTHENTICATED);
+		assertThat(decide("/api/users", user("USER"))).isTrue();
+		assertThat(decide("/api/users", anonymous())).isFalse();
+	}
+
+	@Test
+	void contextPathIsStrippedBeforeMatching() {
+		MockHttpServletRequest request = request("/api/blood-donations/pending");
+		assertThat(RouteAccessTable.pathOf(request)).isEqualTo("/api/blood-donations/pending");
+		assertThat(table.check(() -> user("USER"), new RequestAuthorizationContext(request)).isGranted()).isFalse();
+
+		assertThat(table.isPublic(request("/api/auth/login"))).isTrue();
+		assertThat(table.isPublic(request("/api/donors/1"))).isFalse();
+
+		MockHttpServletRequest root = new MockHttpServletRequest("GET", "/api/auth/login");
+		assertThat(RouteAccessTable.pathOf(root)).isEqualTo("/api/auth/login");
+	}
+
+	private boolean decide(String path, Authentication authentication) {
+		return table.check(() -> authentication, new RequestAuthorizationContext(request(path))).isGranted();
+	}
+
+	private static MockHttpServletRequest request(String path) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", CONTEXT_PATH + path);
+		request.setContextPath(CONTEXT_PATH);
+		return request;
+	}
+
+	private static Authentication user(String role) {
+		return UsernamePasswordAuthenticationToken.authenticated("someone@example.com", null,
+				AuthorityUtils.createAuthorityList("ROLE_" + role));
+	}
+
+	private static Authentication anonymous() {
+		return new AnonymousAuthenticationToken("key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UnitsContribution;
+import com.example.demo.model.BloodRequest;
+import com.example.demo.repository.BloodRequestRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "matching.enabled=false")
+class BloodRequestContributionConcurrencyTest {
+
+	private static final int THREADS = 32;
+
+	@Autowired
+	private BloodRequestService bloodRequestService;
+
+	@Autowired
+	private BloodRequestRepository bloodRequestRepository;
+
+	private final List<Long> created = new ArrayList<>();
+
+	@AfterEach
+	void cleanUp() {
+		created.forEach(bloodRequestRepository::deleteById);
+		created.clear();
+	}
+
+	@Test
+	void concurrentContributionsAreAllCounted() throws Exception {
+		Long id = createRequest(1000);
+
+		List<Optional<UnitsContribution>> results = contributeConcurrently(id, 400);
+
+		assertThat(results).allMatch(Optional::isPresent);
+		BloodRequest request = bloodRequestRepository.findById(id).orElseThrow();
+		assertThat(request.getUnitsProvided()).isEqualTo(400);
+		assertThat(request.getRequestStatus()).isEqualTo("PARTIAL");
+		// Every contribution saw its own increment
+		assertThat(results.stream().map(result -> result.get().getUnitsProvided()))
+				.containsExactlyInAnyOrderElementsOf(IntStream.rangeClosed(1, 400).boxed().toList());
+	}
+
+	@Test
+	void contributionsStopOnceRequestIsFulfilled() throws Exception {
+		Long id = createRequest(100);
+
+		List<Optional<UnitsContribution>> results = contributeConcurrently(id, 300);
+
+		List<UnitsContribution> accepted = results.stream().flatMap(Optional::stream).toList();
+		assertThat(accepted).hasSize(100);
+		assertThat(accepted).filteredOn(result -> "FULFILLED".equals(result.getRequestStatus())).hasSize(1);
+		BloodRequest request = bloodRequestRepository.findById(id).orElseThrow();
+		assertThat(request.getUnitsProvided()).isEqualTo(100);
+		assertThat(request.getRequestStatus()).isEqualTo("FULFILLED");
+	}
+
+	private Long createRequest(int unitsNeeded) {
+		BloodRequest request = new BloodRequest();
+		request.setName("Concurrency Test");
+		request.setBloodGroup("A+");
+		request.setPhone("0000000000");
+		request.setEmail("concurrency-test@example.com");
+		request.setLocation("Test Ward");
+		request.setReason("Concurrent contribution test");
+		request.setUnitsNeeded(unitsNeeded);
+		Long id = bloodRequestService.saveBloodRequest(request).getId();
+		created.add(id);
+		return id;
+	}
+
+	// Release all contributions at once from a shared start gate and collect every result
+	private List<Optional<UnitsContribution>> contributeConcurrently(Long id, int contributions) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Optional<UnitsContribution>>> futures = new ArrayList<>();
+			for (int i = 0; i < contributions; i++) {
+				Callable<Optional<UnitsContribution>> task = () -> {
+					start.await();
+					return bloodRequestService.addUnitsProvided(id, 1);
+				};
+				futures.add(executor.submit(task));
+			}
+			start.countDown();
+			List<Optional<UnitsContribution>> results = new ArrayList<>();
+			for (Future<Optional<UnitsContribution>> future : futures) {
+				results.add(future.get(60, TimeUnit.SECONDS));
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -1,7 +1,7 @@
 import React, { useState, useEffect, useContext } from "react";
 import { useNavigate } from "react-router-dom";
 import { AuthContext } from "./AuthContext";
-import { getApiUrl } from "../utils/apiConfig";
+import { getApiUrl, fetchAllPages } from "../utils/apiConfig";
 import DonationsManagement from "./DonationsManagement";
 import RequestsManagement from "./RequestsManagement";
 import BloodStockManagement from "./BloodStockManagement";
@@ -132,6 +132,15 @@ const AdminDashboard = () => {
     calculateStats();
   }, [loggedIn, user, navigate]);
 
+  // Options for the paged list endpoints, which are read in full with fetchAllPages
+  const authOptions = () => ({
+    headers: {
+      "Authorization": `Bearer ${localStorage.getItem("token")}`,
+      "Accept": "application/json"
+    },
+    mode: 'cors'
+  });
+
   const fetchBloodInventory = async () => {
     try {
       // Import the API utilities
@@ -205,11 +214,7 @@ const AdminDashboard = () => {
 
   const fetchAppointments = async () => {
     try {
-      // Import the API utilities
-      const { apiGet, ENDPOINTS } = await import('../utils/api');
-      
-      // Use apiGet utility which handles authentication headers
-      const data = await apiGet(ENDPOINTS.APPOINTMENTS);
+      const data = await fetchAllPages('donation-appointments', authOptions());
       setAppointments(data);
     } catch (err) {
       console.error("Error fetching appointments:", err);
@@ -231,25 +236,7 @@ const AdminDashboard = () => {
       
       console.log("Fetching donors with token:", token.substring(0, 20) + "...");
       
-      const response = await fetch(getApiUrl("donors"), {
-        method: "GET",
-        headers: {
-          "Authorization": `Bearer ${token}`,
-          "Content-Type": "application/json",
-          "Accept": "application/json"
-        },
-        mode: 'cors'
-      });
-      
-      console.log("Donors API response status:", response.status);
-      
-      if (!response.ok) {
-        const errorText = await response.text();
-        console.error("Server error response:", errorText);
-        throw new Error(`Failed to fetch donors: ${response.status} ${response.statusText}`);
-      }
-      
-      const data = await response.json();
+      const data = await fetchAllPages("donors", authOptions());
       console.log(`Successfully fetched ${data.length} donors`);
       setDonors(data);
     } catch (err) {
@@ -265,13 +252,7 @@ const AdminDashboard = () => {
         throw new Error("Authentication token not found. Please log in again.");
       }
       
-      const response = await fetch(getApiUrl("blood-requests"), {
-        headers: {
-          "Authorization": `Bearer ${token}`
-        }
-      });
-      if (!response.ok) throw new Error("Failed to fetch blood requests");
-      const data = await response.json();
+      const data = await fetchAllPages("blood-requests", authOptions());
       setRequests(data);
     } catch (err) {
       console.error("Error fetching blood requests:", err);
@@ -281,13 +262,9 @@ const AdminDashboard = () => {
   
   const fetchPendingDonors = async () => {
     try {
-      // Import the admin API utilities
-      const { adminGet, ADMIN_ENDPOINTS } = await import('../utils/adminUtils');
+      console.log("Fetching pending donors...");
       
-      console.log("Fetching pending donors using admin API utilities...");
-      
-      // Use admin-specific API utility
-      const data = await adminGet(ADMIN_ENDPOINTS.PENDING_DONATIONS);
+      const data = await fetchAllPages("blood-donations/pending", authOptions());
       
       console.log(`Successfully fetched ${data.length} pending donors`);
       setPendingDonors(data);
@@ -309,13 +286,9 @@ const AdminDashboard = () => {
   
   const fetchPendingRequests = async () => {
     try {
-      // Import the admin API utilities
-      const { adminGet, ADMIN_ENDPOINTS } = await import('../utils/adminUtils');
-      
-      console.log("Fetching pending requests using admin API utilities...");
+      console.log("Fetching pending requests...");
       
-      // Use admin-specific API utility
-      const data = await adminGet(ADMIN_ENDPOINTS.PENDING_REQUESTS);
+      const data = await fetchAllPages("blood-requests/pending", authOptions());
       
       console.log(`Successfully fetched ${data.length} pending requests`);
       setPendingRequests(data);
@@ -337,11 +310,8 @@ const AdminDashboard = () => {
   
   const fetchNotifications = async () => {
     try {
-      // Import the API utilities
-      const { apiGet, ENDPOINTS } = await import('../utils/api');
-      
-      console.log("Fetching notifications using API utilities...");
-      const notificationsData = await apiGet(ENDPOINTS.EMERGENCY_NOTIFICATIONS);
+      console.log("Fetching notifications...");
+      const notificationsData = await fetchAllPages('emergency-notifications', authOptions());
       console.log(`Successfully fetched ${notificationsData.length} notifications`);
       setNotifications(notificationsData);
     } catch (err) {
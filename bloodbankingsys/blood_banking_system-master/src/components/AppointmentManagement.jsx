@@ -1,6 +1,6 @@
 import { useState, useEffect, useContext } from 'react';
 import { AuthContext } from './AuthContext';
-import { getApiUrl } from '../utils/apiConfig';
+import { getApiUrl, fetchAllPages } from '../utils/apiConfig';
 import './AppointmentManagement.css';
 
 function AppointmentManagement() {
@@ -31,17 +31,12 @@ function AppointmentManagement() {
   const fetchAppointments = async () => {
     try {
       setLoading(true);
-      const response = await fetch(getApiUrl('donation-appointments'), {
+      // The list is paged; follow the cursor so appointments past the first page are shown
+      const data = await fetchAllPages('donation-appointments', {
         headers: {
           'Authorization': `Bearer ${token}`
         }
       });
-      
-      if (!response.ok) {
-        throw new Error('Failed to fetch appointments');
-      }
-      
-      const data = await response.json();
       setAppointments(data);
       setError(null);
     } catch (err) {
@@ -54,17 +49,11 @@ function AppointmentManagement() {
 
   const fetchDonors = async () => {
     try {
-      const response = await fetch(getApiUrl('donors'), {
+      const data = await fetchAllPages('donors', {
         headers: {
           'Authorization': `Bearer ${token}`
         }
       });
-      
-      if (!response.ok) {
-        throw new Error('Failed to fetch donors');
-      }
-      
-      const data = await response.json();
       setDonors(data);
     } catch (err) {
       console.error('Error fetching donors:', err);
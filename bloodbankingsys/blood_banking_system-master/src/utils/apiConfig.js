@@ -90,4 +90,33 @@ export const apiDelete = async (endpoint, token = null) => {
   });
   
   return response;
-};
\ No newline at end of file
+};
+
+/**
+ * Fetches every page of a list endpoint that pages with the X-Next-Cursor header,
+ * requesting the next page with ?cursor= until the server sends no cursor
+ * @param {string} endpoint - API endpoint without leading slash, optionally with a query string
+ * @param {object} options - Options passed to each fetch, e.g. the Authorization header
+ * @returns {Promise<Array>} - All items, in the order the server returned them
+ */
+export const fetchAllPages = async (endpoint, options = {}) => {
+  const items = [];
+  const separator = endpoint.includes('?') ? '&' : '?';
+  let cursor = null;
+  do {
+    const url = cursor
+      ? `${getApiUrl(endpoint)}${separator}cursor=${encodeURIComponent(cursor)}`
+      : getApiUrl(endpoint);
+    const response = await fetch(url, options);
+    if (response.status === 401) {
+      throw new Error('Authentication failed: Please log in again');
+    }
+    if (!response.ok) {
+      const errorText = await response.text();
+      throw new Error(`Failed to fetch ${endpoint}: ${response.status} ${response.statusText} ${errorText}`);
+    }
+    items.push(...await response.json());
+    cursor = response.headers.get('X-Next-Cursor');
+  } while (cursor);
+  return items;
+};